@@ -0,0 +1,40 @@
+package com.amigoscode.testing;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// the real application wired against its own embedded H2 database, without the web server
+public class BenchmarkApplication {
+
+  public static ConfigurableApplicationContext start(String... properties) {
+    return run(WebApplicationType.NONE, properties);
+  }
+
+  // same wiring behind an embedded Tomcat on a random port, read it back from local.server.port
+  public static ConfigurableApplicationContext startServer(String... properties) {
+    List<String> allProperties = new ArrayList<>(Arrays.asList(properties));
+    allProperties.add(0, "server.port=0");
+    return run(WebApplicationType.SERVLET, allProperties.toArray(new String[0]));
+  }
+
+  private static ConfigurableApplicationContext run(WebApplicationType webApplicationType, String... properties) {
+    List<String> allProperties = new ArrayList<>(Arrays.asList(
+        "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+        "spring.main.banner-mode=off",
+        "logging.level.root=warn",
+        "stripe.enabled=false"
+    ));
+    allProperties.addAll(Arrays.asList(properties));
+
+    return new SpringApplicationBuilder(TestingApplication.class)
+        .web(webApplicationType)
+        .properties(allProperties.toArray(new String[0]))
+        .run();
+  }
+}
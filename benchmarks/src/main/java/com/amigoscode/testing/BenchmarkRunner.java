@@ -0,0 +1,35 @@
+package com.amigoscode.testing;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// runs JMH with the usual command line options, writing JSON results under target/jmh unless told otherwise
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+
+    if (!commandLineOptions.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+
+    if (!commandLineOptions.getResult().hasValue()) {
+      Path resultDirectory = Paths.get("target", "jmh");
+      Files.createDirectories(resultDirectory);
+      String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+      options.result(resultDirectory.resolve("results-" + timestamp + ".json").toString());
+    }
+
+    new Runner(options.build()).run();
+  }
+}
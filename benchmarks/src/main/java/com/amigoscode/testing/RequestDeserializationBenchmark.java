@@ -0,0 +1,90 @@
+package com.amigoscode.testing;
+
+import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestDeserializationBenchmark {
+  private static final byte[] PAYMENT_REQUEST = ("{\"payment\":{"
+      + "\"paymentId\":null,"
+      + "\"customerId\":\"5a7b2c1e-3f4d-4e6a-9b8c-7d6e5f4a3b2c\","
+      + "\"amount\":100.00,"
+      + "\"currency\":\"GBP\","
+      + "\"source\":\"card_1Gq2rs2eZvKYlo2C\","
+      + "\"description\":\"books\"}}").getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] CUSTOMER_REGISTRATION_REQUEST = ("{\"customer\":{"
+      + "\"id\":\"5a7b2c1e-3f4d-4e6a-9b8c-7d6e5f4a3b2c\","
+      + "\"name\":\"James\","
+      + "\"phoneNumber\":\"+447123456789\"}}").getBytes(StandardCharsets.UTF_8);
+
+  // databind binds through the @JsonCreator, fast registers the streaming deserializers of FastJsonCodecs
+  @Param({"databind", "fast"})
+  public String codec;
+
+  // smile bodies are the same requests as a Jackson client encodes them, UUIDs as 16 raw bytes
+  @Param({"json", "smile"})
+  public String format;
+
+  private ObjectReader paymentRequestReader;
+  private ObjectReader customerRegistrationRequestReader;
+  private byte[] paymentRequest;
+  private byte[] customerRegistrationRequest;
+
+  @Setup
+  public void setUp() throws IOException {
+    // configured the same way as the ObjectMappers Spring Boot gives the controllers
+    Jackson2ObjectMapperBuilder builder = "smile".equals(format)
+        ? Jackson2ObjectMapperBuilder.smile()
+        : Jackson2ObjectMapperBuilder.json();
+    if ("fast".equals(codec)) {
+      builder.modulesToInstall(new FastJsonCodecs());
+    }
+    ObjectMapper objectMapper = builder.build();
+    paymentRequestReader = objectMapper.readerFor(PaymentRequest.class);
+    customerRegistrationRequestReader = objectMapper.readerFor(CustomerRegistrationRequest.class);
+
+    ObjectMapper jsonObjectMapper = Jackson2ObjectMapperBuilder.json().build();
+    paymentRequest = objectMapper.writeValueAsBytes(
+        jsonObjectMapper.readValue(PAYMENT_REQUEST, PaymentRequest.class));
+    customerRegistrationRequest = objectMapper.writeValueAsBytes(
+        jsonObjectMapper.readValue(CUSTOMER_REGISTRATION_REQUEST, CustomerRegistrationRequest.class));
+
+    // bytes on the wire per request, printed once per fork next to the timings
+    System.out.printf("%s: payment request %d bytes, customer registration request %d bytes%n",
+        format, paymentRequest.length, customerRegistrationRequest.length);
+  }
+
+  @Benchmark
+  public PaymentRequest paymentRequest() throws IOException {
+    return paymentRequestReader.readValue(paymentRequest);
+  }
+
+  @Benchmark
+  public CustomerRegistrationRequest customerRegistrationRequest() throws IOException {
+    return customerRegistrationRequestReader.readValue(customerRegistrationRequest);
+  }
+}
@@ -0,0 +1,50 @@
+package com.amigoscode.testing.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// random shares one SecureRandom between threads, time-ordered draws from each thread's ThreadLocalRandom
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerIdGeneratorBenchmark {
+  @Param({"random", "time-ordered"})
+  public String generator;
+
+  private CustomerIdGenerator customerIdGenerator;
+
+  @Setup
+  public void setUp() {
+    customerIdGenerator = "random".equals(generator)
+        ? new RandomCustomerIdGenerator()
+        : new TimeOrderedCustomerIdGenerator();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public UUID nextId() {
+    return customerIdGenerator.nextId();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public UUID nextIdContended() {
+    return customerIdGenerator.nextId();
+  }
+}
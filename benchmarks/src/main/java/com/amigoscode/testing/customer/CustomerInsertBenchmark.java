@@ -0,0 +1,88 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// rows per second into a file-backed H2 customer table that already holds preloadedRows rows; random keys
+// touch pages all over the primary key index, time-ordered keys keep appending to its last page.
+// phone numbers are sequential in both cases so only the primary key differs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerInsertBenchmark {
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({"random", "time-ordered"})
+  public String generator;
+
+  @Param({"10000000"})
+  public long preloadedRows;
+
+  private Path directory;
+  private ConfigurableApplicationContext context;
+  private CustomerBatchRepository customerBatchRepository;
+  private CustomerIdGenerator customerIdGenerator;
+  private long sequence;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("customer-insert-benchmark");
+    context = BenchmarkApplication.start(
+        "spring.datasource.url=jdbc:h2:file:" + directory.resolve("db").toAbsolutePath(),
+        "customer.phone-index.preload=false");
+    customerBatchRepository = context.getBean(CustomerBatchRepository.class);
+    customerIdGenerator = "random".equals(generator)
+        ? new RandomCustomerIdGenerator()
+        : new TimeOrderedCustomerIdGenerator();
+
+    while (sequence < preloadedRows) {
+      customerBatchRepository.insertAll(nextBatch());
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    context.close();
+    FileSystemUtils.deleteRecursively(directory);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void insertBatch() {
+    customerBatchRepository.insertAll(nextBatch());
+  }
+
+  private List<Customer> nextBatch() {
+    List<Customer> customers = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      sequence++;
+      customers.add(new Customer(customerIdGenerator.nextId(), "Customer", String.format("+44%010d", sequence)));
+    }
+    return customers;
+  }
+}
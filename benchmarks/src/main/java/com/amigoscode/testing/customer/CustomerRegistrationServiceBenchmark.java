@@ -0,0 +1,96 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.BenchmarkApplication;
+import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.validation.Validation;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerRegistrationServiceBenchmark {
+  private static final String EXISTING_PHONE_NUMBER = "+447000000000";
+
+  // h2 registers through the single MERGE, h2-select-then-save through the phone lookup followed by a save
+  @Param({"stub", "h2", "h2-select-then-save"})
+  public String backend;
+
+  private final AtomicLong sequence = new AtomicLong();
+  private ConfigurableApplicationContext context;
+  private CustomerRegistrationService customerRegistrationService;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    if ("h2".equals(backend)) {
+      context = BenchmarkApplication.start();
+      customerRegistrationService = context.getBean(CustomerRegistrationService.class);
+    } else if ("h2-select-then-save".equals(backend)) {
+      context = BenchmarkApplication.start("customer.registration.upsert.enabled=false");
+      customerRegistrationService = context.getBean(CustomerRegistrationService.class);
+    } else {
+      customerRegistrationService = stubService();
+    }
+
+    customerRegistrationService.registerNewCustomer(
+        new CustomerRegistrationRequest(new Customer(null, "Existing", EXISTING_PHONE_NUMBER)));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (context != null) {
+      context.close();
+    }
+  }
+
+  @Benchmark
+  public void registerNewCustomer() {
+    String phoneNumber = String.format("+447%09d", sequence.incrementAndGet());
+    customerRegistrationService.registerNewCustomer(
+        new CustomerRegistrationRequest(new Customer(null, "Customer", phoneNumber)));
+  }
+
+  @Benchmark
+  public void registerExistingCustomer() {
+    customerRegistrationService.registerNewCustomer(
+        new CustomerRegistrationRequest(new Customer(null, "Existing", EXISTING_PHONE_NUMBER)));
+  }
+
+  private static CustomerRegistrationService stubService() {
+    InMemoryCustomerRepository customerRepository = new InMemoryCustomerRepository();
+    // nothing to preload, so the JDBC batch repository is never needed
+    CustomerPhoneNumberIndex customerPhoneNumberIndex = new CustomerPhoneNumberIndex(
+        customerRepository, null, new SimpleMeterRegistry(), 1_000_000, 0.01, false);
+
+    return new CustomerRegistrationService(
+        customerRepository,
+        customerPhoneNumberIndex,
+        new PhoneNumberValidator(),
+        Validation.buildDefaultValidatorFactory().getValidator(),
+        event -> customerPhoneNumberIndex.onCustomerRegistered((CustomerRegisteredEvent) event),
+        new CustomerRegistrationMetrics(new SimpleMeterRegistry()),
+        new TimeOrderedCustomerIdGenerator(),
+        null,
+        false,
+        1);
+  }
+}
@@ -0,0 +1,96 @@
+package com.amigoscode.testing.customer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// database-free stand-in so benchmarks can isolate the service code from JDBC
+public class InMemoryCustomerRepository implements CustomerRepository {
+  private final Map<UUID, Customer> customersById = new ConcurrentHashMap<>();
+  private final Map<String, Customer> customersByPhoneNumber = new ConcurrentHashMap<>();
+
+  @Override
+  public Optional<Customer> selectCustomerByPhoneNumber(String phoneNumber) {
+    return Optional.ofNullable(customersByPhoneNumber.get(phoneNumber));
+  }
+
+  @Override
+  public List<Customer> selectCustomersByPhoneNumbers(Collection<String> phoneNumbers) {
+    List<Customer> customers = new ArrayList<>();
+    for (String phoneNumber : phoneNumbers) {
+      Customer customer = customersByPhoneNumber.get(phoneNumber);
+      if (customer != null) {
+        customers.add(customer);
+      }
+    }
+    return customers;
+  }
+
+  @Override
+  public <S extends Customer> S save(S customer) {
+    customersById.put(customer.getId(), customer);
+    customersByPhoneNumber.put(customer.getPhoneNumber(), customer);
+    return customer;
+  }
+
+  @Override
+  public <S extends Customer> Iterable<S> saveAll(Iterable<S> customers) {
+    customers.forEach(this::save);
+    return customers;
+  }
+
+  @Override
+  public Optional<Customer> findById(UUID id) {
+    return Optional.ofNullable(customersById.get(id));
+  }
+
+  @Override
+  public boolean existsById(UUID id) {
+    return customersById.containsKey(id);
+  }
+
+  @Override
+  public Iterable<Customer> findAll() {
+    return new ArrayList<>(customersById.values());
+  }
+
+  @Override
+  public Iterable<Customer> findAllById(Iterable<UUID> ids) {
+    List<Customer> customers = new ArrayList<>();
+    for (UUID id : ids) {
+      findById(id).ifPresent(customers::add);
+    }
+    return customers;
+  }
+
+  @Override
+  public long count() {
+    return customersById.size();
+  }
+
+  @Override
+  public void deleteById(UUID id) {
+    findById(id).ifPresent(this::delete);
+  }
+
+  @Override
+  public void delete(Customer customer) {
+    customersById.remove(customer.getId());
+    customersByPhoneNumber.remove(customer.getPhoneNumber());
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends Customer> customers) {
+    customers.forEach(this::delete);
+  }
+
+  @Override
+  public void deleteAll() {
+    customersById.clear();
+    customersByPhoneNumber.clear();
+  }
+}
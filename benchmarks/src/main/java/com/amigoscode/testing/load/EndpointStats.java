@@ -0,0 +1,91 @@
+package com.amigoscode.testing.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// latency histogram and outcome counts for one endpoint during one step
+public class EndpointStats {
+  private final Recorder latencies = new Recorder(3);
+  private final LongAdder succeeded = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  // open loop passes the latency from the intended send time, which is the coordinated omission correction
+  public void record(long latencyNanos, int status) {
+    latencies.recordValue(latencyNanos);
+    count(status);
+  }
+
+  // closed loop has no schedule, so HdrHistogram back-fills the requests a stall kept us from sending
+  public void record(long latencyNanos, long expectedIntervalNanos, int status) {
+    latencies.recordValueWithExpectedInterval(latencyNanos, expectedIntervalNanos);
+    count(status);
+  }
+
+  public void failed(long latencyNanos) {
+    latencies.recordValue(latencyNanos);
+    failed.increment();
+  }
+
+  public void dropped() {
+    dropped.increment();
+  }
+
+  public Summary summarise(double seconds) {
+    return new Summary(latencies.getIntervalHistogram(), seconds);
+  }
+
+  private void count(int status) {
+    if (status >= 200 && status < 300) {
+      succeeded.increment();
+    } else {
+      rejected.increment();
+    }
+  }
+
+  public class Summary {
+    private final Histogram histogram;
+    private final double seconds;
+
+    Summary(Histogram histogram, double seconds) {
+      this.histogram = histogram;
+      this.seconds = seconds;
+    }
+
+    public double throughput() {
+      return (succeeded.sum() + rejected.sum()) / seconds;
+    }
+
+    public long succeeded() {
+      return succeeded.sum();
+    }
+
+    public long rejected() {
+      return rejected.sum();
+    }
+
+    public long failed() {
+      return failed.sum();
+    }
+
+    public long dropped() {
+      return dropped.sum();
+    }
+
+    public double percentileMillis(double percentile) {
+      return toMillis(histogram.getValueAtPercentile(percentile));
+    }
+
+    public double maxMillis() {
+      return toMillis(histogram.getMaxValue());
+    }
+
+    private double toMillis(long nanos) {
+      return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+  }
+}
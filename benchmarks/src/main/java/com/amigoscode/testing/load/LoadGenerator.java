@@ -0,0 +1,257 @@
+package com.amigoscode.testing.load;
+
+import com.amigoscode.testing.BenchmarkApplication;
+import com.amigoscode.testing.load.Workload.Call;
+import com.amigoscode.testing.load.Workload.Endpoint;
+import com.amigoscode.testing.load.Workload.SeededCustomer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// drives the REST API at a fixed arrival rate (open loop) or a fixed concurrency (closed loop) and prints latency per step
+public class LoadGenerator {
+  private static final String ROW_FORMAT = "%-6s %8s %-12s %10s %9s %9s %9s %9s %9s %9s %9s %9s%n";
+
+  private final LoadOptions options;
+  private final HttpClient httpClient;
+  private final ExecutorService responseExecutor;
+  private final Workload workload;
+
+  LoadGenerator(LoadOptions options, URI baseUri) throws IOException, InterruptedException {
+    this.options = options;
+    this.responseExecutor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), runnable -> {
+          Thread thread = new Thread(runnable, "load-client");
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .executor(responseExecutor)
+        .build();
+    this.workload = new Workload(baseUri, options, seedCustomers(baseUri));
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadOptions options = new LoadOptions(args);
+    ConfigurableApplicationContext context = null;
+    URI baseUri;
+
+    if (options.getUrl().isEmpty()) {
+      context = BenchmarkApplication.startServer();
+      baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/");
+    } else {
+      baseUri = URI.create(options.getUrl().endsWith("/") ? options.getUrl() : options.getUrl() + "/");
+    }
+
+    try {
+      new LoadGenerator(options, baseUri).run();
+    } finally {
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  void run() throws InterruptedException {
+    boolean open = options.getMode() == LoadOptions.Mode.OPEN;
+    long[] steps = open ? options.getRates() : options.getConcurrency();
+
+    System.out.printf(ROW_FORMAT, "mode", open ? "rate" : "threads", "endpoint", "ops/s",
+        "ok", "rejected", "failed", "dropped", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+    try {
+      for (long step : steps) {
+        Map<Endpoint, EndpointStats.Summary> summaries;
+        if (open) {
+          runOpenLoop(step, options.getWarmupSeconds(), newStats());
+          summaries = runOpenLoop(step, options.getDurationSeconds(), newStats());
+        } else {
+          Map<Endpoint, EndpointStats.Summary> warmup = runClosedLoop((int) step, options.getWarmupSeconds(), null);
+          summaries = runClosedLoop((int) step, options.getDurationSeconds(), expectedIntervals(warmup));
+        }
+        print(open ? "open" : "closed", step, summaries);
+      }
+    } finally {
+      responseExecutor.shutdownNow();
+    }
+  }
+
+  // every request has an intended send time on a fixed schedule and its latency is measured from that time,
+  // so a stalled server is charged for the requests that queued behind the stall
+  private Map<Endpoint, EndpointStats.Summary> runOpenLoop(long rate, int seconds, Map<Endpoint, EndpointStats> stats)
+      throws InterruptedException {
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    Semaphore inFlight = new Semaphore(options.getMaxInFlight());
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+    for (long i = 0; ; i++) {
+      long intended = start + i * intervalNanos;
+      if (intended >= end) {
+        break;
+      }
+      parkUntil(intended);
+
+      Call call = workload.next();
+      EndpointStats endpointStats = stats.get(call.getEndpoint());
+      if (!inFlight.tryAcquire()) {
+        endpointStats.dropped();
+        continue;
+      }
+
+      httpClient.sendAsync(call.getRequest(), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, error) -> {
+            long latency = System.nanoTime() - intended;
+            if (error != null) {
+              endpointStats.failed(latency);
+            } else {
+              endpointStats.record(latency, response.statusCode());
+            }
+            inFlight.release();
+          });
+    }
+
+    // a step whose requests are still outstanding would be summarised without its slowest samples
+    if (!inFlight.tryAcquire(options.getMaxInFlight(), 60, TimeUnit.SECONDS)) {
+      throw new IllegalStateException(String.format(
+          "%d requests at %d/s were still in flight 60s after the step ended",
+          options.getMaxInFlight() - inFlight.availablePermits(), rate));
+    }
+    return summarise(stats, System.nanoTime() - start);
+  }
+
+  // each worker sends its next request as soon as the previous one returns; with expected intervals
+  // from the warmup, HdrHistogram adds the samples a slow response kept the worker from sending
+  private Map<Endpoint, EndpointStats.Summary> runClosedLoop(
+      int concurrency,
+      int seconds,
+      Map<Endpoint, Long> expectedIntervals) throws InterruptedException {
+    Map<Endpoint, EndpointStats> stats = newStats();
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+    List<Thread> workers = new ArrayList<>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      Thread worker = new Thread(() -> {
+        while (System.nanoTime() < end) {
+          Call call = workload.next();
+          EndpointStats endpointStats = stats.get(call.getEndpoint());
+          long sent = System.nanoTime();
+          try {
+            int status = httpClient.send(call.getRequest(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            long latency = System.nanoTime() - sent;
+            if (expectedIntervals == null) {
+              endpointStats.record(latency, status);
+            } else {
+              endpointStats.record(latency, expectedIntervals.get(call.getEndpoint()), status);
+            }
+          } catch (IOException e) {
+            endpointStats.failed(System.nanoTime() - sent);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }, "load-worker-" + i);
+      worker.start();
+      workers.add(worker);
+    }
+
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return summarise(stats, System.nanoTime() - start);
+  }
+
+  private List<SeededCustomer> seedCustomers(URI baseUri) throws IOException, InterruptedException {
+    URI registrationUri = baseUri.resolve("api/v1/customer-registration");
+    // seeded numbers live under +4470, new ones under +4471, so the two never collide
+    long offset = ThreadLocalRandom.current().nextLong(50_000_000);
+    List<SeededCustomer> customers = new ArrayList<>(options.getCustomers());
+
+    for (int i = 0; i < options.getCustomers(); i++) {
+      SeededCustomer customer = new SeededCustomer(
+          UUID.randomUUID(), "Customer " + i, String.format("+4470%08d", offset + i));
+      int status = httpClient.send(
+          Workload.registrationRequest(registrationUri, customer.getId(), customer.getName(), customer.getPhoneNumber()),
+          HttpResponse.BodyHandlers.discarding()).statusCode();
+      if (status != 200) {
+        throw new IllegalStateException(String.format("Seeding customer %d failed with status %d", i, status));
+      }
+      customers.add(customer);
+    }
+    return customers;
+  }
+
+  private static Map<Endpoint, EndpointStats> newStats() {
+    Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    for (Endpoint endpoint : Endpoint.values()) {
+      stats.put(endpoint, new EndpointStats());
+    }
+    return stats;
+  }
+
+  private static Map<Endpoint, EndpointStats.Summary> summarise(Map<Endpoint, EndpointStats> stats, long elapsedNanos) {
+    double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    Map<Endpoint, EndpointStats.Summary> summaries = new EnumMap<>(Endpoint.class);
+    stats.forEach((endpoint, endpointStats) -> summaries.put(endpoint, endpointStats.summarise(seconds)));
+    return summaries;
+  }
+
+  // the warmup median per endpoint stands in for the interval a healthy server would have sustained
+  private static Map<Endpoint, Long> expectedIntervals(Map<Endpoint, EndpointStats.Summary> warmup) {
+    Map<Endpoint, Long> intervals = new EnumMap<>(Endpoint.class);
+    // zero turns the correction off for an endpoint the warmup never hit
+    warmup.forEach((endpoint, summary) -> intervals.put(
+        endpoint, summary.succeeded() + summary.rejected() == 0
+            ? 0L
+            : (long) (summary.percentileMillis(50) * TimeUnit.MILLISECONDS.toNanos(1))));
+    return intervals;
+  }
+
+  // a dropped request is one the server was too far behind to take, so its latency is unknown and the histogram
+  // holds only the requests that got through; such a step is marked saturated instead of showing percentiles
+  private static void print(String mode, long step, Map<Endpoint, EndpointStats.Summary> summaries) {
+    summaries.forEach((endpoint, summary) -> System.out.printf(ROW_FORMAT,
+        mode,
+        step,
+        endpoint.name().toLowerCase(),
+        String.format("%.1f", summary.throughput()),
+        summary.succeeded(),
+        summary.rejected(),
+        summary.failed(),
+        summary.dropped(),
+        latency(summary, summary.percentileMillis(50)),
+        latency(summary, summary.percentileMillis(99)),
+        latency(summary, summary.percentileMillis(99.9)),
+        latency(summary, summary.maxMillis())));
+  }
+
+  private static String latency(EndpointStats.Summary summary, double millis) {
+    return summary.dropped() > 0 ? "saturated" : String.format("%.2f", millis);
+  }
+
+  private static void parkUntil(long deadlineNanos) {
+    long remaining;
+    while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.amigoscode.testing.load;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// --key=value arguments, every option has a default so a bare run is a short open loop sweep
+public class LoadOptions {
+  public enum Mode {
+    OPEN,
+    CLOSED
+  }
+
+  private final Map<String, String> values = new HashMap<>();
+
+  public LoadOptions(String... args) {
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalStateException("Expected --key=value but got " + arg);
+      }
+      int separator = arg.indexOf('=');
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+  }
+
+  public Mode getMode() {
+    return Mode.valueOf(get("mode", "open").toUpperCase());
+  }
+
+  // open loop: requests per second per step
+  public long[] getRates() {
+    return longs(get("rates", "100,200,400,800"));
+  }
+
+  // closed loop: in-flight requests per step
+  public long[] getConcurrency() {
+    return longs(get("concurrency", "1,4,16,64"));
+  }
+
+  public int getDurationSeconds() {
+    return Integer.parseInt(get("duration", "20"));
+  }
+
+  public int getWarmupSeconds() {
+    return Integer.parseInt(get("warmup", "5"));
+  }
+
+  // open loop only: beyond this many outstanding requests new ones are dropped and reported
+  public int getMaxInFlight() {
+    return Integer.parseInt(get("max-in-flight", "10000"));
+  }
+
+  public double getPaymentShare() {
+    return share("payment-share", "0.5");
+  }
+
+  public double getDuplicatePhoneShare() {
+    return share("duplicate-phone-share", "0.2");
+  }
+
+  public double getInvalidPhoneShare() {
+    return share("invalid-phone-share", "0.05");
+  }
+
+  public double getInvalidCurrencyShare() {
+    return share("invalid-currency-share", "0.1");
+  }
+
+  public int getCustomers() {
+    return Integer.parseInt(get("customers", "1000"));
+  }
+
+  // empty starts the application in process against H2 and MockStripeService
+  public String getUrl() {
+    return get("url", "");
+  }
+
+  private String get(String key, String defaultValue) {
+    return values.getOrDefault(key, defaultValue);
+  }
+
+  private double share(String key, String defaultValue) {
+    double share = Double.parseDouble(get(key, defaultValue));
+    if (share < 0 || share > 1) {
+      throw new IllegalStateException(String.format("--%s must be between 0 and 1", key));
+    }
+    return share;
+  }
+
+  private static long[] longs(String csv) {
+    return Arrays.stream(csv.split(",")).mapToLong(value -> Long.parseLong(value.trim())).toArray();
+  }
+}
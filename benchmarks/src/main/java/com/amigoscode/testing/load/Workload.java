@@ -0,0 +1,140 @@
+package com.amigoscode.testing.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// request mix: new, duplicate and invalid phone numbers for registration, valid and unsupported currencies for payment
+public class Workload {
+  public enum Endpoint {
+    REGISTRATION,
+    PAYMENT
+  }
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+  private static final String[] ACCEPTED_CURRENCIES = {"GBP", "USD"};
+
+  private final URI registrationUri;
+  private final URI paymentUri;
+  private final double paymentShare;
+  private final double invalidPhoneShare;
+  private final double duplicatePhoneShare;
+  private final double invalidCurrencyShare;
+  private final List<SeededCustomer> customers;
+
+  // new numbers start at a random offset so reruns against the same --url do not collide
+  private final AtomicLong nextPhoneNumber = new AtomicLong(ThreadLocalRandom.current().nextLong(50_000_000));
+
+  public Workload(URI baseUri, LoadOptions options, List<SeededCustomer> customers) {
+    if (options.getInvalidPhoneShare() + options.getDuplicatePhoneShare() > 1) {
+      throw new IllegalStateException("Invalid and duplicate phone shares add up to more than 1");
+    }
+    this.registrationUri = baseUri.resolve("api/v1/customer-registration");
+    this.paymentUri = baseUri.resolve("api/v1/payment");
+    this.paymentShare = options.getPaymentShare();
+    this.invalidPhoneShare = options.getInvalidPhoneShare();
+    this.duplicatePhoneShare = options.getDuplicatePhoneShare();
+    this.invalidCurrencyShare = options.getInvalidCurrencyShare();
+    this.customers = customers;
+  }
+
+  public Call next() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return random.nextDouble() < paymentShare ? payment(random) : registration(random);
+  }
+
+  public static HttpRequest registrationRequest(URI registrationUri, UUID id, String name, String phoneNumber) {
+    String body = String.format(
+        "{\"customer\":{\"id\":\"%s\",\"name\":\"%s\",\"phoneNumber\":\"%s\"}}", id, name, phoneNumber);
+    return HttpRequest.newBuilder(registrationUri)
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/json")
+        .PUT(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private Call registration(ThreadLocalRandom random) {
+    double roll = random.nextDouble();
+    UUID id = UUID.randomUUID();
+
+    if (roll < invalidPhoneShare) {
+      return new Call(Endpoint.REGISTRATION, registrationRequest(registrationUri, id, "Invalid", "07000"));
+    }
+
+    if (roll < invalidPhoneShare + duplicatePhoneShare) {
+      // half re-register the same customer, half try to take someone else's number
+      SeededCustomer customer = customers.get(random.nextInt(customers.size()));
+      String name = random.nextBoolean() ? customer.getName() : "Someone Else";
+      return new Call(Endpoint.REGISTRATION, registrationRequest(registrationUri, id, name, customer.getPhoneNumber()));
+    }
+
+    String phoneNumber = String.format("+4471%08d", nextPhoneNumber.incrementAndGet() % 100_000_000);
+    return new Call(Endpoint.REGISTRATION, registrationRequest(registrationUri, id, "New Customer", phoneNumber));
+  }
+
+  private Call payment(ThreadLocalRandom random) {
+    SeededCustomer customer = customers.get(random.nextInt(customers.size()));
+    String currency = random.nextDouble() < invalidCurrencyShare
+        ? "EUR"
+        : ACCEPTED_CURRENCIES[random.nextInt(ACCEPTED_CURRENCIES.length)];
+    String amount = String.format(Locale.ROOT, "%d.%02d", 1 + random.nextInt(500), random.nextInt(100));
+
+    String body = String.format(
+        "{\"payment\":{\"customerId\":\"%s\",\"amount\":%s,\"currency\":\"%s\","
+            + "\"source\":\"card_%d\",\"description\":\"load test\"}}",
+        customer.getId(), amount, currency, random.nextInt(1_000_000));
+    HttpRequest request = HttpRequest.newBuilder(paymentUri)
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+    return new Call(Endpoint.PAYMENT, request);
+  }
+
+  public static class Call {
+    private final Endpoint endpoint;
+    private final HttpRequest request;
+
+    Call(Endpoint endpoint, HttpRequest request) {
+      this.endpoint = endpoint;
+      this.request = request;
+    }
+
+    public Endpoint getEndpoint() {
+      return endpoint;
+    }
+
+    public HttpRequest getRequest() {
+      return request;
+    }
+  }
+
+  public static class SeededCustomer {
+    private final UUID id;
+    private final String name;
+    private final String phoneNumber;
+
+    public SeededCustomer(UUID id, String name, String phoneNumber) {
+      this.id = id;
+      this.name = name;
+      this.phoneNumber = phoneNumber;
+    }
+
+    public UUID getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getPhoneNumber() {
+      return phoneNumber;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.amigoscode.testing.payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// database-free stand-in so benchmarks can isolate the service code from JDBC
+public class InMemoryPaymentRepository implements PaymentRepository {
+  private final Map<Long, Payment> payments = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+
+  @Override
+  public <S extends Payment> S save(S payment) {
+    if (payment.getPaymentId() == null) {
+      payment.setPaymentId(sequence.incrementAndGet());
+    }
+    payments.put(payment.getPaymentId(), payment);
+    return payment;
+  }
+
+  @Override
+  public <S extends Payment> Iterable<S> saveAll(Iterable<S> payments) {
+    payments.forEach(this::save);
+    return payments;
+  }
+
+  @Override
+  public Optional<Payment> findById(Long id) {
+    return Optional.ofNullable(payments.get(id));
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    return payments.containsKey(id);
+  }
+
+  @Override
+  public Iterable<Payment> findAll() {
+    return new ArrayList<>(payments.values());
+  }
+
+  @Override
+  public Iterable<Payment> findAllById(Iterable<Long> ids) {
+    List<Payment> found = new ArrayList<>();
+    for (Long id : ids) {
+      findById(id).ifPresent(found::add);
+    }
+    return found;
+  }
+
+  @Override
+  public long count() {
+    return payments.size();
+  }
+
+  @Override
+  public void deleteById(Long id) {
+    payments.remove(id);
+  }
+
+  @Override
+  public void delete(Payment payment) {
+    payments.remove(payment.getPaymentId());
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends Payment> payments) {
+    payments.forEach(this::delete);
+  }
+
+  @Override
+  public void deleteAll() {
+    payments.clear();
+  }
+}
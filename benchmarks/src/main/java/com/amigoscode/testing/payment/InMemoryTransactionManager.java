@@ -0,0 +1,26 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+// transactions with nothing behind them, for the in-memory repositories
+public class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+  @Override
+  protected Object doGetTransaction() {
+    return new Object();
+  }
+
+  @Override
+  protected void doBegin(Object transaction, TransactionDefinition definition) {
+  }
+
+  @Override
+  protected void doCommit(DefaultTransactionStatus status) {
+  }
+
+  @Override
+  protected void doRollback(DefaultTransactionStatus status) {
+  }
+}
@@ -0,0 +1,96 @@
+package com.amigoscode.testing.payment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// BigDecimal against Money for the three things a payment amount goes through; run with -prof gc for bytes/op
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+  private static final int AMOUNTS = 1024;
+
+  @Param({"100.00", "123456.78"})
+  public String amountText;
+
+  private BigDecimal[] decimals;
+  private Money[] monies;
+
+  @Setup
+  public void setUp() {
+    decimals = new BigDecimal[AMOUNTS];
+    monies = new Money[AMOUNTS];
+    for (int i = 0; i < AMOUNTS; i++) {
+      long minorUnits = ThreadLocalRandom.current().nextLong(1, 1_000_000);
+      decimals[i] = BigDecimal.valueOf(minorUnits, 2);
+      monies[i] = Money.ofMinor(minorUnits, Currency.GBP);
+    }
+  }
+
+  // what the request body's amount costs on the way in: parse, then check it fits the currency
+  @Benchmark
+  public Object deserializeBigDecimal() {
+    BigDecimal amount = new BigDecimal(amountText);
+    if (amount.scale() > Currency.GBP.getFractionDigits()) {
+      throw new IllegalStateException();
+    }
+    return amount;
+  }
+
+  @Benchmark
+  public Object deserializeMoney() {
+    return Money.parse(amountText, Currency.GBP);
+  }
+
+  // the amount of a bound JSON decimal, then validated and converted to what is stored and charged
+  @Benchmark
+  public long validateBigDecimal() {
+    return decimals[ThreadLocalRandom.current().nextInt(AMOUNTS)]
+        .setScale(Currency.GBP.getFractionDigits())
+        .unscaledValue()
+        .longValueExact();
+  }
+
+  @Benchmark
+  public long validateMoney() {
+    return Money.of(decimals[ThreadLocalRandom.current().nextInt(AMOUNTS)], Currency.GBP).getMinorUnits();
+  }
+
+  // a running total as PaymentTotals keeps it
+  @Benchmark
+  @OperationsPerInvocation(AMOUNTS)
+  public BigDecimal aggregateBigDecimal() {
+    BigDecimal total = BigDecimal.ZERO;
+    for (BigDecimal decimal : decimals) {
+      total = total.add(decimal);
+    }
+    return total;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(AMOUNTS)
+  public long aggregateMoney() {
+    long total = 0;
+    for (Money money : monies) {
+      total += money.getMinorUnits();
+    }
+    return total;
+  }
+}
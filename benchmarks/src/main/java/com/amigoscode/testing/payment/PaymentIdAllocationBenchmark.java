@@ -0,0 +1,79 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.BenchmarkApplication;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// statements / payments in the aux counters is the number of round trips per inserted payment
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentIdAllocationBenchmark {
+  private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+  @Param({"1", "50"})
+  public int blockSize;
+
+  private final UUID customerId = UUID.randomUUID();
+  private ConfigurableApplicationContext context;
+  private PaymentRepository paymentRepository;
+  private Statistics statistics;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Statements {
+    public long statements;
+    public long payments;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start(
+        "spring.jpa.properties.payment.id.block-size=" + blockSize,
+        "spring.jpa.properties.hibernate.generate_statistics=true");
+    paymentRepository = context.getBean(PaymentRepository.class);
+    statistics = context.getBean(EntityManagerFactory.class)
+        .unwrap(SessionFactory.class)
+        .getStatistics();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Payment insertPayment(Statements counters) {
+    long before = statistics.getPrepareStatementCount();
+
+    Payment payment = paymentRepository.save(
+        new Payment(null, customerId, AMOUNT, Currency.GBP, "card_1Gq2rs2eZvKYlo2C", "books"));
+
+    counters.statements += statistics.getPrepareStatementCount() - before;
+    counters.payments++;
+    return payment;
+  }
+}
@@ -0,0 +1,88 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.BenchmarkApplication;
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.InMemoryCustomerRepository;
+import com.amigoscode.testing.customer.KnownCustomerIds;
+import com.amigoscode.testing.payment.stripe.MockStripeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentServiceBenchmark {
+  private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+  @Param({"stub", "h2"})
+  public String backend;
+
+  private final UUID customerId = UUID.randomUUID();
+  private ConfigurableApplicationContext context;
+  private PaymentService paymentService;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CustomerRepository customerRepository;
+
+    if ("h2".equals(backend)) {
+      context = BenchmarkApplication.start();
+      customerRepository = context.getBean(CustomerRepository.class);
+      paymentService = context.getBean(PaymentService.class);
+    } else {
+      customerRepository = new InMemoryCustomerRepository();
+      // totals and outbox disabled, so the writer never touches JDBC or a real transaction
+      InMemoryTransactionManager transactionManager = new InMemoryTransactionManager();
+      PaymentWriter paymentWriter = new PaymentWriter(
+          new InMemoryPaymentRepository(),
+          new PaymentTotals(null, transactionManager, false),
+          new PaymentOutbox(null, false),
+          transactionManager);
+      SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+      paymentService = new PaymentService(
+          new KnownCustomerIds(customerRepository, meterRegistry, 1000, 3600),
+          paymentWriter,
+          new MockStripeService(),
+          new PaymentChargeExecutor(false, 0, 0, meterRegistry),
+          // disabled, so it never flushes
+          new PaymentWriteBehindBuffer(paymentWriter, false, 1, 0, 1, meterRegistry),
+          new PaymentMetrics(meterRegistry));
+    }
+
+    customerRepository.save(new Customer(customerId, "Payer", "+447000000001"));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (context != null) {
+      context.close();
+    }
+  }
+
+  @Benchmark
+  public void chargeCard() {
+    Payment payment = new Payment(null, null, AMOUNT, Currency.GBP, "card_1Gq2rs2eZvKYlo2C", "books");
+    paymentService.chargeCard(customerId, new PaymentRequest(payment));
+  }
+}
@@ -0,0 +1,100 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.VirtualThreads;
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.InMemoryCustomerRepository;
+import com.amigoscode.testing.customer.KnownCustomerIds;
+import com.amigoscode.testing.payment.stripe.FaultInjectingCardPaymentCharger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// wall time for a burst of in-flight payments against a 200 ms charger, with each payment on a
+// request thread the way Tomcat would run it: a 200 thread platform pool (Tomcat's default) or a virtual thread each
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class VirtualThreadPaymentBenchmark {
+  private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+  private static final int TOMCAT_MAX_THREADS = 200;
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"1000", "10000"})
+  public int inFlight;
+
+  private final UUID customerId = UUID.randomUUID();
+  private PaymentService paymentService;
+  private ExecutorService requestThreads;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryCustomerRepository customerRepository = new InMemoryCustomerRepository();
+    customerRepository.save(new Customer(customerId, "Payer", "+447000000001"));
+    // totals and outbox disabled, so the writer never touches JDBC or a real transaction
+    InMemoryTransactionManager transactionManager = new InMemoryTransactionManager();
+    PaymentWriter paymentWriter = new PaymentWriter(
+        new InMemoryPaymentRepository(),
+        new PaymentTotals(null, transactionManager, false),
+        new PaymentOutbox(null, false),
+        transactionManager);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    paymentService = new PaymentService(
+        new KnownCustomerIds(customerRepository, meterRegistry, 1000, 3600),
+        paymentWriter,
+        new FaultInjectingCardPaymentCharger(200, 0, 0),
+        new PaymentChargeExecutor(false, 0, 0, meterRegistry),
+        new PaymentWriteBehindBuffer(paymentWriter, false, 1, 0, 1, meterRegistry),
+        new PaymentMetrics(meterRegistry));
+
+    requestThreads = "virtual".equals(threads)
+        ? VirtualThreads.newThreadPerTaskExecutor("request-")
+        : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    requestThreads.shutdownNow();
+  }
+
+  @Benchmark
+  public int chargeBurst() throws Exception {
+    List<Future<?>> payments = new ArrayList<>(inFlight);
+    for (int i = 0; i < inFlight; i++) {
+      payments.add(requestThreads.submit(() -> {
+        Payment payment = new Payment(null, null, AMOUNT, Currency.GBP, "card_1Gq2rs2eZvKYlo2C", "books");
+        paymentService.chargeCard(customerId, new PaymentRequest(payment));
+      }));
+    }
+
+    for (Future<?> payment : payments) {
+      payment.get();
+    }
+    return payments.size();
+  }
+}
@@ -0,0 +1,39 @@
+package com.amigoscode.testing.utils;
+
+import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneNumberValidatorBenchmark {
+  @Param({"+447123456789", "+4471234567890", "+12025550123", "+353851234567"})
+  public String phoneNumber;
+
+  private final PhoneNumberValidator validator = new PhoneNumberValidator();
+
+  @Benchmark
+  public boolean validator() {
+    return validator.test(phoneNumber);
+  }
+
+  // the original +44-only check, kept as the baseline to compare against
+  @Benchmark
+  public boolean legacyStartsWith() {
+    return phoneNumber.startsWith("+44") && phoneNumber.length() == 13;
+  }
+}
@@ -0,0 +1,23 @@
+package com.amigoscode.testing;
+
+import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import com.amigoscode.testing.customer.CustomerRegistrationRequestDeserializer;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.amigoscode.testing.payment.PaymentRequestDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// streaming deserializers for the request bodies on the hot path, picked up by the application ObjectMapper
+@Component
+@ConditionalOnProperty(
+    value = "json.fast-codecs.enabled",
+    havingValue = "true"
+)
+public class FastJsonCodecs extends SimpleModule {
+  public FastJsonCodecs() {
+    super("FastJsonCodecs");
+    addDeserializer(PaymentRequest.class, new PaymentRequestDeserializer());
+    addDeserializer(CustomerRegistrationRequest.class, new CustomerRegistrationRequestDeserializer());
+  }
+}
@@ -0,0 +1,25 @@
+package com.amigoscode.testing;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+// boot 2.2 has no r2dbc auto-configuration, so the reactive profile wires its own pooled connection factory
+@Configuration
+@Profile("reactive")
+public class ReactiveConfiguration {
+
+  @Bean
+  public ConnectionFactory connectionFactory(@Value("${reactive.r2dbc.url}") String url) {
+    return ConnectionFactories.get(url);
+  }
+
+  @Bean
+  public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+    return DatabaseClient.create(connectionFactory);
+  }
+}
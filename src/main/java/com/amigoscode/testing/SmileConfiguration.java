@@ -0,0 +1,35 @@
+package com.amigoscode.testing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// application/x-jackson-smile next to JSON for request and response bodies; the mappers come from boot's builder
+// so Smile bodies get the same modules, FastJsonCodecs included, and the same validation as JSON ones
+@Configuration
+public class SmileConfiguration {
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(smileObjectMapper(builder));
+  }
+
+  @Bean
+  public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+    ObjectMapper objectMapper = smileObjectMapper(builder);
+    return configurer -> {
+      configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(objectMapper));
+      configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(objectMapper));
+    };
+  }
+
+  private static ObjectMapper smileObjectMapper(Jackson2ObjectMapperBuilder builder) {
+    return builder.factory(new SmileFactory()).build();
+  }
+}
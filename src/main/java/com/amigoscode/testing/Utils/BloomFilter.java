@@ -0,0 +1,96 @@
+package com.amigoscode.testing.Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// lock-free bloom filter over char sequences, hashing never allocates
+public class BloomFilter {
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+  private final AtomicLong insertions = new AtomicLong();
+
+  public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+    if (expectedInsertions <= 0) {
+      throw new IllegalStateException("Expected insertions must be positive");
+    }
+    if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+      throw new IllegalStateException("False positive probability must be between 0 and 1");
+    }
+
+    long optimalBits = (long) Math.ceil(
+        -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64);
+
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+  }
+
+  public void put(CharSequence value) {
+    long h1 = hash(value);
+    long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+
+      long current = bits.get(word);
+      while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+        current = bits.get(word);
+      }
+    }
+
+    insertions.incrementAndGet();
+  }
+
+  public boolean mightContain(CharSequence value) {
+    long h1 = hash(value);
+    long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public long getBitCount() {
+    return bitCount;
+  }
+
+  public int getHashCount() {
+    return hashCount;
+  }
+
+  public long getInsertions() {
+    return insertions.get();
+  }
+
+  // (1 - e^(-kn/m))^k for the number of values put so far
+  public double expectedFalsePositiveProbability() {
+    return Math.pow(1 - Math.exp(-hashCount * (double) insertions.get() / bitCount), hashCount);
+  }
+
+  private static long hash(CharSequence value) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001B3L;
+    }
+    return mix(h);
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,33 @@
+package com.amigoscode.testing.Utils;
+
+public class CallingCodeRule {
+  private final String callingCode;
+  private final int minNationalLength;
+  private final int maxNationalLength;
+
+  public CallingCodeRule(String callingCode, int minNationalLength, int maxNationalLength) {
+    this.callingCode = callingCode;
+    this.minNationalLength = minNationalLength;
+    this.maxNationalLength = maxNationalLength;
+  }
+
+  public String getCallingCode() {
+    return callingCode;
+  }
+
+  public int getMinNationalLength() {
+    return minNationalLength;
+  }
+
+  public int getMaxNationalLength() {
+    return maxNationalLength;
+  }
+
+  @Override
+  public String toString() {
+    return "CallingCodeRule{" +
+        "callingCode='" + callingCode + '\'' +
+        ", minNationalLength=" + minNationalLength +
+        ", maxNationalLength=" + maxNationalLength + "}";
+  }
+}
@@ -0,0 +1,123 @@
+package com.amigoscode.testing.Utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// count based breaker: opens when too many of the last calls failed, then lets one probe call through
+public class CircuitBreaker {
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final double failureRateThreshold;
+  private final int minimumCalls;
+  private final long openNanos;
+  private final LongSupplier nanoClock;
+
+  private final boolean[] outcomes;
+  private int recorded;
+  private int next;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean probeInFlight;
+
+  public CircuitBreaker(double failureRateThreshold, int slidingWindowSize, int minimumCalls, long openMillis) {
+    this(failureRateThreshold, slidingWindowSize, minimumCalls, openMillis, System::nanoTime);
+  }
+
+  public CircuitBreaker(
+      double failureRateThreshold,
+      int slidingWindowSize,
+      int minimumCalls,
+      long openMillis,
+      LongSupplier nanoClock) {
+    if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+      throw new IllegalStateException("Failure rate threshold must be in (0, 1]");
+    }
+    if (slidingWindowSize <= 0 || minimumCalls <= 0 || minimumCalls > slidingWindowSize) {
+      throw new IllegalStateException("Minimum calls must be between 1 and the sliding window size");
+    }
+    this.failureRateThreshold = failureRateThreshold;
+    this.minimumCalls = minimumCalls;
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    this.nanoClock = nanoClock;
+    this.outcomes = new boolean[slidingWindowSize];
+  }
+
+  // false while open; once the open period is over a single caller is let through as the probe
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (nanoClock.getAsLong() - openedAt < openNanos) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        probeInFlight = true;
+        return true;
+      default:
+        if (probeInFlight) {
+          return false;
+        }
+        probeInFlight = true;
+        return true;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) {
+      close();
+      return;
+    }
+    record(false);
+  }
+
+  public synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+      return;
+    }
+    record(true);
+    if (state == State.CLOSED && recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+      open();
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  private void record(boolean failed) {
+    if (recorded == outcomes.length) {
+      if (outcomes[next]) {
+        failures--;
+      }
+    } else {
+      recorded++;
+    }
+    outcomes[next] = failed;
+    if (failed) {
+      failures++;
+    }
+    next = (next + 1) % outcomes.length;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = nanoClock.getAsLong();
+    probeInFlight = false;
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    probeInFlight = false;
+    recorded = 0;
+    next = 0;
+    failures = 0;
+  }
+}
@@ -0,0 +1,131 @@
+package com.amigoscode.testing.Utils;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+// concurrent map bounded by size (oldest entry goes first) whose entries also expire after a fixed ttl
+public class ExpiringCache<K, V> {
+  private final int maxSize;
+  private final long ttlNanos;
+  private final LongSupplier nanoClock;
+
+  private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+  private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+  // ConcurrentLinkedQueue.size() walks the queue
+  private final AtomicInteger queued = new AtomicInteger();
+
+  public ExpiringCache(int maxSize, long ttl, TimeUnit unit) {
+    this(maxSize, ttl, unit, System::nanoTime);
+  }
+
+  public ExpiringCache(int maxSize, long ttl, TimeUnit unit, LongSupplier nanoClock) {
+    if (maxSize <= 0) {
+      throw new IllegalStateException("Cache size must be positive");
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.nanoClock = nanoClock;
+  }
+
+  public V get(K key) {
+    Entry<K, V> entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (isExpired(entry)) {
+      entries.remove(key, entry);
+      return null;
+    }
+    return entry.value;
+  }
+
+  public void put(K key, V value) {
+    Entry<K, V> entry = new Entry<>(key, value, nanoClock.getAsLong() + ttlNanos);
+    entries.put(key, entry);
+    enqueue(entry);
+    evict();
+  }
+
+  // returns the live value already cached for the key, or null if this value was added
+  public V putIfAbsent(K key, V value) {
+    Entry<K, V> entry = new Entry<>(key, value, nanoClock.getAsLong() + ttlNanos);
+
+    while (true) {
+      Entry<K, V> existing = entries.putIfAbsent(key, entry);
+      if (existing == null) {
+        enqueue(entry);
+        evict();
+        return null;
+      }
+      if (!isExpired(existing)) {
+        return existing.value;
+      }
+      entries.remove(key, existing);
+    }
+  }
+
+  public boolean remove(K key, V value) {
+    Entry<K, V> entry = entries.get(key);
+    return entry != null && entry.value == value && entries.remove(key, entry);
+  }
+
+  public void remove(K key) {
+    entries.remove(key);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private void enqueue(Entry<K, V> entry) {
+    insertionOrder.add(entry);
+    queued.incrementAndGet();
+  }
+
+  private void evict() {
+    Entry<K, V> oldest;
+    while ((oldest = insertionOrder.peek()) != null) {
+      boolean stale = entries.get(oldest.key) != oldest;
+      if (!stale && !isExpired(oldest) && entries.size() <= maxSize) {
+        break;
+      }
+      if (insertionOrder.remove(oldest)) {
+        queued.decrementAndGet();
+        entries.remove(oldest.key, oldest);
+      }
+    }
+
+    // removed and replaced entries behind a live head are only dropped here, which keeps the queue
+    // within twice the size bound
+    if (queued.get() > 2 * maxSize) {
+      insertionOrder.removeIf(entry -> {
+        boolean stale = entries.get(entry.key) != entry;
+        if (stale) {
+          queued.decrementAndGet();
+        }
+        return stale;
+      });
+    }
+  }
+
+  private boolean isExpired(Entry<K, V> entry) {
+    return nanoClock.getAsLong() - entry.expiresAt >= 0;
+  }
+
+  private static class Entry<K, V> {
+    private final K key;
+    private final V value;
+    private final long expiresAt;
+
+    Entry(K key, V value, long expiresAt) {
+      this.key = key;
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package com.amigoscode.testing.Utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// append-only log of length-prefixed records in memory-mapped segment files named by their first offset.
+// offsets run on across segments without gaps; one writer, any number of readers, which get read-only
+// views of the mapped pages instead of copies
+public class MappedLog implements AutoCloseable {
+  private static final String SUFFIX = ".log";
+  private static final int HEADER_BYTES = Integer.BYTES;
+  // a record start is kept at least this often, so checking a read offset walks at most this many bytes
+  private static final int INDEX_INTERVAL_BYTES = 4096;
+
+  public interface RecordConsumer {
+    void accept(long offset, ByteBuffer record);
+  }
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+  // readers stop here; written after the record so a reader that sees it sees the record too
+  private volatile long endOffset;
+
+  public MappedLog(Path directory, int segmentBytes, int maxSegments) {
+    if (segmentBytes <= HEADER_BYTES) {
+      throw new IllegalStateException("Segment size must be larger than a record header");
+    }
+    if (maxSegments <= 0) {
+      throw new IllegalStateException("Max segments must be positive");
+    }
+
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = maxSegments;
+
+    try {
+      Files.createDirectories(directory);
+      recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // the offset the record was written at
+  public synchronized long append(ByteBuffer record) {
+    int length = record.remaining();
+    if (length == 0) {
+      throw new IllegalStateException("Log records must not be empty");
+    }
+    if (HEADER_BYTES + length > segmentBytes) {
+      throw new IllegalStateException(
+          String.format("Record of %d bytes does not fit a %d byte segment", length, segmentBytes));
+    }
+
+    Segment segment = segments.lastEntry().getValue();
+    int position = (int) (endOffset - segment.baseOffset);
+    if (position + HEADER_BYTES + length > segment.buffer.capacity()) {
+      segment = roll();
+      position = 0;
+    }
+
+    ByteBuffer target = segment.buffer.duplicate();
+    target.position(position + HEADER_BYTES);
+    target.put(record);
+    target.putInt(position, length);
+    segment.index(position);
+
+    long offset = endOffset;
+    endOffset = offset + HEADER_BYTES + length;
+    return offset;
+  }
+
+  // forces written records of the current segment to the file, earlier segments were forced when they rolled
+  public void flush() {
+    segments.lastEntry().getValue().buffer.force();
+  }
+
+  // hands up to maxRecords records from offset to the consumer and returns the offset to continue from
+  public long read(long offset, int maxRecords, RecordConsumer consumer) {
+    long end = endOffset;
+    if (offset < startOffset()) {
+      throw new IllegalStateException(
+          String.format("Offset %d was purged, the log starts at %d", offset, startOffset()));
+    }
+    if (offset > end) {
+      throw new IllegalStateException(String.format("Offset %d is past the end of the log at %d", offset, end));
+    }
+    if (offset < end) {
+      checkRecordStart(offset);
+    }
+
+    int read = 0;
+    while (read < maxRecords && offset < end) {
+      Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+      if (entry == null) {
+        throw new IllegalStateException(String.format("Offset %d was purged while it was read", offset));
+      }
+      Map.Entry<Long, Segment> next = segments.higherEntry(entry.getKey());
+      Segment segment = entry.getValue();
+      long segmentEnd = next == null ? end : next.getKey();
+
+      ByteBuffer view = segment.buffer.asReadOnlyBuffer();
+      while (read < maxRecords && offset < segmentEnd) {
+        int position = (int) (offset - segment.baseOffset);
+        int length = view.getInt(position);
+        view.limit(position + HEADER_BYTES + length).position(position + HEADER_BYTES);
+        consumer.accept(offset, view.slice());
+        view.clear();
+
+        offset += HEADER_BYTES + length;
+        read++;
+      }
+    }
+    return offset;
+  }
+
+  public long startOffset() {
+    return segments.firstKey();
+  }
+
+  // a length read from anywhere but a record start would hand out garbage, or run past the segment
+  private void checkRecordStart(long offset) {
+    Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+    if (entry == null) {
+      throw new IllegalStateException(String.format("Offset %d was purged while it was read", offset));
+    }
+    Segment segment = entry.getValue();
+    int target = (int) (offset - segment.baseOffset);
+
+    int position = segment.recordStarts.floor(target);
+    while (position < target) {
+      position += HEADER_BYTES + segment.buffer.getInt(position);
+    }
+    if (position != target) {
+      throw new IllegalStateException(String.format("Offset %d is not the start of a record", offset));
+    }
+  }
+
+  public long endOffset() {
+    return endOffset;
+  }
+
+  public int segmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public void close() {
+    flush();
+  }
+
+  private Segment roll() {
+    Segment current = segments.lastEntry().getValue();
+    current.buffer.force();
+
+    Segment segment = createSegment(endOffset);
+    segments.put(segment.baseOffset, segment);
+
+    while (segments.size() > maxSegments) {
+      purge(segments.pollFirstEntry().getValue());
+    }
+    return segment;
+  }
+
+  // readers still holding a view of a purged segment keep the mapping until it is collected
+  private void purge(Segment segment) {
+    try {
+      Files.deleteIfExists(segment.path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      stream.forEach(files::add);
+    }
+
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      long baseOffset = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+      segments.put(baseOffset, new Segment(baseOffset, file, map(file, (int) Files.size(file))));
+    }
+
+    if (segments.isEmpty()) {
+      Segment segment = createSegment(0);
+      segments.put(segment.baseOffset, segment);
+      endOffset = 0;
+      return;
+    }
+
+    // every segment is walked once to index its record starts; a full segment ends where the next begins
+    long end = 0;
+    for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+      Map.Entry<Long, Segment> next = segments.higherEntry(entry.getKey());
+      Segment segment = entry.getValue();
+      int limit = next == null ? segment.buffer.capacity() : (int) (next.getKey() - segment.baseOffset);
+      end = segment.baseOffset + scan(segment, limit);
+    }
+    endOffset = end;
+  }
+
+  // records are written before their length, so the first zero length is where the last writer stopped
+  private static int scan(Segment segment, int limit) {
+    int position = 0;
+    while (position + HEADER_BYTES <= limit) {
+      int length = segment.buffer.getInt(position);
+      if (length <= 0 || position + HEADER_BYTES + length > limit) {
+        break;
+      }
+      segment.index(position);
+      position += HEADER_BYTES + length;
+    }
+    return position;
+  }
+
+  private Segment createSegment(long baseOffset) {
+    Path path = directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+    try {
+      return new Segment(baseOffset, path, map(path, segmentBytes));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // the mapping outlives the channel, so nothing stays open per segment
+  private static MappedByteBuffer map(Path path, int size) throws IOException {
+    try (FileChannel channel = FileChannel.open(
+        path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+  }
+
+  private static class Segment {
+    private final long baseOffset;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    // sparse record start positions, always including 0
+    private final NavigableSet<Integer> recordStarts = new ConcurrentSkipListSet<>();
+
+    Segment(long baseOffset, Path path, MappedByteBuffer buffer) {
+      this.baseOffset = baseOffset;
+      this.path = path;
+      this.buffer = buffer;
+      recordStarts.add(0);
+    }
+
+    // called for every record in order, before the log end moves past it
+    void index(int position) {
+      if (position - recordStarts.last() >= INDEX_INTERVAL_BYTES) {
+        recordStarts.add(position);
+      }
+    }
+  }
+}
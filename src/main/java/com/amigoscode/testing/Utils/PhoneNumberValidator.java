@@ -2,12 +2,178 @@ package com.amigoscode.testing.Utils;
 
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.function.Predicate;
 
+// E.164 validation: calling codes are compiled into a digit trie once, test() scans the number once
 @Component
 public class PhoneNumberValidator implements Predicate<String> {
+  private static final int MAX_E164_DIGITS = 15;
+
+  // national significant number lengths per calling code
+  static final List<CallingCodeRule> DEFAULT_RULES = List.of(
+      new CallingCodeRule("1", 10, 10),     // US, CA and the rest of NANP
+      new CallingCodeRule("7", 10, 10),     // RU, KZ
+      new CallingCodeRule("20", 8, 10),     // EG
+      new CallingCodeRule("27", 9, 9),      // ZA
+      new CallingCodeRule("30", 10, 10),    // GR
+      new CallingCodeRule("31", 9, 9),      // NL
+      new CallingCodeRule("32", 8, 9),      // BE
+      new CallingCodeRule("33", 9, 9),      // FR
+      new CallingCodeRule("34", 9, 9),      // ES
+      new CallingCodeRule("36", 8, 9),      // HU
+      new CallingCodeRule("39", 6, 11),     // IT
+      new CallingCodeRule("40", 9, 9),      // RO
+      new CallingCodeRule("41", 9, 9),      // CH
+      new CallingCodeRule("43", 4, 13),     // AT
+      new CallingCodeRule("44", 10, 10),    // GB
+      new CallingCodeRule("45", 8, 8),      // DK
+      new CallingCodeRule("46", 7, 10),     // SE
+      new CallingCodeRule("47", 8, 8),      // NO
+      new CallingCodeRule("48", 9, 9),      // PL
+      new CallingCodeRule("49", 6, 13),     // DE
+      new CallingCodeRule("51", 8, 9),      // PE
+      new CallingCodeRule("52", 10, 10),    // MX
+      new CallingCodeRule("54", 10, 11),    // AR
+      new CallingCodeRule("55", 10, 11),    // BR
+      new CallingCodeRule("56", 9, 9),      // CL
+      new CallingCodeRule("57", 10, 10),    // CO
+      new CallingCodeRule("60", 9, 10),     // MY
+      new CallingCodeRule("61", 9, 9),      // AU
+      new CallingCodeRule("62", 9, 12),     // ID
+      new CallingCodeRule("63", 10, 10),    // PH
+      new CallingCodeRule("64", 8, 10),     // NZ
+      new CallingCodeRule("65", 8, 8),      // SG
+      new CallingCodeRule("66", 9, 9),      // TH
+      new CallingCodeRule("81", 9, 10),     // JP
+      new CallingCodeRule("82", 8, 10),     // KR
+      new CallingCodeRule("84", 9, 10),     // VN
+      new CallingCodeRule("86", 10, 11),    // CN
+      new CallingCodeRule("90", 10, 10),    // TR
+      new CallingCodeRule("91", 10, 10),    // IN
+      new CallingCodeRule("92", 10, 10),    // PK
+      new CallingCodeRule("234", 8, 10),    // NG
+      new CallingCodeRule("254", 9, 9),     // KE
+      new CallingCodeRule("351", 9, 9),     // PT
+      new CallingCodeRule("353", 7, 9),     // IE
+      new CallingCodeRule("358", 5, 12),    // FI
+      new CallingCodeRule("420", 9, 9),     // CZ
+      new CallingCodeRule("966", 9, 9),     // SA
+      new CallingCodeRule("971", 8, 9),     // AE
+      new CallingCodeRule("972", 8, 9)      // IL
+  );
+
+  // transitions[node * 10 + digit] is the child node, 0 means no calling code continues that way
+  private final int[] transitions;
+  // non-zero max length marks the node that ends a calling code
+  private final byte[] minNationalLengths;
+  private final byte[] maxNationalLengths;
+
+  public PhoneNumberValidator() {
+    this(DEFAULT_RULES);
+  }
+
+  public PhoneNumberValidator(List<CallingCodeRule> rules) {
+    int maxNodes = 1;
+    for (CallingCodeRule rule : rules) {
+      maxNodes += rule.getCallingCode().length();
+    }
+
+    int[] transitions = new int[maxNodes * 10];
+    byte[] minNationalLengths = new byte[maxNodes];
+    byte[] maxNationalLengths = new byte[maxNodes];
+    int nodes = 1;
+
+    for (CallingCodeRule rule : rules) {
+      String callingCode = rule.getCallingCode();
+      if (callingCode.isEmpty()
+          || rule.getMinNationalLength() < 1
+          || rule.getMinNationalLength() > rule.getMaxNationalLength()
+          || callingCode.length() + rule.getMaxNationalLength() > MAX_E164_DIGITS) {
+        throw new IllegalStateException("Invalid calling code rule " + rule);
+      }
+
+      int node = 0;
+      for (int i = 0; i < callingCode.length(); i++) {
+        int digit = callingCode.charAt(i) - '0';
+        if (digit < 0 || digit > 9) {
+          throw new IllegalStateException("Invalid calling code rule " + rule);
+        }
+        if (maxNationalLengths[node] != 0) {
+          throw new IllegalStateException("Calling code " + callingCode + " overlaps a shorter calling code");
+        }
+        if (transitions[node * 10 + digit] == 0) {
+          transitions[node * 10 + digit] = nodes++;
+        }
+        node = transitions[node * 10 + digit];
+      }
+
+      if (maxNationalLengths[node] != 0 || hasChildren(transitions, node)) {
+        throw new IllegalStateException("Calling code " + callingCode + " overlaps another calling code");
+      }
+      minNationalLengths[node] = (byte) rule.getMinNationalLength();
+      maxNationalLengths[node] = (byte) rule.getMaxNationalLength();
+    }
+
+    this.transitions = transitions;
+    this.minNationalLengths = minNationalLengths;
+    this.maxNationalLengths = maxNationalLengths;
+  }
+
   @Override
   public boolean test(String phoneNumber) {
-    return phoneNumber.startsWith("+44") && phoneNumber.length() == 13;
+    return test((CharSequence) phoneNumber);
+  }
+
+  public boolean test(CharSequence phoneNumber) {
+    if (phoneNumber == null) {
+      return false;
+    }
+
+    int length = phoneNumber.length();
+    if (length < 2 || phoneNumber.charAt(0) != '+') {
+      return false;
+    }
+
+    // walk the calling code trie
+    int node = 0;
+    int i = 1;
+    do {
+      if (i == length) {
+        return false;
+      }
+      int digit = phoneNumber.charAt(i++) - '0';
+      if (digit < 0 || digit > 9) {
+        return false;
+      }
+      node = transitions[node * 10 + digit];
+      if (node == 0) {
+        return false;
+      }
+    } while (maxNationalLengths[node] == 0);
+
+    // then the national significant number
+    int nationalLength = length - i;
+    if (nationalLength < minNationalLengths[node] || nationalLength > maxNationalLengths[node]) {
+      return false;
+    }
+
+    for (; i < length; i++) {
+      char c = phoneNumber.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean hasChildren(int[] transitions, int node) {
+    for (int digit = 0; digit < 10; digit++) {
+      if (transitions[node * 10 + digit] != 0) {
+        return true;
+      }
+    }
+    return false;
   }
 }
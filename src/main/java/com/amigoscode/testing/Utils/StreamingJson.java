@@ -0,0 +1,158 @@
+package com.amigoscode.testing.Utils;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+
+import java.io.IOException;
+import java.util.UUID;
+
+// token-level readers for hand-written deserializers; values are decoded from the parser's own char buffer
+public final class StreamingJson {
+  private StreamingJson() {}
+
+  // the first field name of the object the parser is on, or null for an empty object
+  public static String firstFieldName(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+    if (p.isExpectedStartObjectToken()) {
+      return p.nextFieldName();
+    }
+    if (p.hasToken(JsonToken.FIELD_NAME)) {
+      return p.getCurrentName();
+    }
+    if (p.hasToken(JsonToken.END_OBJECT)) {
+      return null;
+    }
+    ctxt.handleUnexpectedToken(type, p);
+    return null;
+  }
+
+  // like databind's String: any scalar is taken as its text, an object or array is an error rather than skipped past
+  public static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+    if (p.hasToken(JsonToken.VALUE_NULL)) {
+      return null;
+    }
+    if (p.hasToken(JsonToken.VALUE_STRING) || p.currentToken().isScalarValue()) {
+      return p.getText();
+    }
+    return (String) ctxt.handleUnexpectedToken(String.class, p);
+  }
+
+  // like databind's Long: numeric text is parsed and a float is truncated only with ACCEPT_FLOAT_AS_INT
+  public static Long readLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+    if (p.hasToken(JsonToken.VALUE_NULL)) {
+      return null;
+    }
+    if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+      return p.getLongValue();
+    }
+    if (p.hasToken(JsonToken.VALUE_NUMBER_FLOAT) && ctxt.isEnabled(DeserializationFeature.ACCEPT_FLOAT_AS_INT)) {
+      return p.getValueAsLong();
+    }
+    if (p.hasToken(JsonToken.VALUE_STRING)) {
+      String text = p.getText().trim();
+      if (text.isEmpty()) {
+        return null;
+      }
+      try {
+        return Long.parseLong(text);
+      } catch (NumberFormatException e) {
+        throw ctxt.weirdStringException(text, Long.class, "not a valid Long value");
+      }
+    }
+    return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+  }
+
+  public static UUID readUuid(JsonParser p, DeserializationContext ctxt) throws IOException {
+    if (p.hasToken(JsonToken.VALUE_NULL)) {
+      return null;
+    }
+    // binary formats such as Smile carry a UUID as 16 raw bytes
+    if (p.hasToken(JsonToken.VALUE_EMBEDDED_OBJECT) && p.getEmbeddedObject() instanceof byte[]) {
+      return fromBytes(p, ctxt, (byte[]) p.getEmbeddedObject());
+    }
+    if (!p.hasToken(JsonToken.VALUE_STRING)) {
+      return (UUID) ctxt.handleUnexpectedToken(UUID.class, p);
+    }
+
+    // databind also takes the 16 bytes base64 encoded
+    if (p.getTextLength() == 24) {
+      try {
+        return fromBytes(p, ctxt, Base64Variants.getDefaultVariant().decode(p.getText()));
+      } catch (IllegalArgumentException e) {
+        throw ctxt.weirdStringException(p.getText(), UUID.class, "not a UUID");
+      }
+    }
+
+    char[] chars = p.getTextCharacters();
+    int offset = p.getTextOffset();
+    if (p.getTextLength() != 36
+        || chars[offset + 8] != '-'
+        || chars[offset + 13] != '-'
+        || chars[offset + 18] != '-'
+        || chars[offset + 23] != '-') {
+      throw ctxt.weirdStringException(p.getText(), UUID.class, "not a UUID");
+    }
+
+    long mostSignificant = hex(p, ctxt, chars, offset, 8) << 32
+        | hex(p, ctxt, chars, offset + 9, 4) << 16
+        | hex(p, ctxt, chars, offset + 14, 4);
+    long leastSignificant = hex(p, ctxt, chars, offset + 19, 4) << 48
+        | hex(p, ctxt, chars, offset + 24, 12);
+    return new UUID(mostSignificant, leastSignificant);
+  }
+
+  // matches the enum constant by name against the parser's chars, no String is built on a hit
+  public static <E extends Enum<E>> E readEnum(JsonParser p, DeserializationContext ctxt, Class<E> type, E[] values)
+      throws IOException {
+    if (p.hasToken(JsonToken.VALUE_NULL)) {
+      return null;
+    }
+    if (!p.hasToken(JsonToken.VALUE_STRING)) {
+      return type.cast(ctxt.handleUnexpectedToken(type, p));
+    }
+
+    char[] chars = p.getTextCharacters();
+    int offset = p.getTextOffset();
+    int length = p.getTextLength();
+    for (E value : values) {
+      if (matches(value.name(), chars, offset, length)) {
+        return value;
+      }
+    }
+    throw ctxt.weirdStringException(p.getText(), type, "not one of the accepted values");
+  }
+
+  private static boolean matches(String name, char[] chars, int offset, int length) {
+    if (name.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (name.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static UUID fromBytes(JsonParser p, DeserializationContext ctxt, byte[] bytes) throws IOException {
+    if (bytes.length != 16) {
+      throw ctxt.weirdStringException(p.getText(), UUID.class, "not a UUID");
+    }
+    return UuidBytes.fromBytes(bytes);
+  }
+
+  private static long hex(JsonParser p, DeserializationContext ctxt, char[] chars, int offset, int length)
+      throws IOException {
+    long value = 0;
+    for (int i = offset; i < offset + length; i++) {
+      int digit = Character.digit(chars[i], 16);
+      if (digit < 0) {
+        throw ctxt.weirdStringException(p.getText(), UUID.class, "not a UUID");
+      }
+      value = value << 4 | digit;
+    }
+    return value;
+  }
+}
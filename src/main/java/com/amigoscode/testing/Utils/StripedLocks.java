@@ -0,0 +1,33 @@
+package com.amigoscode.testing.Utils;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// a fixed set of locks shared by hash, so equal keys always serialise without a lock per key
+public class StripedLocks {
+  private final Lock[] locks;
+  private final int mask;
+
+  public StripedLocks(int stripes) {
+    if (stripes <= 0) {
+      throw new IllegalStateException("Lock stripes must be positive");
+    }
+
+    // rounded up to a power of two so a mask picks the stripe
+    int size = stripes == 1 ? 1 : Integer.highestOneBit((stripes - 1) << 1);
+    this.locks = new Lock[size];
+    for (int i = 0; i < size; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    this.mask = size - 1;
+  }
+
+  public Lock get(Object key) {
+    int h = key.hashCode();
+    return locks[(h ^ (h >>> 16)) & mask];
+  }
+
+  public int size() {
+    return locks.length;
+  }
+}
@@ -0,0 +1,23 @@
+package com.amigoscode.testing.Utils;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+// the 16 byte big-endian layout of the binary columns hibernate maps UUID ids to, for repositories that
+// read and write those columns without hibernate
+public final class UuidBytes {
+  private UuidBytes() {
+  }
+
+  public static byte[] toBytes(UUID id) {
+    return ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+  }
+
+  public static UUID fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+}
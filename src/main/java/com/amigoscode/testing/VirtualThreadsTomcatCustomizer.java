@@ -0,0 +1,37 @@
+package com.amigoscode.testing;
+
+import com.amigoscode.testing.Utils.VirtualThreads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+// replaces Tomcat's platform thread pool with a virtual thread per request
+@Component
+@ConditionalOnProperty(
+    value = "execution.virtual-threads.enabled",
+    havingValue = "true"
+)
+public class VirtualThreadsTomcatCustomizer implements WebServerFactoryCustomizer<TomcatServletWebServerFactory> {
+  private ExecutorService executor;
+
+  @Override
+  public synchronized void customize(TomcatServletWebServerFactory factory) {
+    if (executor == null) {
+      executor = VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+    }
+    ExecutorService requestExecutor = executor;
+    factory.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(requestExecutor));
+  }
+
+  // Tomcat only stops executors it created itself
+  @PreDestroy
+  synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+}
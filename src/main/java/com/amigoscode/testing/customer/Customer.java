@@ -1,5 +1,11 @@
 package com.amigoscode.testing.customer;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
@@ -7,6 +13,10 @@ import javax.validation.constraints.NotBlank;
 import java.util.UUID;
 
 @Entity
+// written once, read on every payment and re-registration; regions are sized in ehcache.xml
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CustomerCacheMetrics.ENTITY_REGION)
+@NaturalIdCache(region = CustomerCacheMetrics.NATURAL_ID_REGION)
 public class Customer {
   @Id
   private UUID id;
@@ -16,6 +26,7 @@ public class Customer {
   private String name;
 
   @NotBlank
+  @NaturalId(mutable = true)
   @Column(nullable = false, unique = true)
   private String phoneNumber;
 
@@ -0,0 +1,55 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.amigoscode.testing.Utils.UuidBytes.fromBytes;
+import static com.amigoscode.testing.Utils.UuidBytes.toBytes;
+
+@Repository
+public class CustomerBatchRepository {
+  private static final String INSERT_CUSTOMER = "INSERT INTO customer (id, name, phone_number) VALUES (?, ?, ?)";
+  private static final String SELECT_CUSTOMERS = "SELECT id, name, phone_number FROM customer";
+  private static final int FETCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public CustomerBatchRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // one JDBC batch and one commit for the whole list
+  @Transactional
+  public void insertAll(List<Customer> customers) {
+    if (customers.isEmpty()) {
+      return;
+    }
+
+    jdbcTemplate.batchUpdate(INSERT_CUSTOMER, customers, customers.size(), (ps, customer) -> {
+      ps.setBytes(1, toBytes(customer.getId()));
+      ps.setString(2, customer.getName());
+      ps.setString(3, customer.getPhoneNumber());
+    });
+  }
+
+  // streams every row through the action without materialising the table
+  public void forEachCustomer(Consumer<Customer> action) {
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMERS);
+          statement.setFetchSize(FETCH_SIZE);
+          return statement;
+        },
+        (RowCallbackHandler) rs -> action.accept(
+            new Customer(fromBytes(rs.getBytes(1)), rs.getString(2), rs.getString(3)))
+    );
+  }
+}
@@ -0,0 +1,159 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import com.amigoscode.testing.customer.CustomerRegistrationResult.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Service
+public class CustomerBulkRegistrationService {
+  private final CustomerPhoneNumberIndex customerPhoneNumberIndex;
+  private final CustomerBatchRepository customerBatchRepository;
+  private final PhoneNumberValidator phoneNumberValidator;
+  private final Validator validator;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CustomerIdGenerator customerIdGenerator;
+  private final int batchSize;
+
+  @Autowired
+  public CustomerBulkRegistrationService(
+      CustomerPhoneNumberIndex customerPhoneNumberIndex,
+      CustomerBatchRepository customerBatchRepository,
+      PhoneNumberValidator phoneNumberValidator,
+      Validator validator,
+      ApplicationEventPublisher eventPublisher,
+      CustomerIdGenerator customerIdGenerator,
+      @Value("${customer.registration.bulk.batch-size:500}") int batchSize) {
+    this.customerPhoneNumberIndex = customerPhoneNumberIndex;
+    this.customerBatchRepository = customerBatchRepository;
+    this.phoneNumberValidator = phoneNumberValidator;
+    this.validator = validator;
+    this.eventPublisher = eventPublisher;
+    this.customerIdGenerator = customerIdGenerator;
+    this.batchSize = batchSize;
+  }
+
+  public void registerNewCustomers(
+      Iterator<CustomerRegistrationRequest> requests,
+      Consumer<CustomerRegistrationResult> results) {
+    List<CustomerRegistrationRequest> batch = new ArrayList<>(batchSize);
+    long firstRow = 1;
+
+    while (requests.hasNext()) {
+      batch.add(requests.next());
+
+      if (batch.size() == batchSize) {
+        registerBatch(batch, firstRow, results);
+        firstRow += batch.size();
+        batch.clear();
+      }
+    }
+
+    if (!batch.isEmpty()) {
+      registerBatch(batch, firstRow, results);
+    }
+  }
+
+  private void registerBatch(
+      List<CustomerRegistrationRequest> batch,
+      long firstRow,
+      Consumer<CustomerRegistrationResult> results) {
+    // at most one collision query for the valid phone numbers the index cannot rule out
+    Status[] invalid = new Status[batch.size()];
+    List<String> phoneNumbers = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      invalid[i] = checkValid(batch.get(i).getCustomer());
+      if (invalid[i] == null) {
+        phoneNumbers.add(batch.get(i).getCustomer().getPhoneNumber());
+      }
+    }
+
+    Map<String, Customer> customersByPhoneNumber = new HashMap<>(
+        customerPhoneNumberIndex.selectCustomersByPhoneNumbers(phoneNumbers));
+
+    CustomerRegistrationResult[] batchResults = new CustomerRegistrationResult[batch.size()];
+    List<Customer> newCustomers = new ArrayList<>();
+    List<Integer> newCustomerIndexes = new ArrayList<>();
+
+    for (int i = 0; i < batch.size(); i++) {
+      Customer customer = batch.get(i).getCustomer();
+      long row = firstRow + i;
+
+      if (invalid[i] != null) {
+        batchResults[i] = new CustomerRegistrationResult(row, invalid[i], null);
+        continue;
+      }
+
+      // also catches the same phone number appearing twice in one batch
+      Customer existingCustomer = customersByPhoneNumber.get(customer.getPhoneNumber());
+      if (existingCustomer != null) {
+        batchResults[i] = existingCustomer.getName().equals(customer.getName())
+            ? new CustomerRegistrationResult(row, Status.ALREADY_REGISTERED, existingCustomer.getId())
+            : new CustomerRegistrationResult(row, Status.PHONE_NUMBER_TAKEN, null);
+        continue;
+      }
+
+      if (customer.getId() == null) {
+        customer.setId(customerIdGenerator.nextId());
+      }
+
+      customersByPhoneNumber.put(customer.getPhoneNumber(), customer);
+      newCustomers.add(customer);
+      newCustomerIndexes.add(i);
+      batchResults[i] = new CustomerRegistrationResult(row, Status.REGISTERED, customer.getId());
+    }
+
+    try {
+      customerBatchRepository.insertAll(newCustomers);
+      newCustomers.forEach(this::publishRegistered);
+    } catch (DataIntegrityViolationException e) {
+      // a concurrent registration, possibly through another instance, won the race for some row;
+      // retry one by one to find it and read the winner back to tell a repeat from a clash. A row whose
+      // phone number is still free broke some other constraint and fails the whole request
+      for (int j = 0; j < newCustomers.size(); j++) {
+        int i = newCustomerIndexes.get(j);
+        Customer customer = newCustomers.get(j);
+        try {
+          customerBatchRepository.insertAll(Collections.singletonList(customer));
+          publishRegistered(customer);
+        } catch (DataIntegrityViolationException rowException) {
+          Customer existingCustomer = customerPhoneNumberIndex.reload(customer.getPhoneNumber())
+              .orElseThrow(() -> rowException);
+          batchResults[i] = existingCustomer.getName().equals(customer.getName())
+              ? new CustomerRegistrationResult(firstRow + i, Status.ALREADY_REGISTERED, existingCustomer.getId())
+              : new CustomerRegistrationResult(firstRow + i, Status.PHONE_NUMBER_TAKEN, null);
+        }
+      }
+    }
+
+    for (CustomerRegistrationResult result : batchResults) {
+      results.accept(result);
+    }
+  }
+
+  private void publishRegistered(Customer customer) {
+    eventPublisher.publishEvent(new CustomerRegisteredEvent(customer));
+  }
+
+  // the batch insert is plain JDBC, so the entity constraints hibernate would check on save are checked here
+  private Status checkValid(Customer customer) {
+    if (customer == null
+        || customer.getPhoneNumber() == null
+        || !phoneNumberValidator.test(customer.getPhoneNumber())) {
+      return Status.INVALID_PHONE_NUMBER;
+    }
+    return validator.validate(customer).isEmpty() ? null : Status.INVALID_CUSTOMER;
+  }
+}
@@ -0,0 +1,42 @@
+package com.amigoscode.testing.customer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+// hit ratios of the second-level cache regions behind Customer; boot publishes the raw hibernate.* counters
+@Component
+public class CustomerCacheMetrics {
+  static final String ENTITY_REGION = "customer";
+  static final String NATURAL_ID_REGION = "customer-by-phone-number";
+
+  private final Statistics statistics;
+
+  @Autowired
+  public CustomerCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+    this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    for (String region : new String[] {ENTITY_REGION, NATURAL_ID_REGION}) {
+      Gauge.builder("customer.cache.hit.ratio", this, metrics -> metrics.hitRatio(region))
+          .tag("region", region)
+          .register(meterRegistry);
+    }
+  }
+
+  // NaN until the region has seen a lookup, or when statistics are off
+  double hitRatio(String region) {
+    CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+    if (regionStatistics == null) {
+      return Double.NaN;
+    }
+    long hits = regionStatistics.getHitCount();
+    long lookups = hits + regionStatistics.getMissCount();
+    return lookups == 0 ? Double.NaN : (double) hits / lookups;
+  }
+}
@@ -0,0 +1,58 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("api/v1/customer")
+public class CustomerController {
+  private final CustomerQueryService customerQueryService;
+
+  @Autowired
+  public CustomerController(CustomerQueryService customerQueryService) {
+    this.customerQueryService = customerQueryService;
+  }
+
+  @GetMapping("{customerId}")
+  public ResponseEntity<CustomerView> getCustomer(@PathVariable UUID customerId, WebRequest request) {
+    return respond(customerQueryService.findById(customerId), request);
+  }
+
+  // an unencoded + in a query string is decoded as a space, and no phone number starts with one
+  @GetMapping
+  public ResponseEntity<CustomerView> getCustomerByPhoneNumber(@RequestParam String phoneNumber, WebRequest request) {
+    if (phoneNumber.startsWith(" ")) {
+      phoneNumber = "+" + phoneNumber.substring(1);
+    }
+    return respond(customerQueryService.findByPhoneNumber(phoneNumber), request);
+  }
+
+  // a matching If-None-Match gets a bodiless 304, clients are asked to revalidate on every poll
+  private static ResponseEntity<CustomerView> respond(Optional<CustomerView> customer, WebRequest request) {
+    if (customer.isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    CustomerView view = customer.get();
+    if (request.checkNotModified(view.getEtag())) {
+      return null;
+    }
+
+    return ResponseEntity.ok()
+        .eTag(view.getEtag())
+        .cacheControl(CacheControl.noCache())
+        .body(view);
+  }
+}
@@ -0,0 +1,8 @@
+package com.amigoscode.testing.customer;
+
+import java.util.UUID;
+
+// ids for customers registered without one; customer.id.generator picks random or time-ordered
+public interface CustomerIdGenerator {
+  UUID nextId();
+}
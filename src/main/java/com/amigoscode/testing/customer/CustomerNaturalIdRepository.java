@@ -0,0 +1,8 @@
+package com.amigoscode.testing.customer;
+
+import java.util.Optional;
+
+// lookups by phone number, the customer's natural id, answered from the second-level cache when it can
+public interface CustomerNaturalIdRepository {
+  Optional<Customer> selectCustomerByPhoneNumber(String phoneNumber);
+}
@@ -0,0 +1,22 @@
+package com.amigoscode.testing.customer;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class CustomerNaturalIdRepositoryImpl implements CustomerNaturalIdRepository {
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  // phone number -> id from the natural id cache, then the row from the entity cache
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<Customer> selectCustomerByPhoneNumber(String phoneNumber) {
+    return entityManager.unwrap(Session.class)
+        .bySimpleNaturalId(Customer.class)
+        .loadOptional(phoneNumber);
+  }
+}
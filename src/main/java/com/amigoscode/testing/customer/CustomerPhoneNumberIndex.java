@@ -0,0 +1,155 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// phone number -> customer, with a bloom filter in front so unseen numbers never reach the database.
+// both are fed only by this instance, so a number registered through another instance since startup reads
+// as absent; writers keep the unique index as the arbiter and reload() the number when an insert loses to it
+@Component
+public class CustomerPhoneNumberIndex {
+  private final CustomerRepository customerRepository;
+  private final CustomerBatchRepository customerBatchRepository;
+  private final boolean preload;
+
+  private final BloomFilter bloomFilter;
+  private final Map<String, Customer> customersByPhoneNumber = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+  private final LongAdder databaseHits = new LongAdder();
+
+  @Autowired
+  public CustomerPhoneNumberIndex(
+      CustomerRepository customerRepository,
+      CustomerBatchRepository customerBatchRepository,
+      MeterRegistry meterRegistry,
+      @Value("${customer.phone-index.expected-insertions:1000000}") long expectedInsertions,
+      @Value("${customer.phone-index.false-positive-probability:0.01}") double falsePositiveProbability,
+      @Value("${customer.phone-index.preload:true}") boolean preload) {
+    this.customerRepository = customerRepository;
+    this.customerBatchRepository = customerBatchRepository;
+    this.preload = preload;
+    this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+
+    FunctionCounter.builder("customer.phone.index.lookups", hits, LongAdder::doubleValue)
+        .tag("result", "hit")
+        .register(meterRegistry);
+    FunctionCounter.builder("customer.phone.index.lookups", misses, LongAdder::doubleValue)
+        .tag("result", "miss")
+        .register(meterRegistry);
+    FunctionCounter.builder("customer.phone.index.lookups", falsePositives, LongAdder::doubleValue)
+        .tag("result", "false_positive")
+        .register(meterRegistry);
+    FunctionCounter.builder("customer.phone.index.lookups", databaseHits, LongAdder::doubleValue)
+        .tag("result", "database_hit")
+        .register(meterRegistry);
+    Gauge.builder("customer.phone.index.size", customersByPhoneNumber, Map::size)
+        .register(meterRegistry);
+    Gauge.builder("customer.phone.index.bloom.expected.fpp", bloomFilter, BloomFilter::expectedFalsePositiveProbability)
+        .register(meterRegistry);
+    Gauge.builder("customer.phone.index.bloom.bits", bloomFilter, BloomFilter::getBitCount)
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void load() {
+    if (preload) {
+      customerBatchRepository.forEachCustomer(this::add);
+    }
+  }
+
+  public Optional<Customer> selectCustomerByPhoneNumber(String phoneNumber) {
+    if (!bloomFilter.mightContain(phoneNumber)) {
+      misses.increment();
+      return Optional.empty();
+    }
+
+    Customer customer = customersByPhoneNumber.get(phoneNumber);
+    if (customer != null) {
+      hits.increment();
+      return Optional.of(customer);
+    }
+
+    // the filter and the map are filled together, so this is a false positive for this instance;
+    // the database may still know the number from another instance
+    Optional<Customer> customerOptional = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+    if (customerOptional.isPresent()) {
+      databaseHits.increment();
+      add(customerOptional.get());
+    } else {
+      falsePositives.increment();
+    }
+
+    return customerOptional;
+  }
+
+  // straight from the database, for a number whose insert hit the unique index
+  public Optional<Customer> reload(String phoneNumber) {
+    Optional<Customer> customerOptional = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+    if (customerOptional.isPresent()) {
+      databaseHits.increment();
+      add(customerOptional.get());
+    }
+    return customerOptional;
+  }
+
+  public Map<String, Customer> selectCustomersByPhoneNumbers(Collection<String> phoneNumbers) {
+    Map<String, Customer> customers = new HashMap<>();
+    List<String> unresolved = new ArrayList<>();
+
+    for (String phoneNumber : phoneNumbers) {
+      if (!bloomFilter.mightContain(phoneNumber)) {
+        misses.increment();
+        continue;
+      }
+
+      Customer customer = customersByPhoneNumber.get(phoneNumber);
+      if (customer != null) {
+        hits.increment();
+        customers.put(phoneNumber, customer);
+      } else {
+        unresolved.add(phoneNumber);
+      }
+    }
+
+    if (!unresolved.isEmpty()) {
+      List<Customer> found = customerRepository.selectCustomersByPhoneNumbers(unresolved);
+      for (Customer customer : found) {
+        add(customer);
+        customers.put(customer.getPhoneNumber(), customer);
+      }
+      databaseHits.add(found.size());
+      falsePositives.add(unresolved.size() - found.size());
+    }
+
+    return customers;
+  }
+
+  @EventListener
+  public void onCustomerRegistered(CustomerRegisteredEvent event) {
+    add(event.getCustomer());
+  }
+
+  private void add(Customer customer) {
+    customersByPhoneNumber.put(customer.getPhoneNumber(), customer);
+    bloomFilter.put(customer.getPhoneNumber());
+  }
+}
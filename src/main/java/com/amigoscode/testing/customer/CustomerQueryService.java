@@ -0,0 +1,87 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.ExpiringCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// customer reads served from a bounded cache of views; misses are not cached so new customers show up at once
+@Service
+public class CustomerQueryService {
+  private final CustomerRepository customerRepository;
+
+  private final ExpiringCache<UUID, CustomerView> byId;
+  private final ExpiringCache<String, CustomerView> byPhoneNumber;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder databaseLookups = new LongAdder();
+
+  @Autowired
+  public CustomerQueryService(
+      CustomerRepository customerRepository,
+      MeterRegistry meterRegistry,
+      @Value("${customer.read-cache.max-size:10000}") int maxSize,
+      @Value("${customer.read-cache.ttl-seconds:300}") long ttlSeconds) {
+    this.customerRepository = customerRepository;
+    this.byId = new ExpiringCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+    this.byPhoneNumber = new ExpiringCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+
+    FunctionCounter.builder("customer.read.cache.lookups", hits, LongAdder::doubleValue)
+        .tag("result", "hit")
+        .register(meterRegistry);
+    FunctionCounter.builder("customer.read.cache.lookups", databaseLookups, LongAdder::doubleValue)
+        .tag("result", "database")
+        .register(meterRegistry);
+    Gauge.builder("customer.read.cache.size", byId, ExpiringCache::size)
+        .register(meterRegistry);
+  }
+
+  public Optional<CustomerView> findById(UUID customerId) {
+    CustomerView cached = byId.get(customerId);
+    if (cached != null) {
+      hits.increment();
+      return Optional.of(cached);
+    }
+
+    databaseLookups.increment();
+    return customerRepository.findById(customerId).map(this::cache);
+  }
+
+  public Optional<CustomerView> findByPhoneNumber(String phoneNumber) {
+    CustomerView cached = byPhoneNumber.get(phoneNumber);
+    if (cached != null) {
+      hits.increment();
+      return Optional.of(cached);
+    }
+
+    databaseLookups.increment();
+    return customerRepository.selectCustomerByPhoneNumber(phoneNumber).map(this::cache);
+  }
+
+  @EventListener
+  public void onCustomerRegistered(CustomerRegisteredEvent event) {
+    Customer customer = event.getCustomer();
+    CustomerView previous = byId.get(customer.getId());
+    byId.remove(customer.getId());
+    byPhoneNumber.remove(customer.getPhoneNumber());
+    if (previous != null) {
+      byPhoneNumber.remove(previous.getPhoneNumber());
+    }
+  }
+
+  private CustomerView cache(Customer customer) {
+    CustomerView view = CustomerView.of(customer);
+    byId.put(view.getId(), view);
+    byPhoneNumber.put(view.getPhoneNumber(), view);
+    return view;
+  }
+}
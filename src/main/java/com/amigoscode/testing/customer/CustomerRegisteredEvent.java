@@ -0,0 +1,19 @@
+package com.amigoscode.testing.customer;
+
+public class CustomerRegisteredEvent {
+  private final Customer customer;
+
+  public CustomerRegisteredEvent(Customer customer) {
+    this.customer = customer;
+  }
+
+  public Customer getCustomer() {
+    return customer;
+  }
+
+  @Override
+  public String toString() {
+    return "CustomerRegisteredEvent{" +
+        "customerId=" + customer.getId() + "}";
+  }
+}
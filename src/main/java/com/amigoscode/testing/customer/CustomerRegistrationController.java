@@ -1,23 +1,66 @@
 package com.amigoscode.testing.customer;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/v1/customer-registration")
 public class CustomerRegistrationController {
+  private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
   private final CustomerRegistrationService customerRegistrationService;
+  private final CustomerBulkRegistrationService customerBulkRegistrationService;
+  private final ObjectMapper objectMapper;
 
   @Autowired
-  public CustomerRegistrationController(CustomerRegistrationService customerRegistrationService) {
+  public CustomerRegistrationController(
+      CustomerRegistrationService customerRegistrationService,
+      CustomerBulkRegistrationService customerBulkRegistrationService,
+      ObjectMapper objectMapper) {
     this.customerRegistrationService = customerRegistrationService;
+    this.customerBulkRegistrationService = customerBulkRegistrationService;
+    this.objectMapper = objectMapper;
   }
 
   @PutMapping
   public void registerNewCustomer(@RequestBody CustomerRegistrationRequest request) {
     customerRegistrationService.registerNewCustomer(request);
   }
+
+  // one request per line in, one result per line out, neither side held in memory
+  @PutMapping(path = "bulk", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+  public void registerNewCustomers(InputStream requestBody, HttpServletResponse response) throws IOException {
+    response.setContentType(APPLICATION_NDJSON);
+
+    try (MappingIterator<CustomerRegistrationRequest> requests = objectMapper
+            .readerFor(CustomerRegistrationRequest.class)
+            .readValues(requestBody);
+         SequenceWriter results = objectMapper
+             .writerFor(CustomerRegistrationResult.class)
+             .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+             .withRootValueSeparator("\n")
+             .writeValues(response.getOutputStream())) {
+      customerBulkRegistrationService.registerNewCustomers(requests, result -> {
+        try {
+          results.write(result);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
 }
@@ -0,0 +1,73 @@
+package com.amigoscode.testing.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// same shape as PaymentMetrics: fixed meters, nanoTime deltas, nothing allocated per registration
+@Component
+public class CustomerRegistrationMetrics {
+  private final Timer phoneValidation;
+  private final Timer phoneLookup;
+  private final Timer save;
+
+  private final Counter invalidPhone;
+  private final Counter invalidCustomer;
+  private final Counter phoneTaken;
+
+  @Autowired
+  public CustomerRegistrationMetrics(MeterRegistry meterRegistry) {
+    this.phoneValidation = stageTimer("phone_validation", meterRegistry);
+    this.phoneLookup = stageTimer("phone_lookup", meterRegistry);
+    this.save = stageTimer("save", meterRegistry);
+
+    this.invalidPhone = rejectionCounter("invalid_phone", meterRegistry);
+    this.invalidCustomer = rejectionCounter("invalid_customer", meterRegistry);
+    this.phoneTaken = rejectionCounter("phone_taken", meterRegistry);
+  }
+
+  public long start() {
+    return System.nanoTime();
+  }
+
+  public void recordPhoneValidation(long startNanos) {
+    phoneValidation.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordPhoneLookup(long startNanos) {
+    phoneLookup.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordSave(long startNanos) {
+    save.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void invalidPhone() {
+    invalidPhone.increment();
+  }
+
+  public void invalidCustomer() {
+    invalidCustomer.increment();
+  }
+
+  public void phoneTaken() {
+    phoneTaken.increment();
+  }
+
+  private static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+    return Timer.builder("customer.registration.stage")
+        .tag("stage", stage)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private static Counter rejectionCounter(String reason, MeterRegistry meterRegistry) {
+    return Counter.builder("customer.registration.rejections")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,59 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.StreamingJson;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.UUID;
+
+// streams {"customer": {"id", "name", "phoneNumber"}} straight into the entity; unknown fields are skipped
+public class CustomerRegistrationRequestDeserializer extends StdDeserializer<CustomerRegistrationRequest> {
+
+  public CustomerRegistrationRequestDeserializer() {
+    super(CustomerRegistrationRequest.class);
+  }
+
+  @Override
+  public CustomerRegistrationRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+    Customer customer = null;
+
+    for (String field = StreamingJson.firstFieldName(p, ctxt, handledType()); field != null; field = p.nextFieldName()) {
+      JsonToken token = p.nextToken();
+      if ("customer".equals(field)) {
+        customer = token == JsonToken.VALUE_NULL ? null : readCustomer(p, ctxt);
+      } else {
+        p.skipChildren();
+      }
+    }
+
+    return new CustomerRegistrationRequest(customer);
+  }
+
+  private static Customer readCustomer(JsonParser p, DeserializationContext ctxt) throws IOException {
+    UUID id = null;
+    String name = null;
+    String phoneNumber = null;
+
+    for (String field = StreamingJson.firstFieldName(p, ctxt, Customer.class); field != null; field = p.nextFieldName()) {
+      p.nextToken();
+      switch (field) {
+        case "id":
+          id = StreamingJson.readUuid(p, ctxt);
+          break;
+        case "name":
+          name = StreamingJson.readString(p, ctxt);
+          break;
+        case "phoneNumber":
+          phoneNumber = StreamingJson.readString(p, ctxt);
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+
+    return new Customer(id, name, phoneNumber);
+  }
+}
@@ -0,0 +1,43 @@
+package com.amigoscode.testing.customer;
+
+import java.util.UUID;
+
+public class CustomerRegistrationResult {
+  public enum Status {
+    REGISTERED,
+    ALREADY_REGISTERED,
+    INVALID_PHONE_NUMBER,
+    INVALID_CUSTOMER,
+    PHONE_NUMBER_TAKEN
+  }
+
+  private final long row;
+  private final Status status;
+  private final UUID customerId;
+
+  public CustomerRegistrationResult(long row, Status status, UUID customerId) {
+    this.row = row;
+    this.status = status;
+    this.customerId = customerId;
+  }
+
+  public long getRow() {
+    return row;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public UUID getCustomerId() {
+    return customerId;
+  }
+
+  @Override
+  public String toString() {
+    return "CustomerRegistrationResult{" +
+        "row=" + row +
+        ", status=" + status +
+        ", customerId=" + customerId + "}";
+  }
+}
@@ -1,45 +1,155 @@
 package com.amigoscode.testing.customer;
 
 import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import com.amigoscode.testing.Utils.StripedLocks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerRegistrationService {
   private final CustomerRepository customerRepository;
+  private final CustomerPhoneNumberIndex customerPhoneNumberIndex;
   private final PhoneNumberValidator phoneNumberValidator;
+  private final Validator validator;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CustomerRegistrationMetrics metrics;
+  private final CustomerIdGenerator customerIdGenerator;
+  private final CustomerUpsertRepository customerUpsertRepository;
+  private final boolean upsertEnabled;
+  private final StripedLocks phoneNumberLocks;
 
   @Autowired
-  public CustomerRegistrationService(CustomerRepository customerRepository, PhoneNumberValidator phoneNumberValidator) {
+  public CustomerRegistrationService(
+      CustomerRepository customerRepository,
+      CustomerPhoneNumberIndex customerPhoneNumberIndex,
+      PhoneNumberValidator phoneNumberValidator,
+      Validator validator,
+      ApplicationEventPublisher eventPublisher,
+      CustomerRegistrationMetrics metrics,
+      CustomerIdGenerator customerIdGenerator,
+      CustomerUpsertRepository customerUpsertRepository,
+      @Value("${customer.registration.upsert.enabled:true}") boolean upsertEnabled,
+      @Value("${customer.registration.upsert.lock-stripes:64}") int lockStripes) {
     this.customerRepository = customerRepository;
+    this.customerPhoneNumberIndex = customerPhoneNumberIndex;
     this.phoneNumberValidator = phoneNumberValidator;
+    this.validator = validator;
+    this.eventPublisher = eventPublisher;
+    this.metrics = metrics;
+    this.customerIdGenerator = customerIdGenerator;
+    this.customerUpsertRepository = customerUpsertRepository;
+    this.upsertEnabled = upsertEnabled;
+    this.phoneNumberLocks = new StripedLocks(lockStripes);
   }
 
   public void registerNewCustomer(CustomerRegistrationRequest request) {
     String phoneNumber = request.getCustomer().getPhoneNumber();
+    checkConstraints(request.getCustomer());
 
-    if (!phoneNumberValidator.test(phoneNumber)) {
+    long start = metrics.start();
+    boolean valid = phoneNumberValidator.test(phoneNumber);
+    metrics.recordPhoneValidation(start);
+
+    if (!valid) {
+      metrics.invalidPhone();
       throw new IllegalStateException("Phone number " + phoneNumber + " is not valid");
     }
 
-    Optional<Customer> customerOptional = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+    if (upsertEnabled) {
+      upsert(request.getCustomer());
+      return;
+    }
 
-    if (customerOptional.isPresent()) {
-      Customer customer = customerOptional.get();
-      if (customer.getName().equals(request.getCustomer().getName())) {
-        return;
-      }
+    start = metrics.start();
+    Optional<Customer> customerOptional = customerPhoneNumberIndex.selectCustomerByPhoneNumber(phoneNumber);
+    metrics.recordPhoneLookup(start);
 
-      throw new IllegalStateException(String.format("phone number %s is taken", phoneNumber));
+    if (customerOptional.isPresent()) {
+      checkSameCustomer(customerOptional.get(), request.getCustomer());
+      return;
     }
 
     if (request.getCustomer().getId() == null) {
-      request.getCustomer().setId(UUID.randomUUID());
+      request.getCustomer().setId(customerIdGenerator.nextId());
+    }
+
+    start = metrics.start();
+    try {
+      customerRepository.save(request.getCustomer());
+    } catch (DataIntegrityViolationException e) {
+      // registered through another instance since this one built its index
+      Customer existingCustomer = customerPhoneNumberIndex.reload(phoneNumber).orElseThrow(() -> e);
+      checkSameCustomer(existingCustomer, request.getCustomer());
+      return;
+    } finally {
+      metrics.recordSave(start);
+    }
+    eventPublisher.publishEvent(new CustomerRegisteredEvent(request.getCustomer()));
+  }
+
+  // the upsert writes through JDBC, so the entity constraints hibernate checked on save are checked here
+  private void checkConstraints(Customer customer) {
+    Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+    if (!violations.isEmpty()) {
+      metrics.invalidCustomer();
+      throw new IllegalStateException("Customer is not valid: " + describe(violations));
+    }
+  }
+
+  private static String describe(Set<ConstraintViolation<Customer>> violations) {
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  // a repeat registration under the same name is a no-op
+  private void checkSameCustomer(Customer existingCustomer, Customer customer) {
+    if (!existingCustomer.getName().equals(customer.getName())) {
+      metrics.phoneTaken();
+      throw new IllegalStateException(String.format("phone number %s is taken", customer.getPhoneNumber()));
+    }
+  }
+
+  // one MERGE decides new, same-name repeat or taken; duplicates racing in this instance queue on the
+  // phone number's stripe instead of both reaching the unique index
+  private void upsert(Customer customer) {
+    if (customer.getId() == null) {
+      customer.setId(customerIdGenerator.nextId());
     }
 
-    customerRepository.save(request.getCustomer());
+    CustomerRegistrationResult.Status status;
+    Lock lock = phoneNumberLocks.get(customer.getPhoneNumber());
+    long start = metrics.start();
+    lock.lock();
+    try {
+      status = customerUpsertRepository.upsert(customer);
+    } finally {
+      lock.unlock();
+      metrics.recordSave(start);
+    }
+
+    // a new customer reaches the phone number index through the event; a number already on file may have
+    // come from another instance, so the index learns it here before bulk or legacy registrations ask
+    if (status != CustomerRegistrationResult.Status.REGISTERED) {
+      customerPhoneNumberIndex.reload(customer.getPhoneNumber());
+    }
+    if (status == CustomerRegistrationResult.Status.PHONE_NUMBER_TAKEN) {
+      metrics.phoneTaken();
+      throw new IllegalStateException(String.format("phone number %s is taken", customer.getPhoneNumber()));
+    }
+    if (status == CustomerRegistrationResult.Status.REGISTERED) {
+      eventPublisher.publishEvent(new CustomerRegisteredEvent(customer));
+    }
   }
 }
@@ -4,13 +4,14 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
-public interface CustomerRepository extends CrudRepository<Customer, UUID> {
+public interface CustomerRepository extends CrudRepository<Customer, UUID>, CustomerNaturalIdRepository {
   @Query(
-      value = "SELECT id, name, phone_number FROM customer WHERE phone_number = :phone_number",
+      value = "SELECT id, name, phone_number FROM customer WHERE phone_number IN (:phone_numbers)",
       nativeQuery = true
   )
-  Optional<Customer> selectCustomerByPhoneNumber(@Param("phone_number") String phoneNumber);
+  List<Customer> selectCustomersByPhoneNumbers(@Param("phone_numbers") Collection<String> phoneNumbers);
 }
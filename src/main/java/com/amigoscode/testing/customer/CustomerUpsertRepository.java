@@ -0,0 +1,55 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.amigoscode.testing.Utils.UuidBytes.toBytes;
+
+@Repository
+public class CustomerUpsertRepository {
+  // inserts only when no row holds the phone number; the update count says which happened
+  private static final String MERGE_CUSTOMER = "MERGE INTO customer c USING DUAL ON c.phone_number = ? "
+      + "WHEN NOT MATCHED THEN INSERT (id, name, phone_number) VALUES (?, ?, ?)";
+  private static final String SELECT_NAME = "SELECT name FROM customer WHERE phone_number = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public CustomerUpsertRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // a new phone number costs the one MERGE; only a phone number already on file reads its name back
+  @Transactional
+  public CustomerRegistrationResult.Status upsert(Customer customer) {
+    int inserted;
+    try {
+      inserted = jdbcTemplate.update(
+          MERGE_CUSTOMER,
+          customer.getPhoneNumber(),
+          toBytes(customer.getId()),
+          customer.getName(),
+          customer.getPhoneNumber());
+    } catch (DuplicateKeyException e) {
+      // another instance inserted the same phone number after the MERGE looked, the unique index caught it
+      inserted = 0;
+    }
+
+    if (inserted == 1) {
+      return CustomerRegistrationResult.Status.REGISTERED;
+    }
+
+    List<String> names = jdbcTemplate.queryForList(SELECT_NAME, String.class, customer.getPhoneNumber());
+    if (names.isEmpty()) {
+      throw new IllegalStateException(String.format("Customer id %s is taken", customer.getId()));
+    }
+    return names.get(0).equals(customer.getName())
+        ? CustomerRegistrationResult.Status.ALREADY_REGISTERED
+        : CustomerRegistrationResult.Status.PHONE_NUMBER_TAKEN;
+  }
+}
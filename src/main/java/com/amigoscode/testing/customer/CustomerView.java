@@ -0,0 +1,53 @@
+package com.amigoscode.testing.customer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// read-only projection of a customer, carrying the strong etag of its content
+public class CustomerView {
+  private final UUID id;
+  private final String name;
+  private final String phoneNumber;
+  private final String etag;
+
+  public CustomerView(UUID id, String name, String phoneNumber) {
+    this.id = id;
+    this.name = name;
+    this.phoneNumber = phoneNumber;
+    this.etag = "\"" + DigestUtils.md5DigestAsHex(
+        (id + "\n" + name + "\n" + phoneNumber).getBytes(StandardCharsets.UTF_8)) + "\"";
+  }
+
+  public static CustomerView of(Customer customer) {
+    return new CustomerView(customer.getId(), customer.getName(), customer.getPhoneNumber());
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getPhoneNumber() {
+    return phoneNumber;
+  }
+
+  @JsonIgnore
+  public String getEtag() {
+    return etag;
+  }
+
+  @Override
+  public String toString() {
+    return "CustomerView{" +
+        "id=" + id +
+        ", name='" + name + '\'' +
+        ", phoneNumber='" + phoneNumber + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,106 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.ExpiringCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// ids of customers known to exist, so payments check existence without loading the customer
+@Component
+public class KnownCustomerIds {
+  private final CustomerRepository customerRepository;
+
+  private final ExpiringCache<UUID, Boolean> knownIds;
+  private final Map<UUID, CompletableFuture<Boolean>> lookupsInFlight = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder databaseLookups = new LongAdder();
+  private final LongAdder sharedLookups = new LongAdder();
+
+  @Autowired
+  public KnownCustomerIds(
+      CustomerRepository customerRepository,
+      MeterRegistry meterRegistry,
+      @Value("${customer.known-ids.max-size:1000000}") int maxSize,
+      @Value("${customer.known-ids.ttl-seconds:3600}") long ttlSeconds) {
+    this.customerRepository = customerRepository;
+    this.knownIds = new ExpiringCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+
+    FunctionCounter.builder("customer.known.ids.lookups", hits, LongAdder::doubleValue)
+        .tag("result", "hit")
+        .register(meterRegistry);
+    FunctionCounter.builder("customer.known.ids.lookups", databaseLookups, LongAdder::doubleValue)
+        .tag("result", "database")
+        .register(meterRegistry);
+    FunctionCounter.builder("customer.known.ids.lookups", sharedLookups, LongAdder::doubleValue)
+        .tag("result", "shared")
+        .register(meterRegistry);
+    Gauge.builder("customer.known.ids.size", knownIds, ExpiringCache::size)
+        .register(meterRegistry);
+  }
+
+  public boolean exists(UUID customerId) {
+    if (knownIds.get(customerId) != null) {
+      hits.increment();
+      return true;
+    }
+
+    // concurrent misses for the same id wait on the first caller's query
+    CompletableFuture<Boolean> lookup = new CompletableFuture<>();
+    CompletableFuture<Boolean> inFlight = lookupsInFlight.putIfAbsent(customerId, lookup);
+    if (inFlight != null) {
+      sharedLookups.increment();
+      return join(inFlight);
+    }
+
+    try {
+      // the previous lookup may have finished between the cache check and the claim
+      boolean exists = knownIds.get(customerId) != null || selectExists(customerId);
+      lookup.complete(exists);
+      return exists;
+    } catch (RuntimeException e) {
+      lookup.completeExceptionally(e);
+      throw e;
+    } finally {
+      lookupsInFlight.remove(customerId, lookup);
+    }
+  }
+
+  @EventListener
+  public void onCustomerRegistered(CustomerRegisteredEvent event) {
+    knownIds.put(event.getCustomer().getId(), Boolean.TRUE);
+  }
+
+  private boolean selectExists(UUID customerId) {
+    databaseLookups.increment();
+    // count projection, the customer row is never hydrated
+    boolean exists = customerRepository.existsById(customerId);
+    if (exists) {
+      knownIds.put(customerId, Boolean.TRUE);
+    }
+    return exists;
+  }
+
+  private static boolean join(CompletableFuture<Boolean> lookup) {
+    try {
+      return lookup.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
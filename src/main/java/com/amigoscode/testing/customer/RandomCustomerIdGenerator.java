@@ -0,0 +1,19 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+// version 4 ids from the shared SecureRandom, spread evenly over the whole key space
+@Service
+@ConditionalOnProperty(
+    value = "customer.id.generator",
+    havingValue = "random"
+)
+public class RandomCustomerIdGenerator implements CustomerIdGenerator {
+  @Override
+  public UUID nextId() {
+    return UUID.randomUUID();
+  }
+}
@@ -0,0 +1,26 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("api/v1/customer-registration")
+public class ReactiveCustomerRegistrationController {
+  private final ReactiveCustomerRegistrationService customerRegistrationService;
+
+  @Autowired
+  public ReactiveCustomerRegistrationController(ReactiveCustomerRegistrationService customerRegistrationService) {
+    this.customerRegistrationService = customerRegistrationService;
+  }
+
+  @PutMapping
+  public Mono<Void> registerNewCustomer(@RequestBody CustomerRegistrationRequest request) {
+    return customerRegistrationService.registerNewCustomer(request);
+  }
+}
@@ -0,0 +1,66 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+// same rules as CustomerRegistrationService, without blocking the calling thread
+@Service
+@Profile("reactive")
+public class ReactiveCustomerRegistrationService {
+  private final ReactiveCustomerRepository customerRepository;
+  private final PhoneNumberValidator phoneNumberValidator;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CustomerRegistrationMetrics metrics;
+  private final CustomerIdGenerator customerIdGenerator;
+
+  @Autowired
+  public ReactiveCustomerRegistrationService(
+      ReactiveCustomerRepository customerRepository,
+      PhoneNumberValidator phoneNumberValidator,
+      ApplicationEventPublisher eventPublisher,
+      CustomerRegistrationMetrics metrics,
+      CustomerIdGenerator customerIdGenerator) {
+    this.customerRepository = customerRepository;
+    this.phoneNumberValidator = phoneNumberValidator;
+    this.eventPublisher = eventPublisher;
+    this.metrics = metrics;
+    this.customerIdGenerator = customerIdGenerator;
+  }
+
+  public Mono<Void> registerNewCustomer(CustomerRegistrationRequest request) {
+    Customer customer = request.getCustomer();
+    String phoneNumber = customer.getPhoneNumber();
+
+    if (!phoneNumberValidator.test(phoneNumber)) {
+      metrics.invalidPhone();
+      return Mono.error(new IllegalStateException("Phone number " + phoneNumber + " is not valid"));
+    }
+
+    return customerRepository.selectCustomerByPhoneNumber(phoneNumber)
+        .map(Optional::of)
+        .defaultIfEmpty(Optional.empty())
+        .flatMap(existing -> {
+          if (existing.isPresent()) {
+            if (existing.get().getName().equals(customer.getName())) {
+              return Mono.empty();
+            }
+
+            metrics.phoneTaken();
+            return Mono.error(new IllegalStateException(String.format("phone number %s is taken", phoneNumber)));
+          }
+
+          if (customer.getId() == null) {
+            customer.setId(customerIdGenerator.nextId());
+          }
+
+          return customerRepository.insert(customer)
+              .then(Mono.fromRunnable(() -> eventPublisher.publishEvent(new CustomerRegisteredEvent(customer))));
+        });
+  }
+}
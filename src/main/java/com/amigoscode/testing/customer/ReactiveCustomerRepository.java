@@ -0,0 +1,56 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static com.amigoscode.testing.Utils.UuidBytes.fromBytes;
+import static com.amigoscode.testing.Utils.UuidBytes.toBytes;
+
+// R2DBC counterpart of the CustomerRepository queries the registration and payment paths need
+@Repository
+@Profile("reactive")
+public class ReactiveCustomerRepository {
+  private static final String SELECT_CUSTOMER_BY_PHONE_NUMBER =
+      "SELECT id, name, phone_number FROM customer WHERE phone_number = :phone_number";
+  private static final String SELECT_CUSTOMER_EXISTS = "SELECT COUNT(*) FROM customer WHERE id = :id";
+  private static final String INSERT_CUSTOMER =
+      "INSERT INTO customer (id, name, phone_number) VALUES (:id, :name, :phone_number)";
+
+  private final DatabaseClient databaseClient;
+
+  @Autowired
+  public ReactiveCustomerRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Customer> selectCustomerByPhoneNumber(String phoneNumber) {
+    return databaseClient.execute(SELECT_CUSTOMER_BY_PHONE_NUMBER)
+        .bind("phone_number", phoneNumber)
+        .map((row, metadata) -> new Customer(
+            fromBytes(row.get("id", byte[].class)),
+            row.get("name", String.class),
+            row.get("phone_number", String.class)))
+        .first();
+  }
+
+  public Mono<Boolean> existsById(UUID id) {
+    return databaseClient.execute(SELECT_CUSTOMER_EXISTS)
+        .bind("id", toBytes(id))
+        .map((row, metadata) -> row.get(0, Long.class))
+        .one()
+        .map(count -> count > 0);
+  }
+
+  public Mono<Void> insert(Customer customer) {
+    return databaseClient.execute(INSERT_CUSTOMER)
+        .bind("id", toBytes(customer.getId()))
+        .bind("name", customer.getName())
+        .bind("phone_number", customer.getPhoneNumber())
+        .then();
+  }
+}
@@ -0,0 +1,39 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+// version 7 ids: 48 bits of unix milliseconds up front, so new rows land at the right edge of the
+// primary key index, then 74 random bits from the calling thread's own generator, so no lock is shared.
+// ids only sort to the millisecond and are not secrets; they never were with random ids either
+@Service
+@ConditionalOnProperty(
+    value = "customer.id.generator",
+    havingValue = "time-ordered"
+)
+public class TimeOrderedCustomerIdGenerator implements CustomerIdGenerator {
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000000000000000L;
+
+  private final LongSupplier currentTimeMillis;
+
+  public TimeOrderedCustomerIdGenerator() {
+    this(System::currentTimeMillis);
+  }
+
+  TimeOrderedCustomerIdGenerator(LongSupplier currentTimeMillis) {
+    this.currentTimeMillis = currentTimeMillis;
+  }
+
+  @Override
+  public UUID nextId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long mostSignificant = currentTimeMillis.getAsLong() << 16 | VERSION | (random.nextInt() & 0x0fffL);
+    long leastSignificant = random.nextLong() & 0x3fffffffffffffffL | VARIANT;
+    return new UUID(mostSignificant, leastSignificant);
+  }
+}
@@ -1,19 +1,36 @@
 package com.amigoscode.testing.payment;
 
 public class CardPaymentCharge {
-  private final boolean isCardDebited;
+  public enum Outcome {
+    DEBITED,
+    NOT_DEBITED,
+    // never reached the processor
+    FAILED,
+    // the call failed or timed out after it was sent, the card may have been debited
+    UNKNOWN
+  }
+
+  private final Outcome outcome;
 
   public CardPaymentCharge(boolean isCardDebited) {
-    this.isCardDebited = isCardDebited;
+    this(isCardDebited ? Outcome.DEBITED : Outcome.NOT_DEBITED);
+  }
+
+  public CardPaymentCharge(Outcome outcome) {
+    this.outcome = outcome;
   }
 
   public boolean isCardDebited() {
-    return isCardDebited;
+    return outcome == Outcome.DEBITED;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
   }
 
   @Override
   public String toString() {
     return "CardPaymentCharge{" +
-        "isCardDebited=" + isCardDebited + "}";
+        "outcome=" + outcome + "}";
   }
 }
@@ -0,0 +1,37 @@
+package com.amigoscode.testing.payment;
+
+public class CardPaymentChargeRequest {
+  private final String cardSource;
+  private final Money amount;
+  private final String description;
+
+  public CardPaymentChargeRequest(String cardSource, Money amount, String description) {
+    this.cardSource = cardSource;
+    this.amount = amount;
+    this.description = description;
+  }
+
+  public String getCardSource() {
+    return cardSource;
+  }
+
+  public Money getAmount() {
+    return amount;
+  }
+
+  public Currency getCurrency() {
+    return amount.getCurrency();
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public String toString() {
+    return "CardPaymentChargeRequest{" +
+        "cardSource='" + cardSource + '\'' +
+        ", amount=" + amount +
+        ", description='" + description + '\'' + "}";
+  }
+}
@@ -1,12 +1,39 @@
 package com.amigoscode.testing.payment;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 public interface CardPaymentCharger {
   CardPaymentCharge chargeCard(
       String cardSource,
-      BigDecimal amount,
-      Currency currency,
+      Money amount,
       String description
   );
+
+  // one charge per request, in order; a charge that throws comes back as failed or unknown so the rest of the batch goes on
+  default List<CardPaymentCharge> chargeCards(List<CardPaymentChargeRequest> requests) {
+    List<CardPaymentCharge> charges = new ArrayList<>(requests.size());
+    for (CardPaymentChargeRequest request : requests) {
+      charges.add(chargeOrDecline(this, request));
+    }
+    return charges;
+  }
+
+  // true when charging the same card twice for one payment cannot debit it twice, so calls may be hedged
+  default boolean isIdempotent() {
+    return false;
+  }
+
+  static CardPaymentCharge chargeOrDecline(CardPaymentCharger charger, CardPaymentChargeRequest request) {
+    try {
+      return charger.chargeCard(
+          request.getCardSource(),
+          request.getAmount(),
+          request.getDescription());
+    } catch (PaymentNotChargedException e) {
+      return new CardPaymentCharge(CardPaymentCharge.Outcome.FAILED);
+    } catch (RuntimeException e) {
+      return new CardPaymentCharge(CardPaymentCharge.Outcome.UNKNOWN);
+    }
+  }
 }
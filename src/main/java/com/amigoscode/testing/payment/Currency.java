@@ -3,5 +3,12 @@ package com.amigoscode.testing.payment;
 public enum Currency {
   USD,
   GBP,
-  EUR
+  EUR;
+
+  private final int fractionDigits = java.util.Currency.getInstance(name()).getDefaultFractionDigits();
+
+  // digits after the decimal point of the currency's minor unit, 2 for cents and pence
+  public int getFractionDigits() {
+    return fractionDigits;
+  }
 }
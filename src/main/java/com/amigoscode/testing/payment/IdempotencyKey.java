@@ -0,0 +1,96 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+public class IdempotencyKey implements Persistable<String> {
+  public enum Status {
+    IN_PROGRESS,
+    COMPLETED,
+    // the card may have been debited, so the key is never handed out again before it expires
+    FAILED
+  }
+
+  @Id
+  private String idempotencyKey;
+
+  @Column(nullable = false)
+  private UUID customerId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private Status status;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  // new keys are always inserted, so a concurrent claim of the same key fails on the primary key
+  @Transient
+  private boolean isNew = true;
+
+  public IdempotencyKey() {
+  }
+
+  public IdempotencyKey(String idempotencyKey, UUID customerId, Status status, Instant createdAt) {
+    this.idempotencyKey = idempotencyKey;
+    this.customerId = customerId;
+    this.status = status;
+    this.createdAt = createdAt;
+  }
+
+  @Override
+  public String getId() {
+    return idempotencyKey;
+  }
+
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public UUID getCustomerId() {
+    return customerId;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  @Override
+  public String toString() {
+    return "IdempotencyKey{" +
+        "idempotencyKey='" + idempotencyKey + '\'' +
+        ", customerId=" + customerId +
+        ", status=" + status +
+        ", createdAt=" + createdAt + "}";
+  }
+}
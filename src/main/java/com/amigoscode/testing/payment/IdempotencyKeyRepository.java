@@ -0,0 +1,19 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+  // conditional, so a key whose payment finished since it was read keeps its real outcome
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(
+      value = "UPDATE idempotency_key SET status = 'FAILED' "
+          + "WHERE idempotency_key = :idempotency_key AND status = 'IN_PROGRESS'",
+      nativeQuery = true
+  )
+  int failInProgress(@Param("idempotency_key") String idempotencyKey);
+}
@@ -0,0 +1,147 @@
+package com.amigoscode.testing.payment;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+// an amount as a whole number of the currency's minor units, so 12.34 GBP is 1234 pence in a single long
+@Embeddable
+public class Money {
+  @Column(name = "amount")
+  private long minorUnits;
+
+  private Currency currency;
+
+  // for JPA
+  protected Money() {}
+
+  private Money(long minorUnits, Currency currency) {
+    this.minorUnits = minorUnits;
+    this.currency = Objects.requireNonNull(currency, "currency");
+  }
+
+  public static Money ofMinor(long minorUnits, Currency currency) {
+    return new Money(minorUnits, currency);
+  }
+
+  // exact: an amount finer than the currency's minor unit is rejected rather than rounded
+  public static Money of(BigDecimal amount, Currency currency) {
+    // returns the amount itself when it already has the currency's scale, and throws rather than rounds
+    BigDecimal scaled;
+    try {
+      scaled = amount.setScale(currency.getFractionDigits(), RoundingMode.UNNECESSARY);
+    } catch (ArithmeticException e) {
+      throw new IllegalStateException(
+          String.format("%s is not a whole number of %s minor units", amount.toPlainString(), currency));
+    }
+    try {
+      return new Money(scaled.unscaledValue().longValueExact(), currency);
+    } catch (ArithmeticException e) {
+      throw new IllegalStateException(String.format("%s is too large an amount", amount.toPlainString()));
+    }
+  }
+
+  // unscaled * 10^-scale, so (1234, 2) is 12.34; trailing zeros beyond the minor unit are dropped, anything else is rejected
+  public static Money of(long unscaled, int scale, Currency currency) {
+    long minorUnits = unscaled;
+    try {
+      for (int digits = scale; digits > currency.getFractionDigits(); digits--) {
+        if (minorUnits % 10 != 0) {
+          throw new IllegalStateException(String.format("%s is not a whole number of %s minor units",
+              BigDecimal.valueOf(unscaled, scale).toPlainString(), currency));
+        }
+        minorUnits /= 10;
+      }
+      for (int digits = scale; digits < currency.getFractionDigits(); digits++) {
+        minorUnits = Math.multiplyExact(minorUnits, 10);
+      }
+    } catch (ArithmeticException e) {
+      throw new IllegalStateException(
+          String.format("%s is too large an amount", BigDecimal.valueOf(unscaled, scale).toPlainString()));
+    }
+    return new Money(minorUnits, currency);
+  }
+
+  // same rules as of(BigDecimal, Currency) for plain decimal text such as "12.34", without a BigDecimal in between
+  public static Money parse(CharSequence text, Currency currency) {
+    int length = text.length();
+    int i = 0;
+    boolean negative = length > 0 && text.charAt(0) == '-';
+    if (negative) {
+      i++;
+    }
+
+    long minorUnits = 0;
+    int fractionDigits = -1;
+    boolean digits = false;
+    try {
+      for (; i < length; i++) {
+        char c = text.charAt(i);
+        if (c == '.' && fractionDigits < 0) {
+          fractionDigits = 0;
+        } else if (c >= '0' && c <= '9') {
+          if (fractionDigits >= 0 && ++fractionDigits > currency.getFractionDigits()) {
+            if (c != '0') {
+              throw new IllegalStateException(
+                  String.format("%s is not a whole number of %s minor units", text, currency));
+            }
+            continue;
+          }
+          minorUnits = Math.addExact(Math.multiplyExact(minorUnits, 10), c - '0');
+          digits = true;
+        } else {
+          throw new IllegalStateException(String.format("%s is not an amount", text));
+        }
+      }
+      if (!digits) {
+        throw new IllegalStateException(String.format("%s is not an amount", text));
+      }
+      for (int pad = Math.max(fractionDigits, 0); pad < currency.getFractionDigits(); pad++) {
+        minorUnits = Math.multiplyExact(minorUnits, 10);
+      }
+    } catch (ArithmeticException e) {
+      throw new IllegalStateException(String.format("%s is too large an amount", text));
+    }
+
+    return new Money(negative ? -minorUnits : minorUnits, currency);
+  }
+
+  public long getMinorUnits() {
+    return minorUnits;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  public Money plus(Money other) {
+    if (currency != other.currency) {
+      throw new IllegalStateException(String.format("Cannot add %s to %s", other.currency, currency));
+    }
+    return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(minorUnits, currency.getFractionDigits());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    Money money = (Money) o;
+    return minorUnits == money.minorUnits && currency == money.currency;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(minorUnits, currency);
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString() + " " + currency;
+  }
+}
@@ -0,0 +1,29 @@
+package com.amigoscode.testing.payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+// fans a batch out over a fixed pool, the pool size is what bounds the calls in flight
+public final class ParallelCardPaymentCharges {
+  private ParallelCardPaymentCharges() {
+  }
+
+  public static List<CardPaymentCharge> chargeAll(
+      CardPaymentCharger charger,
+      List<CardPaymentChargeRequest> requests,
+      ExecutorService executor) {
+    List<CompletableFuture<CardPaymentCharge>> pending = new ArrayList<>(requests.size());
+    for (CardPaymentChargeRequest request : requests) {
+      pending.add(CompletableFuture.supplyAsync(
+          () -> CardPaymentCharger.chargeOrDecline(charger, request), executor));
+    }
+
+    List<CardPaymentCharge> charges = new ArrayList<>(requests.size());
+    for (CompletableFuture<CardPaymentCharge> charge : pending) {
+      charges.add(charge.join());
+    }
+    return charges;
+  }
+}
@@ -1,23 +1,41 @@
 package com.amigoscode.testing.payment;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import java.math.BigDecimal;
 import java.util.Objects;
 import java.util.UUID;
 
 @Entity
+// payment history seeks on (customer_id, payment_id) instead of scanning the table
+@Table(indexes = @Index(name = "payment_customer_id_payment_id_idx", columnList = "customerId, paymentId"))
 public class Payment {
   @Id
-  @GeneratedValue
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_id")
+  @GenericGenerator(
+      name = "payment_id",
+      strategy = "com.amigoscode.testing.payment.PaymentIdGenerator",
+      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "payment_id_seq")
+  )
   private Long paymentId;
 
   private UUID customerId;
 
-  private BigDecimal amount;
-
-  private Currency currency;
+  // amount and currency columns, the amount as a BIGINT of minor units
+  @Embedded
+  private Money money;
 
   private String source;
 
@@ -25,21 +43,27 @@ public class Payment {
 
   public Payment() {}
 
-  public Payment(
-      Long paymentId,
-      UUID customerId,
-      BigDecimal amount,
-      Currency currency,
-      String source,
-      String description) {
+  public Payment(Long paymentId, UUID customerId, Money money, String source, String description) {
     this.paymentId = paymentId;
     this.customerId = customerId;
-    this.amount = amount;
-    this.currency = currency;
+    this.money = money;
     this.source = source;
     this.description = description;
   }
 
+  // the JSON shape stays a decimal amount next to a currency, converted once on the way in
+  @JsonCreator
+  public Payment(
+      @JsonProperty("paymentId") Long paymentId,
+      @JsonProperty("customerId") UUID customerId,
+      @JsonProperty("amount") BigDecimal amount,
+      @JsonProperty("currency") Currency currency,
+      @JsonProperty("source") String source,
+      @JsonProperty("description") String description) {
+    this(paymentId, customerId, amount == null || currency == null ? null : Money.of(amount, currency), source,
+        description);
+  }
+
   public Long getPaymentId() {
     return paymentId;
   }
@@ -56,20 +80,21 @@ public class Payment {
     this.customerId = customerId;
   }
 
-  public BigDecimal getAmount() {
-    return amount;
+  @JsonIgnore
+  public Money getMoney() {
+    return money;
   }
 
-  public void setAmount(BigDecimal amount) {
-    this.amount = amount;
+  public void setMoney(Money money) {
+    this.money = money;
   }
 
-  public Currency getCurrency() {
-    return currency;
+  public BigDecimal getAmount() {
+    return money == null ? null : money.toBigDecimal();
   }
 
-  public void setCurrency(Currency currency) {
-    this.currency = currency;
+  public Currency getCurrency() {
+    return money == null ? null : money.getCurrency();
   }
 
   public String getSource() {
@@ -93,8 +118,7 @@ public class Payment {
     return "Payment{" +
         "paymentId=" + paymentId +
         ", customerId=" + customerId +
-        ", amount=" + amount +
-        ", currency=" + currency +
+        ", money=" + money +
         ", source='" + source + '\'' +
         ", description='" + description + '\'' +
         '}';
@@ -107,14 +131,13 @@ public class Payment {
     Payment payment = (Payment) o;
     return paymentId.equals(payment.paymentId) &&
         customerId.equals(payment.customerId) &&
-        amount.equals(payment.amount) &&
-        currency == payment.currency &&
+        money.equals(payment.money) &&
         source.equals(payment.source) &&
         description.equals(payment.description);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(paymentId, customerId, amount, currency, source, description);
+    return Objects.hash(paymentId, customerId, money, source, description);
   }
 }
@@ -0,0 +1,122 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.VirtualThreads;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// bounded pool dedicated to card charges, a virtual thread per charge, or the caller's own thread when async is off
+@Component
+public class PaymentChargeExecutor {
+  private final ThreadPoolExecutor threadPoolExecutor;
+  private final ExecutorService virtualThreadExecutor;
+  private final LongAdder rejected = new LongAdder();
+
+  public PaymentChargeExecutor(boolean asyncEnabled, int poolSize, int queueCapacity, MeterRegistry meterRegistry) {
+    this(asyncEnabled, false, poolSize, queueCapacity, meterRegistry);
+  }
+
+  @Autowired
+  public PaymentChargeExecutor(
+      @Value("${payment.charge.async.enabled:false}") boolean asyncEnabled,
+      @Value("${execution.virtual-threads.enabled:false}") boolean virtualThreads,
+      @Value("${payment.charge.executor.pool-size:32}") int poolSize,
+      @Value("${payment.charge.executor.queue-capacity:1000}") int queueCapacity,
+      MeterRegistry meterRegistry) {
+    if (!asyncEnabled) {
+      this.threadPoolExecutor = null;
+      this.virtualThreadExecutor = null;
+      return;
+    }
+
+    // a blocked virtual thread costs no platform thread, so there is no pool or queue to size
+    if (virtualThreads) {
+      this.threadPoolExecutor = null;
+      this.virtualThreadExecutor = VirtualThreads.newThreadPerTaskExecutor("payment-charge-virtual-");
+      return;
+    }
+
+    this.virtualThreadExecutor = null;
+
+    this.threadPoolExecutor = new ThreadPoolExecutor(
+        poolSize,
+        poolSize,
+        60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new ChargeThreadFactory(),
+        (runnable, executor) -> {
+          rejected.increment();
+          throw new RejectedExecutionException("Payment charge queue is full");
+        });
+
+    Gauge.builder("payment.charge.executor.queue.depth", threadPoolExecutor, e -> e.getQueue().size())
+        .register(meterRegistry);
+    Gauge.builder("payment.charge.executor.active", threadPoolExecutor, ThreadPoolExecutor::getActiveCount)
+        .register(meterRegistry);
+    Gauge.builder("payment.charge.executor.utilisation", threadPoolExecutor,
+        e -> (double) e.getActiveCount() / e.getMaximumPoolSize())
+        .register(meterRegistry);
+    FunctionCounter.builder("payment.charge.executor.rejected", rejected, LongAdder::doubleValue)
+        .register(meterRegistry);
+  }
+
+  public boolean isAsync() {
+    return threadPoolExecutor != null || virtualThreadExecutor != null;
+  }
+
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    if (virtualThreadExecutor != null) {
+      return CompletableFuture.supplyAsync(task, virtualThreadExecutor);
+    }
+
+    if (threadPoolExecutor == null) {
+      try {
+        return CompletableFuture.completedFuture(task.get());
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+
+    try {
+      return CompletableFuture.supplyAsync(task, threadPoolExecutor);
+    } catch (RejectedExecutionException e) {
+      throw new PaymentNotChargedException(e.getMessage(), e);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (threadPoolExecutor != null) {
+      threadPoolExecutor.shutdown();
+    }
+    if (virtualThreadExecutor != null) {
+      virtualThreadExecutor.shutdown();
+    }
+  }
+
+  private static class ChargeThreadFactory implements ThreadFactory {
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "payment-charge-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -1,23 +1,120 @@
 package com.amigoscode.testing.payment;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/v1/payment")
 public class PaymentController {
+  private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
   private final PaymentService paymentService;
+  private final PaymentIdempotencyService paymentIdempotencyService;
+  private final PaymentHistoryRepository paymentHistoryRepository;
+  private final PaymentTotals paymentTotals;
+  private final ObjectMapper objectMapper;
+  private final int maxBatchSize;
+  private final int maxHistoryPageSize;
 
   @Autowired
-  public PaymentController(PaymentService paymentService) {
+  public PaymentController(
+      PaymentService paymentService,
+      PaymentIdempotencyService paymentIdempotencyService,
+      PaymentHistoryRepository paymentHistoryRepository,
+      PaymentTotals paymentTotals,
+      ObjectMapper objectMapper,
+      @Value("${payment.batch.max-size:1000}") int maxBatchSize,
+      @Value("${payment.history.max-page-size:10000}") int maxHistoryPageSize) {
     this.paymentService = paymentService;
+    this.paymentIdempotencyService = paymentIdempotencyService;
+    this.paymentHistoryRepository = paymentHistoryRepository;
+    this.paymentTotals = paymentTotals;
+    this.objectMapper = objectMapper;
+    this.maxBatchSize = maxBatchSize;
+    this.maxHistoryPageSize = maxHistoryPageSize;
   }
 
+  // the servlet thread is released while the charge is in flight
   @PostMapping
-  public void makePayment(@RequestBody PaymentRequest request) {
-    paymentService.chargeCard(request.getPayment().getCustomerId(), request);
+  public CompletableFuture<Void> makePayment(
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+      @RequestBody PaymentRequest request) {
+    UUID customerId = request.getPayment().getCustomerId();
+
+    if (idempotencyKey == null) {
+      return paymentService.chargeCardAsync(customerId, request);
+    }
+
+    return paymentIdempotencyService.execute(
+        idempotencyKey,
+        customerId,
+        () -> paymentService.chargeCardAsync(customerId, request));
+  }
+
+  // one result per request, in request order
+  @PostMapping("batch")
+  public List<PaymentResult> makePayments(@RequestBody List<PaymentRequest> requests) {
+    if (requests.size() > maxBatchSize) {
+      throw new IllegalStateException(
+          String.format("Payment batch of %d exceeds the limit of %d", requests.size(), maxBatchSize));
+    }
+
+    return paymentService.chargeCards(requests);
+  }
+
+  // one payment per line in id order; the next page starts after the last paymentId received,
+  // and a page shorter than the limit is the last one
+  @GetMapping(path = "customer/{customerId}", produces = APPLICATION_NDJSON)
+  public void getPaymentHistory(
+      @PathVariable UUID customerId,
+      @RequestParam(defaultValue = "0") long after,
+      @RequestParam(defaultValue = "${payment.history.page-size:100}") int limit,
+      HttpServletResponse response) throws IOException {
+    if (limit <= 0 || limit > maxHistoryPageSize) {
+      throw new IllegalStateException(
+          String.format("Payment history page size must be between 1 and %d", maxHistoryPageSize));
+    }
+
+    response.setContentType(APPLICATION_NDJSON);
+
+    try (SequenceWriter payments = objectMapper
+        .writerFor(Payment.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .withRootValueSeparator("\n")
+        .writeValues(response.getOutputStream())) {
+      paymentHistoryRepository.forEachPayment(customerId, after, limit, payment -> {
+        try {
+          payments.write(payment);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+
+  // served from the running totals, no payment rows are read
+  @GetMapping("customer/{customerId}/totals")
+  public List<PaymentTotal> getPaymentTotals(@PathVariable UUID customerId) {
+    return paymentTotals.getTotals(customerId);
   }
 }
@@ -0,0 +1,80 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+// one saved payment as downstream consumers read it from the payment event log; eventId is unique per
+// payment, so consumers drop the repeats an interrupted relay may append
+public class PaymentEvent {
+  private final long eventId;
+  private final Long paymentId;
+  private final UUID customerId;
+  private final BigDecimal amount;
+  private final Currency currency;
+
+  @JsonCreator
+  public PaymentEvent(
+      @JsonProperty("eventId") long eventId,
+      @JsonProperty("paymentId") Long paymentId,
+      @JsonProperty("customerId") UUID customerId,
+      @JsonProperty("amount") BigDecimal amount,
+      @JsonProperty("currency") Currency currency) {
+    this.eventId = eventId;
+    this.paymentId = paymentId;
+    this.customerId = customerId;
+    this.amount = amount;
+    this.currency = currency;
+  }
+
+  public long getEventId() {
+    return eventId;
+  }
+
+  public Long getPaymentId() {
+    return paymentId;
+  }
+
+  public UUID getCustomerId() {
+    return customerId;
+  }
+
+  public BigDecimal getAmount() {
+    return amount;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentEvent{" +
+        "eventId=" + eventId +
+        ", paymentId=" + paymentId +
+        ", customerId=" + customerId +
+        ", amount=" + amount +
+        ", currency=" + currency +
+        '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    PaymentEvent that = (PaymentEvent) o;
+    return eventId == that.eventId &&
+        Objects.equals(paymentId, that.paymentId) &&
+        Objects.equals(customerId, that.customerId) &&
+        Objects.equals(amount, that.amount) &&
+        currency == that.currency;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(eventId, paymentId, customerId, amount, currency);
+  }
+}
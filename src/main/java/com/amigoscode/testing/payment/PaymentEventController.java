@@ -0,0 +1,76 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+@ConditionalOnProperty(
+    value = "payment.outbox.enabled",
+    havingValue = "true"
+)
+@RequestMapping("api/v1/payment/events")
+public class PaymentEventController {
+  private static final String APPLICATION_NDJSON = "application/x-ndjson";
+  static final String NEXT_OFFSET_HEADER = "Payment-Event-Next-Offset";
+  private static final byte[] NEWLINE = {'\n'};
+
+  private final PaymentEventLog paymentEventLog;
+  private final int maxPageSize;
+
+  @Autowired
+  public PaymentEventController(
+      PaymentEventLog paymentEventLog,
+      @Value("${payment.events.max-page-size:10000}") int maxPageSize) {
+    this.paymentEventLog = paymentEventLog;
+    this.maxPageSize = maxPageSize;
+  }
+
+  // one event per line as stored in the log, so a replay after a relay retry may repeat an eventId;
+  // the next page starts at the offset in the header, which equals the offset sent once caught up
+  @GetMapping(produces = APPLICATION_NDJSON)
+  public void getPaymentEvents(
+      @RequestParam(required = false) Long offset,
+      @RequestParam(defaultValue = "${payment.events.page-size:1000}") int limit,
+      HttpServletResponse response) throws IOException {
+    if (limit <= 0 || limit > maxPageSize) {
+      throw new IllegalStateException(
+          String.format("Payment event page size must be between 1 and %d", maxPageSize));
+    }
+
+    List<ByteBuffer> records = new ArrayList<>();
+    long next = paymentEventLog.tail(
+        offset == null ? paymentEventLog.startOffset() : offset, limit, (recordOffset, record) -> records.add(record));
+
+    response.setContentType(APPLICATION_NDJSON);
+    response.setHeader(NEXT_OFFSET_HEADER, Long.toString(next));
+
+    // records are read-only views of the mapped segments; the stream channel copies each through a small
+    // heap buffer on its way into the response
+    WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+    for (ByteBuffer record : records) {
+      writeFully(channel, record);
+      writeFully(channel, ByteBuffer.wrap(NEWLINE));
+    }
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
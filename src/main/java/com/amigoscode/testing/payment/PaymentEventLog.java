@@ -0,0 +1,82 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.MappedLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+
+// saved payments as JSON records in a local segmented log; consumers keep their own offset and tail from it
+@Component
+@ConditionalOnProperty(
+    value = "payment.outbox.enabled",
+    havingValue = "true"
+)
+public class PaymentEventLog {
+  private final MappedLog log;
+  private final ObjectWriter writer;
+  private final ObjectReader reader;
+
+  @Autowired
+  public PaymentEventLog(
+      ObjectMapper objectMapper,
+      @Value("${payment.event-log.directory:payment-events}") String directory,
+      @Value("${payment.event-log.segment-bytes:67108864}") int segmentBytes,
+      @Value("${payment.event-log.max-segments:16}") int maxSegments) {
+    this.log = new MappedLog(Paths.get(directory), segmentBytes, maxSegments);
+    this.writer = objectMapper.writerFor(PaymentEvent.class);
+    this.reader = objectMapper.readerFor(PaymentEvent.class);
+  }
+
+  // appended and forced to disk before the call returns
+  public void append(List<PaymentEvent> events) {
+    try {
+      for (PaymentEvent event : events) {
+        log.append(ByteBuffer.wrap(writer.writeValueAsBytes(event)));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    log.flush();
+  }
+
+  // the raw JSON of each record as a read-only view of the mapped file, nothing is copied
+  public long tail(long offset, int maxEvents, MappedLog.RecordConsumer consumer) {
+    return log.read(offset, maxEvents, consumer);
+  }
+
+  public long read(long offset, int maxEvents, Consumer<PaymentEvent> consumer) {
+    return log.read(offset, maxEvents, (recordOffset, record) -> {
+      try {
+        consumer.accept(reader.readValue(new ByteBufferBackedInputStream(record)));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  public long startOffset() {
+    return log.startOffset();
+  }
+
+  public long endOffset() {
+    return log.endOffset();
+  }
+
+  @PreDestroy
+  void close() {
+    log.close();
+  }
+}
@@ -0,0 +1,50 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static com.amigoscode.testing.Utils.UuidBytes.fromBytes;
+import static com.amigoscode.testing.Utils.UuidBytes.toBytes;
+
+@Repository
+public class PaymentHistoryRepository {
+  // keyset page: the index range after the last id the client saw, never an OFFSET walk
+  private static final String SELECT_PAYMENTS_AFTER =
+      "SELECT payment_id, customer_id, amount, currency, source, description FROM payment "
+          + "WHERE customer_id = ? AND payment_id > ? ORDER BY payment_id LIMIT ?";
+  private static final int FETCH_SIZE = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public PaymentHistoryRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // streams up to limit of the customer's payments with ids above afterPaymentId, in id order
+  public void forEachPayment(UUID customerId, long afterPaymentId, int limit, Consumer<Payment> action) {
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(SELECT_PAYMENTS_AFTER);
+          statement.setFetchSize(Math.min(limit, FETCH_SIZE));
+          statement.setBytes(1, toBytes(customerId));
+          statement.setLong(2, afterPaymentId);
+          statement.setInt(3, limit);
+          return statement;
+        },
+        (RowCallbackHandler) rs -> action.accept(new Payment(
+            rs.getLong(1),
+            fromBytes(rs.getBytes(2)),
+            // minor units and the currency's enum ordinal, like the JPA mapping
+            Money.ofMinor(rs.getLong(3), Currency.values()[rs.getInt(4)]),
+            rs.getString(5),
+            rs.getString(6)))
+    );
+  }
+}
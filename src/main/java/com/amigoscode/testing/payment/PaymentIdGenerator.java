@@ -0,0 +1,28 @@
+package com.amigoscode.testing.payment;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// pooled-lo sequence: one nextval reserves a whole block of ids, so instances sharing the sequence never collide
+public class PaymentIdGenerator extends SequenceStyleGenerator {
+  public static final String BLOCK_SIZE_SETTING = "payment.id.block-size";
+  public static final int DEFAULT_BLOCK_SIZE = 50;
+
+  @Override
+  public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+    Object blockSize = serviceRegistry.getService(ConfigurationService.class)
+        .getSettings()
+        .get(BLOCK_SIZE_SETTING);
+
+    params.setProperty(INCREMENT_PARAM, blockSize == null ? String.valueOf(DEFAULT_BLOCK_SIZE) : blockSize.toString());
+    params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+    super.configure(type, params, serviceRegistry);
+  }
+}
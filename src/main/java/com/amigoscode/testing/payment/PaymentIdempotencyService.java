@@ -0,0 +1,199 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.ExpiringCache;
+import com.amigoscode.testing.payment.IdempotencyKey.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Service
+public class PaymentIdempotencyService {
+  private static final Logger log = LoggerFactory.getLogger(PaymentIdempotencyService.class);
+
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+  private final ExpiringCache<String, IdempotentPayment> payments;
+  private final Duration ttl;
+  private final Duration lease;
+  private final Clock clock;
+
+  @Autowired
+  public PaymentIdempotencyService(
+      IdempotencyKeyRepository idempotencyKeyRepository,
+      @Value("${payment.idempotency.cache-size:100000}") int cacheSize,
+      @Value("${payment.idempotency.ttl-seconds:86400}") long ttlSeconds,
+      @Value("${payment.idempotency.lease-seconds:300}") long leaseSeconds) {
+    this(idempotencyKeyRepository, new ExpiringCache<>(cacheSize, ttlSeconds, TimeUnit.SECONDS),
+        Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(leaseSeconds), Clock.systemUTC());
+  }
+
+  PaymentIdempotencyService(
+      IdempotencyKeyRepository idempotencyKeyRepository,
+      ExpiringCache<String, IdempotentPayment> payments,
+      Duration ttl,
+      Duration lease,
+      Clock clock) {
+    this.idempotencyKeyRepository = idempotencyKeyRepository;
+    this.payments = payments;
+    this.ttl = ttl;
+    this.lease = lease;
+    this.clock = clock;
+  }
+
+  // runs the payment once per key, duplicates share the first request's outcome
+  public CompletableFuture<Void> execute(
+      String idempotencyKey,
+      UUID customerId,
+      Supplier<CompletableFuture<Void>> payment) {
+    IdempotentPayment idempotentPayment = new IdempotentPayment(customerId);
+    IdempotentPayment existing = payments.putIfAbsent(idempotencyKey, idempotentPayment);
+
+    // in flight or done on this instance: no database, no charger
+    if (existing != null) {
+      checkCustomer(idempotencyKey, existing.customerId, customerId);
+      return existing.result;
+    }
+
+    // not seen here since the last restart or eviction
+    Optional<IdempotencyKey> stored = idempotencyKeyRepository.findById(idempotencyKey);
+    if (stored.isPresent() && isExpired(stored.get())) {
+      idempotencyKeyRepository.delete(stored.get());
+      stored = Optional.empty();
+    }
+    if (stored.isPresent() && isAbandoned(stored.get())) {
+      stored = failAbandoned(stored.get());
+    }
+
+    if (stored.isPresent()) {
+      if (!stored.get().getCustomerId().equals(customerId) || stored.get().getStatus() != Status.COMPLETED) {
+        payments.remove(idempotencyKey, idempotentPayment);
+        checkCustomer(idempotencyKey, stored.get().getCustomerId(), customerId);
+        throw stored.get().getStatus() == Status.FAILED ? failed(idempotencyKey) : inProgress(idempotencyKey);
+      }
+      idempotentPayment.result.complete(null);
+      return idempotentPayment.result;
+    }
+
+    IdempotencyKey claimed;
+    try {
+      claimed = idempotencyKeyRepository.saveAndFlush(
+          new IdempotencyKey(idempotencyKey, customerId, Status.IN_PROGRESS, clock.instant()));
+    } catch (DataIntegrityViolationException e) {
+      // claimed by another instance in the meantime
+      payments.remove(idempotencyKey, idempotentPayment);
+      throw inProgress(idempotencyKey);
+    }
+
+    CompletableFuture<Void> result;
+    try {
+      result = payment.get();
+    } catch (RuntimeException e) {
+      try {
+        recordFailure(idempotencyKey, idempotentPayment, claimed, e);
+      } finally {
+        idempotentPayment.result.completeExceptionally(e);
+      }
+      throw e;
+    }
+
+    result.whenComplete((ignored, error) -> {
+      // duplicates wait on this result, so it completes even when the key cannot be updated
+      try {
+        if (error != null) {
+          recordFailure(idempotencyKey, idempotentPayment, claimed, error);
+        } else {
+          claimed.setStatus(Status.COMPLETED);
+          idempotencyKeyRepository.save(claimed);
+        }
+      } catch (RuntimeException e) {
+        log.error("Cannot update idempotency key {}", idempotencyKey, e);
+      } finally {
+        if (error != null) {
+          idempotentPayment.result.completeExceptionally(error);
+        } else {
+          idempotentPayment.result.complete(null);
+        }
+      }
+    });
+
+    return idempotentPayment.result;
+  }
+
+  // only a payment that provably never debited the card frees its key for a retry; after any other failure
+  // (a charge that timed out, a save that failed after the charge) the key stays taken as FAILED, and
+  // duplicates on this instance get the original failure back
+  private void recordFailure(
+      String idempotencyKey,
+      IdempotentPayment idempotentPayment,
+      IdempotencyKey claimed,
+      Throwable error) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if (cause instanceof PaymentNotChargedException) {
+      payments.remove(idempotencyKey, idempotentPayment);
+      idempotencyKeyRepository.delete(claimed);
+      return;
+    }
+
+    claimed.setStatus(Status.FAILED);
+    idempotencyKeyRepository.save(claimed);
+  }
+
+  private boolean isExpired(IdempotencyKey idempotencyKey) {
+    return idempotencyKey.getCreatedAt().plus(ttl).isBefore(clock.instant());
+  }
+
+  // in progress for far longer than a charge and a save can take: the instance that claimed it died or its
+  // charge never returned
+  private boolean isAbandoned(IdempotencyKey idempotencyKey) {
+    return idempotencyKey.getStatus() == Status.IN_PROGRESS
+        && idempotencyKey.getCreatedAt().plus(lease).isBefore(clock.instant());
+  }
+
+  // the card may have been debited, so an abandoned key is never reclaimed; it turns FAILED like any other
+  // payment with an unknown outcome, unless its payment finished after all
+  private Optional<IdempotencyKey> failAbandoned(IdempotencyKey idempotencyKey) {
+    if (idempotencyKeyRepository.failInProgress(idempotencyKey.getIdempotencyKey()) == 1) {
+      idempotencyKey.setStatus(Status.FAILED);
+      return Optional.of(idempotencyKey);
+    }
+    return idempotencyKeyRepository.findById(idempotencyKey.getIdempotencyKey());
+  }
+
+  private static void checkCustomer(String idempotencyKey, UUID keyCustomerId, UUID customerId) {
+    if (!keyCustomerId.equals(customerId)) {
+      throw new IllegalStateException(
+          String.format("Idempotency key %s was used for another customer", idempotencyKey));
+    }
+  }
+
+  private static IllegalStateException failed(String idempotencyKey) {
+    return new IllegalStateException(String.format(
+        "Payment with idempotency key %s failed after the card may have been debited", idempotencyKey));
+  }
+
+  private static IllegalStateException inProgress(String idempotencyKey) {
+    return new IllegalStateException(
+        String.format("Payment with idempotency key %s is already in progress", idempotencyKey));
+  }
+
+  static class IdempotentPayment {
+    private final UUID customerId;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    IdempotentPayment(UUID customerId) {
+      this.customerId = customerId;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package com.amigoscode.testing.payment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// meters are registered once up front, recording is a nanoTime delta into a fixed timer with no tag lookups
+@Component
+public class PaymentMetrics {
+  private final Timer customerLookup;
+  private final Timer currencyCheck;
+  private final Timer charge;
+  private final Timer save;
+
+  private final Counter unknownCustomer;
+  private final Counter unsupportedCurrency;
+  private final Counter cardNotDebited;
+  private final Counter chargeFailed;
+  private final Counter chargeUnknown;
+  private final Counter saveFailed;
+
+  @Autowired
+  public PaymentMetrics(MeterRegistry meterRegistry) {
+    this.customerLookup = stageTimer("customer_lookup", meterRegistry);
+    this.currencyCheck = stageTimer("currency_check", meterRegistry);
+    this.charge = stageTimer("charge", meterRegistry);
+    this.save = stageTimer("save", meterRegistry);
+
+    this.unknownCustomer = rejectionCounter("unknown_customer", meterRegistry);
+    this.unsupportedCurrency = rejectionCounter("unsupported_currency", meterRegistry);
+    this.cardNotDebited = rejectionCounter("card_not_debited", meterRegistry);
+    this.chargeFailed = rejectionCounter("charge_failed", meterRegistry);
+    this.chargeUnknown = rejectionCounter("charge_unknown", meterRegistry);
+    this.saveFailed = rejectionCounter("save_failed", meterRegistry);
+  }
+
+  public long start() {
+    return System.nanoTime();
+  }
+
+  public void recordCustomerLookup(long startNanos) {
+    customerLookup.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordCurrencyCheck(long startNanos) {
+    currencyCheck.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordCharge(long startNanos) {
+    charge.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordSave(long startNanos) {
+    save.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void unknownCustomer() {
+    unknownCustomer.increment();
+  }
+
+  public void unsupportedCurrency() {
+    unsupportedCurrency.increment();
+  }
+
+  public void cardNotDebited() {
+    cardNotDebited.increment();
+  }
+
+  public void chargeFailed() {
+    chargeFailed.increment();
+  }
+
+  public void chargeUnknown() {
+    chargeUnknown.increment();
+  }
+
+  public void saveFailed() {
+    saveFailed.increment();
+  }
+
+  private static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+    return Timer.builder("payment.stage")
+        .tag("stage", stage)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private static Counter rejectionCounter(String reason, MeterRegistry meterRegistry) {
+    return Counter.builder("payment.rejections")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,13 @@
+package com.amigoscode.testing.payment;
+
+// the payment stopped before any card could be debited, so running it again cannot charge twice;
+// any other failure after the charge started leaves the outcome unknown
+public class PaymentNotChargedException extends IllegalStateException {
+  public PaymentNotChargedException(String message) {
+    super(message);
+  }
+
+  public PaymentNotChargedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,80 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.amigoscode.testing.Utils.UuidBytes.fromBytes;
+import static com.amigoscode.testing.Utils.UuidBytes.toBytes;
+
+// payment events are inserted in the transaction that saves the payments, so an event exists exactly
+// when its payment committed; the relay deletes them once they are in the payment event log
+@Component
+public class PaymentOutbox {
+  private static final String INSERT_EVENT =
+      "INSERT INTO payment_outbox (payment_id, customer_id, amount, currency) VALUES (?, ?, ?, ?)";
+  private static final String SELECT_EVENTS =
+      "SELECT event_id, payment_id, customer_id, amount, currency FROM payment_outbox ORDER BY event_id LIMIT ?";
+  private static final String DELETE_EVENT = "DELETE FROM payment_outbox WHERE event_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean enabled;
+
+  @Autowired
+  public PaymentOutbox(
+      JdbcTemplate jdbcTemplate,
+      @Value("${payment.outbox.enabled:false}") boolean enabled) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // must run inside the transaction that inserts the payments
+  public void record(List<Payment> payments) {
+    if (!enabled || payments.isEmpty()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("Payment events must be recorded inside the payment transaction");
+    }
+
+    jdbcTemplate.batchUpdate(INSERT_EVENT, payments, payments.size(), (ps, payment) -> {
+      ps.setLong(1, payment.getPaymentId());
+      ps.setBytes(2, toBytes(payment.getCustomerId()));
+      ps.setLong(3, payment.getMoney().getMinorUnits());
+      ps.setString(4, payment.getCurrency().name());
+    });
+  }
+
+  // oldest first; a transaction that commits late may add an event below ones already taken, it is
+  // picked up on a later poll because rows are deleted by id and never skipped by a high-water mark
+  public List<PaymentEvent> poll(int limit) {
+    return jdbcTemplate.query(SELECT_EVENTS, (rs, row) -> {
+      Currency currency = Currency.valueOf(rs.getString(5));
+      return new PaymentEvent(
+          rs.getLong(1),
+          rs.getLong(2),
+          fromBytes(rs.getBytes(3)),
+          Money.ofMinor(rs.getLong(4), currency).toBigDecimal(),
+          currency);
+    }, limit);
+  }
+
+  public void delete(List<PaymentEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+
+    jdbcTemplate.batchUpdate(DELETE_EVENT, events.stream()
+        .map(event -> new Object[] {event.getEventId()})
+        .collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,53 @@
+package com.amigoscode.testing.payment;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.UUID;
+
+// a saved payment waiting for PaymentOutboxRelay; PaymentOutbox writes and deletes the rows over JDBC
+@Entity
+@Table(name = "payment_outbox")
+public class PaymentOutboxEvent {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long eventId;
+
+  private Long paymentId;
+
+  private UUID customerId;
+
+  private long amount;
+
+  // by name, so rows still waiting for the relay keep their meaning if Currency is reordered
+  @Enumerated(EnumType.STRING)
+  @Column(length = 3)
+  private Currency currency;
+
+  public PaymentOutboxEvent() {}
+
+  public Long getEventId() {
+    return eventId;
+  }
+
+  public Long getPaymentId() {
+    return paymentId;
+  }
+
+  public UUID getCustomerId() {
+    return customerId;
+  }
+
+  public long getAmount() {
+    return amount;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+}
@@ -0,0 +1,98 @@
+package com.amigoscode.testing.payment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+// moves committed outbox rows into the payment event log: append and force first, delete after, so a crash
+// in between repeats events rather than losing them
+@Component
+@ConditionalOnProperty(
+    value = "payment.outbox.enabled",
+    havingValue = "true"
+)
+public class PaymentOutboxRelay {
+  private static final Logger log = LoggerFactory.getLogger(PaymentOutboxRelay.class);
+
+  private final PaymentOutbox paymentOutbox;
+  private final PaymentEventLog paymentEventLog;
+  private final int batchSize;
+  private final long intervalMillis;
+  private final Counter relayed;
+
+  private volatile boolean running;
+  private Thread relay;
+
+  @Autowired
+  public PaymentOutboxRelay(
+      PaymentOutbox paymentOutbox,
+      PaymentEventLog paymentEventLog,
+      @Value("${payment.outbox.relay.batch-size:500}") int batchSize,
+      @Value("${payment.outbox.relay.interval-ms:50}") long intervalMillis,
+      MeterRegistry meterRegistry) {
+    this.paymentOutbox = paymentOutbox;
+    this.paymentEventLog = paymentEventLog;
+    this.batchSize = batchSize;
+    this.intervalMillis = intervalMillis;
+    this.relayed = Counter.builder("payment.outbox.relayed").register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    running = true;
+    relay = new Thread(this::run, "payment-outbox-relay");
+    relay.setDaemon(true);
+    relay.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    relay.interrupt();
+    relay.join();
+  }
+
+  // one batch; the number of events moved
+  int relayOnce() {
+    List<PaymentEvent> events = paymentOutbox.poll(batchSize);
+    if (events.isEmpty()) {
+      return 0;
+    }
+
+    paymentEventLog.append(events);
+    paymentOutbox.delete(events);
+    relayed.increment(events.size());
+    return events.size();
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        // a full batch means more are waiting
+        if (relayOnce() < batchSize) {
+          Thread.sleep(intervalMillis);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      } catch (RuntimeException e) {
+        log.error("Payment outbox relay failed", e);
+        try {
+          Thread.sleep(intervalMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          running = false;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.StreamingJson;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// streams {"payment": {...}} straight into the entity: the amount goes from the parser's chars to minor units
+// and the currency is matched by name, so neither a BigDecimal nor an enum lookup String is built
+public class PaymentRequestDeserializer extends StdDeserializer<PaymentRequest> {
+  private static final Currency[] CURRENCIES = Currency.values();
+
+  public PaymentRequestDeserializer() {
+    super(PaymentRequest.class);
+  }
+
+  @Override
+  public PaymentRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+    Payment payment = null;
+
+    for (String field = StreamingJson.firstFieldName(p, ctxt, handledType()); field != null; field = p.nextFieldName()) {
+      JsonToken token = p.nextToken();
+      if ("payment".equals(field)) {
+        payment = token == JsonToken.VALUE_NULL ? null : readPayment(p, ctxt);
+      } else {
+        p.skipChildren();
+      }
+    }
+
+    return new PaymentRequest(payment);
+  }
+
+  private static Payment readPayment(JsonParser p, DeserializationContext ctxt) throws IOException {
+    Long paymentId = null;
+    UUID customerId = null;
+    Currency currency = null;
+    String source = null;
+    String description = null;
+
+    // the currency may come after the amount, so the amount waits as unscaled digits and a scale
+    boolean hasAmount = false;
+    long unscaled = 0;
+    int scale = 0;
+    BigDecimal unusualAmount = null;
+
+    for (String field = StreamingJson.firstFieldName(p, ctxt, Payment.class); field != null; field = p.nextFieldName()) {
+      JsonToken token = p.nextToken();
+      switch (field) {
+        case "paymentId":
+          paymentId = StreamingJson.readLong(p, ctxt);
+          break;
+        case "customerId":
+          customerId = StreamingJson.readUuid(p, ctxt);
+          break;
+        case "amount":
+          hasAmount = token != JsonToken.VALUE_NULL;
+          unusualAmount = null;
+          if (token == JsonToken.VALUE_NUMBER_INT && p.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+            unscaled = p.getLongValue();
+            scale = 0;
+          } else if (token == JsonToken.VALUE_NUMBER_FLOAT
+              || token == JsonToken.VALUE_NUMBER_INT
+              || token == JsonToken.VALUE_STRING) {
+            char[] chars = p.getTextCharacters();
+            scale = plainDecimalScale(chars, p.getTextOffset(), p.getTextLength());
+            if (scale >= 0) {
+              unscaled = plainDecimalUnscaled(chars, p.getTextOffset(), p.getTextLength());
+            } else {
+              // exponents and very long numbers take the BigDecimal route
+              unusualAmount = readDecimal(p, ctxt);
+            }
+          } else if (hasAmount) {
+            ctxt.handleUnexpectedToken(BigDecimal.class, p);
+          }
+          break;
+        case "currency":
+          currency = StreamingJson.readEnum(p, ctxt, Currency.class, CURRENCIES);
+          break;
+        case "source":
+          source = StreamingJson.readString(p, ctxt);
+          break;
+        case "description":
+          description = StreamingJson.readString(p, ctxt);
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+
+    Money money = null;
+    if (hasAmount && currency != null) {
+      try {
+        money = unusualAmount != null ? Money.of(unusualAmount, currency) : Money.of(unscaled, scale, currency);
+      } catch (IllegalStateException e) {
+        throw JsonMappingException.from(p, e.getMessage(), e);
+      }
+    }
+
+    return new Payment(paymentId, customerId, money, source, description);
+  }
+
+  private static BigDecimal readDecimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+    if (p.currentToken().isNumeric()) {
+      return p.getDecimalValue();
+    }
+    try {
+      return new BigDecimal(p.getText().trim());
+    } catch (NumberFormatException e) {
+      throw ctxt.weirdStringException(p.getText(), BigDecimal.class, "not a valid representation");
+    }
+  }
+
+  // digits after the point of [-]digits[.digits], or -1 when the text is anything else
+  static int plainDecimalScale(char[] chars, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    if (i < end && chars[i] == '-') {
+      i++;
+    }
+
+    int digits = 0;
+    int point = -1;
+    for (; i < end; i++) {
+      char c = chars[i];
+      if (c >= '0' && c <= '9') {
+        digits++;
+      } else if (c == '.' && point < 0) {
+        point = i;
+      } else {
+        return -1;
+      }
+    }
+    // more than 18 digits may not fit a long
+    if (digits == 0 || digits > 18) {
+      return -1;
+    }
+    return point < 0 ? 0 : end - point - 1;
+  }
+
+  // the digits of text already accepted by plainDecimalScale, without the point
+  static long plainDecimalUnscaled(char[] chars, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    boolean negative = chars[i] == '-';
+    if (negative) {
+      i++;
+    }
+
+    long value = 0;
+    for (; i < end; i++) {
+      char c = chars[i];
+      if (c != '.') {
+        value = value * 10 + (c - '0');
+      }
+    }
+    return negative ? -value : value;
+  }
+}
@@ -0,0 +1,46 @@
+package com.amigoscode.testing.payment;
+
+public class PaymentResult {
+  public enum Status {
+    PAID,
+    CARD_NOT_DEBITED,
+    CUSTOMER_NOT_FOUND,
+    CURRENCY_NOT_SUPPORTED,
+    // the charge never reached the processor, safe to retry
+    CHARGE_FAILED,
+    // the charge failed after it was sent, the card may have been debited
+    CHARGE_UNKNOWN,
+    // the card was debited but the payment could not be stored
+    SAVE_FAILED
+  }
+
+  private final int row;
+  private final Status status;
+  private final Long paymentId;
+
+  public PaymentResult(int row, Status status, Long paymentId) {
+    this.row = row;
+    this.status = status;
+    this.paymentId = paymentId;
+  }
+
+  public int getRow() {
+    return row;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Long getPaymentId() {
+    return paymentId;
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentResult{" +
+        "row=" + row +
+        ", status=" + status +
+        ", paymentId=" + paymentId + "}";
+  }
+}
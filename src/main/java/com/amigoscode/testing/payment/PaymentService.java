@@ -1,57 +1,219 @@
 package com.amigoscode.testing.payment;
 
-import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.KnownCustomerIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class PaymentService {
+  private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
   public static final List<Currency> ACCEPTED_CURRENCIES = List.of(Currency.USD, Currency.GBP);
 
-  private final CustomerRepository customerRepository;
-  private final PaymentRepository paymentRepository;
+  private final KnownCustomerIds knownCustomerIds;
+  private final PaymentWriter paymentWriter;
   private final CardPaymentCharger cardPaymentCharger;
+  private final PaymentChargeExecutor paymentChargeExecutor;
+  private final PaymentWriteBehindBuffer paymentWriteBehindBuffer;
+  private final PaymentMetrics metrics;
 
   @Autowired
   public PaymentService(
-      CustomerRepository customerRepository,
-      PaymentRepository paymentRepository,
-      CardPaymentCharger cardPaymentCharger) {
-    this.customerRepository = customerRepository;
-    this.paymentRepository = paymentRepository;
+      KnownCustomerIds knownCustomerIds,
+      PaymentWriter paymentWriter,
+      CardPaymentCharger cardPaymentCharger,
+      PaymentChargeExecutor paymentChargeExecutor,
+      PaymentWriteBehindBuffer paymentWriteBehindBuffer,
+      PaymentMetrics metrics) {
+    this.knownCustomerIds = knownCustomerIds;
+    this.paymentWriter = paymentWriter;
     this.cardPaymentCharger = cardPaymentCharger;
+    this.paymentChargeExecutor = paymentChargeExecutor;
+    this.paymentWriteBehindBuffer = paymentWriteBehindBuffer;
+    this.metrics = metrics;
   }
 
   void chargeCard(UUID customerId, PaymentRequest paymentRequest) {
-    // throw if customer does not exist
-    if (!customerRepository.findById(customerId).isPresent()) {
-      throw new IllegalStateException(String.format("Customer with id %s not found", customerId));
+    Payment payment = paymentRequest.getPayment();
+
+    checkCustomerAndCurrency(customerId, payment);
+
+    CompletableFuture<Void> saved = savePayment(customerId, payment, charge(payment));
+
+    try {
+      saved.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  // checks run on the caller, the charge and the insert run once the charge executor gets to them
+  CompletableFuture<Void> chargeCardAsync(UUID customerId, PaymentRequest paymentRequest) {
+    Payment payment = paymentRequest.getPayment();
+
+    checkCustomerAndCurrency(customerId, payment);
+
+    return paymentChargeExecutor
+        .submit(() -> charge(payment))
+        .thenCompose(cardPaymentCharge -> savePayment(customerId, payment, cardPaymentCharge));
+  }
+
+  // customers are looked up once per batch, charges go out in one chargeCards call and paid rows in one saveAll
+  List<PaymentResult> chargeCards(List<PaymentRequest> paymentRequests) {
+    // refused as a whole before anything is charged
+    for (int row = 0; row < paymentRequests.size(); row++) {
+      if (paymentRequests.get(row) == null || paymentRequests.get(row).getPayment() == null) {
+        throw new IllegalStateException(String.format("Payment batch row %d has no payment", row));
+      }
+    }
+
+    PaymentResult[] results = new PaymentResult[paymentRequests.size()];
+    Map<UUID, Boolean> customerExists = new HashMap<>();
+    List<Integer> rows = new ArrayList<>();
+    List<CardPaymentChargeRequest> chargeRequests = new ArrayList<>();
+
+    for (int row = 0; row < paymentRequests.size(); row++) {
+      Payment payment = paymentRequests.get(row).getPayment();
+
+      UUID customerId = payment.getCustomerId();
+
+      if (customerId == null || !customerExists.computeIfAbsent(customerId, knownCustomerIds::exists)) {
+        metrics.unknownCustomer();
+        results[row] = new PaymentResult(row, PaymentResult.Status.CUSTOMER_NOT_FOUND, null);
+      } else if (!ACCEPTED_CURRENCIES.contains(payment.getCurrency())) {
+        metrics.unsupportedCurrency();
+        results[row] = new PaymentResult(row, PaymentResult.Status.CURRENCY_NOT_SUPPORTED, null);
+      } else {
+        rows.add(row);
+        chargeRequests.add(new CardPaymentChargeRequest(
+            payment.getSource(), payment.getMoney(), payment.getDescription()));
+      }
+    }
+
+    List<CardPaymentCharge> charges = chargeRequests.isEmpty()
+        ? List.of()
+        : cardPaymentCharger.chargeCards(chargeRequests);
+
+    List<Integer> paidRows = new ArrayList<>();
+    List<Payment> paid = new ArrayList<>();
+    List<Payment> saved = List.of();
+    for (int i = 0; i < rows.size(); i++) {
+      int row = rows.get(i);
+      switch (charges.get(i).getOutcome()) {
+        case DEBITED:
+          paidRows.add(row);
+          paid.add(paymentRequests.get(row).getPayment());
+          break;
+        case NOT_DEBITED:
+          metrics.cardNotDebited();
+          results[row] = new PaymentResult(row, PaymentResult.Status.CARD_NOT_DEBITED, null);
+          break;
+        case FAILED:
+          metrics.chargeFailed();
+          results[row] = new PaymentResult(row, PaymentResult.Status.CHARGE_FAILED, null);
+          break;
+        default:
+          metrics.chargeUnknown();
+          results[row] = new PaymentResult(row, PaymentResult.Status.CHARGE_UNKNOWN, null);
+      }
+    }
+
+    if (!paid.isEmpty()) {
+      long start = metrics.start();
+      try {
+        saved = paymentWriter.saveAll(paid);
+      } catch (RuntimeException e) {
+        // the cards are debited by now, so each of these rows says so rather than the batch failing bare
+        log.error("Cannot save {} charged payments", paid.size(), e);
+        for (int row : paidRows) {
+          metrics.saveFailed();
+          results[row] = new PaymentResult(row, PaymentResult.Status.SAVE_FAILED, null);
+        }
+        return List.of(results);
+      } finally {
+        metrics.recordSave(start);
+      }
+    }
+    for (int i = 0; i < paidRows.size(); i++) {
+      int row = paidRows.get(i);
+      results[row] = new PaymentResult(row, PaymentResult.Status.PAID, saved.get(i).getPaymentId());
+    }
+
+    return List.of(results);
+  }
+
+  private void checkCustomerAndCurrency(UUID customerId, Payment payment) {
+    // throw if customer does not exist; a payment without a customer id is refused like an unknown one
+    long start = metrics.start();
+    boolean customerExists = customerId != null && knownCustomerIds.exists(customerId);
+    metrics.recordCustomerLookup(start);
+
+    if (!customerExists) {
+      metrics.unknownCustomer();
+      throw new PaymentNotChargedException(String.format("Customer with id %s not found", customerId));
     }
 
     // throw if currency not supported
-    if (!ACCEPTED_CURRENCIES.contains(paymentRequest.getPayment().getCurrency())) {
-      throw new IllegalStateException(String.format("%s not supported", paymentRequest.getPayment().getCurrency()));
+    start = metrics.start();
+    boolean currencySupported = ACCEPTED_CURRENCIES.contains(payment.getCurrency());
+    metrics.recordCurrencyCheck(start);
+
+    if (!currencySupported) {
+      metrics.unsupportedCurrency();
+      throw new PaymentNotChargedException(String.format("%s not supported", payment.getCurrency()));
     }
+  }
 
-    // charge card
-    CardPaymentCharge cardPaymentCharge = cardPaymentCharger.chargeCard(
-        paymentRequest.getPayment().getSource(),
-        paymentRequest.getPayment().getAmount(),
-        paymentRequest.getPayment().getCurrency(),
-        paymentRequest.getPayment().getDescription()
-    );
+  private CardPaymentCharge charge(Payment payment) {
+    long start = metrics.start();
+    try {
+      return cardPaymentCharger.chargeCard(
+          payment.getSource(),
+          payment.getMoney(),
+          payment.getDescription()
+      );
+    } finally {
+      metrics.recordCharge(start);
+    }
+  }
 
+  private CompletableFuture<Void> savePayment(UUID customerId, Payment payment, CardPaymentCharge cardPaymentCharge) {
     // if not debited
     if (!cardPaymentCharge.isCardDebited()) {
-      throw new IllegalStateException(String.format("Card not debited for customer %s", customerId));
+      metrics.cardNotDebited();
+      throw new PaymentNotChargedException(String.format("Card not debited for customer %s", customerId));
     }
 
     // insert payment
-    paymentRequest.getPayment().setCustomerId(customerId);
+    payment.setCustomerId(customerId);
 
-    paymentRepository.save(paymentRequest.getPayment());
+    long start = metrics.start();
+
+    // with write-behind the save stage ends when the group commit lands
+    if (paymentWriteBehindBuffer.isEnabled()) {
+      return paymentWriteBehindBuffer.save(payment)
+          .whenComplete((saved, error) -> metrics.recordSave(start))
+          .thenApply(saved -> null);
+    }
+
+    try {
+      paymentWriter.save(payment);
+    } finally {
+      metrics.recordSave(start);
+    }
+    return CompletableFuture.completedFuture(null);
   }
 }
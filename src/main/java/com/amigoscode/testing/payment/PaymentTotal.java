@@ -0,0 +1,96 @@
+package com.amigoscode.testing.payment;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+// running total of a customer's payments in one currency, kept up to date by PaymentTotals
+@Entity
+@IdClass(PaymentTotal.Key.class)
+public class PaymentTotal {
+  @Id
+  private UUID customerId;
+
+  @Id
+  private Currency currency;
+
+  private long totalMinorUnits;
+
+  private long paymentCount;
+
+  public PaymentTotal() {}
+
+  public PaymentTotal(UUID customerId, Currency currency, long totalMinorUnits, long paymentCount) {
+    this.customerId = customerId;
+    this.currency = currency;
+    this.totalMinorUnits = totalMinorUnits;
+    this.paymentCount = paymentCount;
+  }
+
+  public UUID getCustomerId() {
+    return customerId;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  public long getTotalMinorUnits() {
+    return totalMinorUnits;
+  }
+
+  public long getPaymentCount() {
+    return paymentCount;
+  }
+
+  public BigDecimal getTotal() {
+    return Money.ofMinor(totalMinorUnits, currency).toBigDecimal();
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentTotal{" +
+        "customerId=" + customerId +
+        ", currency=" + currency +
+        ", totalMinorUnits=" + totalMinorUnits +
+        ", paymentCount=" + paymentCount +
+        '}';
+  }
+
+  public static class Key implements Serializable {
+    private UUID customerId;
+    private Currency currency;
+
+    public Key() {}
+
+    public Key(UUID customerId, Currency currency) {
+      this.customerId = customerId;
+      this.currency = currency;
+    }
+
+    public UUID getCustomerId() {
+      return customerId;
+    }
+
+    public Currency getCurrency() {
+      return currency;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return customerId.equals(key.customerId) && currency == key.currency;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(customerId, currency);
+    }
+  }
+}
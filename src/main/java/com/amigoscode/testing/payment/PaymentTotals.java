@@ -0,0 +1,205 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static com.amigoscode.testing.Utils.UuidBytes.fromBytes;
+import static com.amigoscode.testing.Utils.UuidBytes.toBytes;
+
+// per customer and currency payment totals: the payment_total row changes in the payment's own transaction,
+// the in-memory accumulators once it commits, so reads never aggregate payment rows
+@Component
+public class PaymentTotals {
+  private static final String SELECT_TOTALS =
+      "SELECT customer_id, currency, total_minor_units, payment_count FROM payment_total";
+  private static final String ADD_TO_TOTAL =
+      "UPDATE payment_total SET total_minor_units = total_minor_units + ?, payment_count = payment_count + ? "
+          + "WHERE customer_id = ? AND currency = ?";
+  private static final String INSERT_TOTAL =
+      "INSERT INTO payment_total (customer_id, currency, total_minor_units, payment_count) VALUES (?, ?, ?, ?)";
+  private static final String DELETE_TOTALS = "DELETE FROM payment_total";
+  private static final String REBUILD_TOTALS =
+      "INSERT INTO payment_total (customer_id, currency, total_minor_units, payment_count) "
+          + "SELECT customer_id, currency, SUM(amount), COUNT(*) FROM payment GROUP BY customer_id, currency";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+
+  // writers share the read side around their whole transaction, a rebuild takes the write side. Both are taken
+  // before a connection is, so nobody waiting for the lock holds a pooled connection the holder needs
+  private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+  private volatile Map<PaymentTotal.Key, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+  @Autowired
+  public PaymentTotals(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      @Value("${payment.totals.enabled:true}") boolean enabled) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+  }
+
+  @PostConstruct
+  void load() {
+    if (!enabled) {
+      return;
+    }
+
+    Map<PaymentTotal.Key, Accumulator> loaded = new ConcurrentHashMap<>();
+    jdbcTemplate.query(SELECT_TOTALS, (RowCallbackHandler) rs -> {
+      Accumulator accumulator = new Accumulator();
+      accumulator.add(rs.getLong(3), rs.getLong(4));
+      loaded.put(new PaymentTotal.Key(fromBytes(rs.getBytes(1)), Currency.values()[rs.getInt(2)]), accumulator);
+    });
+    accumulators = loaded;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // runs a payment transaction that records totals, it must not have started yet unless an outer call
+  // already holds the lock
+  public <T> T recording(Supplier<T> transaction) {
+    if (!enabled) {
+      return transaction.get();
+    }
+    if (TransactionSynchronizationManager.isActualTransactionActive() && rebuildLock.getReadHoldCount() == 0) {
+      throw new IllegalStateException("Payment totals must be locked before the payment transaction starts");
+    }
+
+    rebuildLock.readLock().lock();
+    try {
+      return transaction.get();
+    } finally {
+      rebuildLock.readLock().unlock();
+    }
+  }
+
+  // must run inside the transaction that inserts the payments, itself run by recording
+  public void record(List<Payment> payments) {
+    if (!enabled || payments.isEmpty()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("Payment totals must be recorded inside the payment transaction");
+    }
+    if (rebuildLock.getReadHoldCount() == 0) {
+      throw new IllegalStateException("Payment totals must be recorded in a transaction run by recording");
+    }
+
+    Map<PaymentTotal.Key, long[]> deltas = new HashMap<>();
+    for (Payment payment : payments) {
+      long[] delta = deltas.computeIfAbsent(
+          new PaymentTotal.Key(payment.getCustomerId(), payment.getCurrency()), key -> new long[2]);
+      delta[0] += payment.getMoney().getMinorUnits();
+      delta[1]++;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+      @Override
+      public void afterCommit() {
+        Map<PaymentTotal.Key, Accumulator> current = accumulators;
+        deltas.forEach((key, delta) -> current.computeIfAbsent(key, k -> new Accumulator()).add(delta[0], delta[1]));
+      }
+    });
+
+    deltas.forEach(this::addToTotal);
+  }
+
+  // one lookup per currency, each total and count pair is read from one update
+  public List<PaymentTotal> getTotals(UUID customerId) {
+    Map<PaymentTotal.Key, Accumulator> current = accumulators;
+    List<PaymentTotal> totals = new ArrayList<>();
+    for (Currency currency : Currency.values()) {
+      Accumulator accumulator = current.get(new PaymentTotal.Key(customerId, currency));
+      if (accumulator != null) {
+        totals.add(accumulator.toTotal(customerId, currency));
+      }
+    }
+    return totals;
+  }
+
+  // recomputes every total from the payment table, waiting for in-flight payment transactions first
+  public int rebuild() {
+    if (!enabled) {
+      throw new IllegalStateException("Payment totals are disabled");
+    }
+
+    rebuildLock.writeLock().lock();
+    try {
+      Integer rows = transactionTemplate.execute(status -> {
+        jdbcTemplate.update(DELETE_TOTALS);
+        return jdbcTemplate.update(REBUILD_TOTALS);
+      });
+      load();
+      return rows == null ? 0 : rows;
+    } finally {
+      rebuildLock.writeLock().unlock();
+    }
+  }
+
+  private void addToTotal(PaymentTotal.Key key, long[] delta) {
+    byte[] customerId = toBytes(key.getCustomerId());
+    int currency = key.getCurrency().ordinal();
+
+    if (jdbcTemplate.update(ADD_TO_TOTAL, delta[0], delta[1], customerId, currency) > 0) {
+      return;
+    }
+    try {
+      jdbcTemplate.update(INSERT_TOTAL, customerId, currency, delta[0], delta[1]);
+    } catch (DuplicateKeyException e) {
+      // a concurrent transaction created the row first
+      jdbcTemplate.update(ADD_TO_TOTAL, delta[0], delta[1], customerId, currency);
+    }
+  }
+
+  // striped so concurrent commits to one customer never contend. Writers bump started before and finished after
+  // their adds; a reader that sees both equal around its reads saw no add in flight, so total and count match
+  private static class Accumulator {
+    private final LongAdder minorUnits = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+
+    void add(long minorUnitsDelta, long countDelta) {
+      started.increment();
+      minorUnits.add(minorUnitsDelta);
+      count.add(countDelta);
+      finished.increment();
+    }
+
+    PaymentTotal toTotal(UUID customerId, Currency currency) {
+      while (true) {
+        long before = finished.sum();
+        long total = minorUnits.sum();
+        long payments = count.sum();
+        if (started.sum() == before) {
+          return new PaymentTotal(customerId, currency, total, payments);
+        }
+        Thread.onSpinWait();
+      }
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// POST /actuator/paymenttotals recomputes the running totals from the payment table
+@Component
+@Endpoint(id = "paymenttotals")
+public class PaymentTotalsEndpoint {
+  private final PaymentTotals paymentTotals;
+
+  @Autowired
+  public PaymentTotalsEndpoint(PaymentTotals paymentTotals) {
+    this.paymentTotals = paymentTotals;
+  }
+
+  @WriteOperation
+  public Map<String, Integer> rebuild() {
+    return Map.of("totals", paymentTotals.rebuild());
+  }
+}
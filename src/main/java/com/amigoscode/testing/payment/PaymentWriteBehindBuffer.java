@@ -0,0 +1,211 @@
+package com.amigoscode.testing.payment;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// group commit: saves from concurrent requests share one JDBC batch and one commit
+@Component
+public class PaymentWriteBehindBuffer {
+  private static final Logger log = LoggerFactory.getLogger(PaymentWriteBehindBuffer.class);
+
+  private final PaymentWriter paymentWriter;
+  private final boolean enabled;
+  private final int maxBatchSize;
+  private final long maxWaitNanos;
+  private final BlockingQueue<PendingPayment> queue;
+
+  private final DistributionSummary batchSizes;
+  private final Timer flushLatency;
+
+  private volatile boolean running;
+  private volatile boolean stopped;
+  private Thread flusher;
+
+  @Autowired
+  public PaymentWriteBehindBuffer(
+      PaymentWriter paymentWriter,
+      @Value("${payment.write-behind.enabled:false}") boolean enabled,
+      @Value("${payment.write-behind.max-batch-size:100}") int maxBatchSize,
+      @Value("${payment.write-behind.max-wait-ms:5}") long maxWaitMillis,
+      @Value("${payment.write-behind.queue-capacity:10000}") int queueCapacity,
+      MeterRegistry meterRegistry) {
+    this.paymentWriter = paymentWriter;
+    this.enabled = enabled;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+    this.batchSizes = DistributionSummary.builder("payment.write-behind.batch.size")
+        .publishPercentileHistogram()
+        .minimumExpectedValue(1L)
+        .maximumExpectedValue((long) maxBatchSize)
+        .register(meterRegistry);
+    this.flushLatency = Timer.builder("payment.write-behind.flush")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    Gauge.builder("payment.write-behind.queue.depth", queue, BlockingQueue::size)
+        .register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // completes once the payment is committed
+  public CompletableFuture<Payment> save(Payment payment) {
+    if (stopped) {
+      throw new IllegalStateException("Payment write-behind buffer is stopped");
+    }
+
+    PendingPayment pendingPayment = new PendingPayment(payment);
+    if (!queue.offer(pendingPayment)) {
+      throw new IllegalStateException("Payment write-behind queue is full");
+    }
+    // raced with stop() after the flusher drained the queue; take it back unless stop() already failed it
+    if (stopped && queue.remove(pendingPayment)) {
+      throw new IllegalStateException("Payment write-behind buffer is stopped");
+    }
+    return pendingPayment.committed;
+  }
+
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+
+    running = true;
+    flusher = new Thread(this::run, "payment-write-behind");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    if (flusher == null) {
+      return;
+    }
+
+    stopped = true;
+    running = false;
+    flusher.join();
+
+    // saves that slipped in after the last flush
+    List<PendingPayment> left = new ArrayList<>();
+    queue.drainTo(left);
+    fail(left, new IllegalStateException("Payment write-behind buffer is stopped"));
+  }
+
+  private void run() {
+    List<PendingPayment> batch = new ArrayList<>(maxBatchSize);
+
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingPayment first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+
+        // keep collecting until the batch is full or the oldest save has waited long enough
+        long deadline = first.enqueuedAt + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+          long remaining = deadline - System.nanoTime();
+          PendingPayment next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+
+        flushOrFail(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+        if (!batch.isEmpty()) {
+          flushOrFail(batch);
+        }
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void flushOrFail(List<PendingPayment> batch) {
+    try {
+      flush(batch);
+    } catch (RuntimeException e) {
+      log.error("Payment write-behind flush failed", e);
+      fail(batch, e);
+    }
+  }
+
+  // no-op for futures the flush already completed
+  private static void fail(List<PendingPayment> batch, RuntimeException e) {
+    batch.forEach(pendingPayment -> pendingPayment.committed.completeExceptionally(e));
+  }
+
+  void flush(List<PendingPayment> batch) {
+    long start = System.nanoTime();
+    List<Payment> payments = new ArrayList<>(batch.size());
+    for (PendingPayment pendingPayment : batch) {
+      payments.add(pendingPayment.payment);
+    }
+
+    try {
+      List<Payment> saved = paymentWriter.saveAll(payments);
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).saved = saved.get(i);
+      }
+    } catch (RuntimeException e) {
+      // one bad row must not fail the rest, so fall back to a commit per payment
+      for (PendingPayment pendingPayment : batch) {
+        try {
+          pendingPayment.saved = paymentWriter.save(pendingPayment.payment);
+        } catch (RuntimeException rowException) {
+          pendingPayment.failure = rowException;
+        }
+      }
+    }
+
+    // recorded before the futures complete, so a caller that saw its save commit also sees this flush
+    batchSizes.record(batch.size());
+    flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+    for (PendingPayment pendingPayment : batch) {
+      if (pendingPayment.failure == null) {
+        pendingPayment.committed.complete(pendingPayment.saved);
+      } else {
+        pendingPayment.committed.completeExceptionally(pendingPayment.failure);
+      }
+    }
+  }
+
+  static class PendingPayment {
+    private final Payment payment;
+    private final long enqueuedAt = System.nanoTime();
+    private final CompletableFuture<Payment> committed = new CompletableFuture<>();
+    private Payment saved;
+    private RuntimeException failure;
+
+    PendingPayment(Payment payment) {
+      this.payment = payment;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// the persistence step of a charge: payment rows, their running totals and their outbox events commit together.
+// Each call runs its own transaction, started only once the totals are locked for recording
+@Component
+public class PaymentWriter {
+  private final PaymentRepository paymentRepository;
+  private final PaymentTotals paymentTotals;
+  private final PaymentOutbox paymentOutbox;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public PaymentWriter(
+      PaymentRepository paymentRepository,
+      PaymentTotals paymentTotals,
+      PaymentOutbox paymentOutbox,
+      PlatformTransactionManager transactionManager) {
+    this.paymentRepository = paymentRepository;
+    this.paymentTotals = paymentTotals;
+    this.paymentOutbox = paymentOutbox;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  // ids always come from the sequence: a client's id, or one a rolled-back batch left on the entity,
+  // would turn the insert into a merge over whichever row has that id
+  public Payment save(Payment payment) {
+    return saveAll(List.of(payment)).get(0);
+  }
+
+  public List<Payment> saveAll(List<Payment> payments) {
+    return paymentTotals.recording(() -> transactionTemplate.execute(status -> {
+      payments.forEach(payment -> payment.setPaymentId(null));
+      List<Payment> saved = new ArrayList<>(payments.size());
+      paymentRepository.saveAll(payments).forEach(saved::add);
+      paymentTotals.record(saved);
+      paymentOutbox.record(saved);
+      return saved;
+    }));
+  }
+}
@@ -0,0 +1,8 @@
+package com.amigoscode.testing.payment;
+
+import reactor.core.publisher.Mono;
+
+// non-blocking charger contract for the reactive stack; the charge only starts on subscription
+public interface ReactiveCardPaymentCharger {
+  Mono<CardPaymentCharge> charge(CardPaymentChargeRequest request);
+}
@@ -0,0 +1,35 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// serves the reactive stack from the active CardPaymentCharger: natively when it is non-blocking too,
+// otherwise on the bounded elastic scheduler so a blocking stripe call never runs on an event loop
+@Component
+@Primary
+@Profile("reactive")
+public class ReactiveCardPaymentChargerAdapter implements ReactiveCardPaymentCharger {
+  private final CardPaymentCharger cardPaymentCharger;
+
+  @Autowired
+  public ReactiveCardPaymentChargerAdapter(CardPaymentCharger cardPaymentCharger) {
+    this.cardPaymentCharger = cardPaymentCharger;
+  }
+
+  @Override
+  public Mono<CardPaymentCharge> charge(CardPaymentChargeRequest request) {
+    if (cardPaymentCharger instanceof ReactiveCardPaymentCharger) {
+      return ((ReactiveCardPaymentCharger) cardPaymentCharger).charge(request);
+    }
+
+    return Mono.fromCallable(() -> cardPaymentCharger.chargeCard(
+        request.getCardSource(),
+        request.getAmount(),
+        request.getDescription()))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+}
@@ -0,0 +1,26 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("api/v1/payment")
+public class ReactivePaymentController {
+  private final ReactivePaymentService paymentService;
+
+  @Autowired
+  public ReactivePaymentController(ReactivePaymentService paymentService) {
+    this.paymentService = paymentService;
+  }
+
+  @PostMapping
+  public Mono<Void> makePayment(@RequestBody PaymentRequest request) {
+    return paymentService.chargeCard(request.getPayment().getCustomerId(), request);
+  }
+}
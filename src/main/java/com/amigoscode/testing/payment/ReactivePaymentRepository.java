@@ -0,0 +1,26 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// reactive saves go through PaymentWriter like every other payment, so the payment row, its running total
+// and its outbox event commit together. The totals are locked per thread around the JDBC transaction, which
+// an R2DBC transaction spread over event loop threads cannot do, so the write runs on a bounded scheduler
+@Repository
+@Profile("reactive")
+public class ReactivePaymentRepository {
+  private final PaymentWriter paymentWriter;
+
+  @Autowired
+  public ReactivePaymentRepository(PaymentWriter paymentWriter) {
+    this.paymentWriter = paymentWriter;
+  }
+
+  // like PaymentWriter, any id already on the payment is replaced by one from the sequence
+  public Mono<Payment> save(Payment payment) {
+    return Mono.fromCallable(() -> paymentWriter.save(payment)).subscribeOn(Schedulers.boundedElastic());
+  }
+}
@@ -0,0 +1,67 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.customer.ReactiveCustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static com.amigoscode.testing.payment.PaymentService.ACCEPTED_CURRENCIES;
+
+// same checks and order as PaymentService.chargeCard, each step a non-blocking call
+@Service
+@Profile("reactive")
+public class ReactivePaymentService {
+  private final ReactiveCustomerRepository customerRepository;
+  private final ReactivePaymentRepository paymentRepository;
+  private final ReactiveCardPaymentCharger cardPaymentCharger;
+  private final PaymentMetrics metrics;
+
+  @Autowired
+  public ReactivePaymentService(
+      ReactiveCustomerRepository customerRepository,
+      ReactivePaymentRepository paymentRepository,
+      ReactiveCardPaymentCharger cardPaymentCharger,
+      PaymentMetrics metrics) {
+    this.customerRepository = customerRepository;
+    this.paymentRepository = paymentRepository;
+    this.cardPaymentCharger = cardPaymentCharger;
+    this.metrics = metrics;
+  }
+
+  public Mono<Void> chargeCard(UUID customerId, PaymentRequest paymentRequest) {
+    Payment payment = paymentRequest.getPayment();
+
+    return customerRepository.existsById(customerId)
+        .flatMap(customerExists -> {
+          // throw if customer does not exist
+          if (!customerExists) {
+            metrics.unknownCustomer();
+            return Mono.error(new IllegalStateException(String.format("Customer with id %s not found", customerId)));
+          }
+
+          // throw if currency not supported
+          if (!ACCEPTED_CURRENCIES.contains(payment.getCurrency())) {
+            metrics.unsupportedCurrency();
+            return Mono.error(new IllegalStateException(String.format("%s not supported", payment.getCurrency())));
+          }
+
+          return cardPaymentCharger.charge(
+              new CardPaymentChargeRequest(payment.getSource(), payment.getMoney(), payment.getDescription()));
+        })
+        .flatMap(cardPaymentCharge -> {
+          // if not debited
+          if (!cardPaymentCharge.isCardDebited()) {
+            metrics.cardNotDebited();
+            return Mono.error(new IllegalStateException(String.format("Card not debited for customer %s", customerId)));
+          }
+
+          // insert payment
+          payment.setCustomerId(customerId);
+          return paymentRepository.save(payment);
+        })
+        .then();
+  }
+}
@@ -0,0 +1,258 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.CircuitBreaker;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// deadline, bulkhead and circuit breaker around any charger, plus a hedged second attempt for idempotent ones
+public class ResilientCardPaymentCharger implements CardPaymentCharger, ReactiveCardPaymentCharger, AutoCloseable {
+  private final CardPaymentCharger delegate;
+  private final long timeoutMillis;
+  private final Semaphore bulkhead;
+  private final long bulkheadMaxWaitMillis;
+  private final CircuitBreaker circuitBreaker;
+  private final long hedgeDelayMillis;
+
+  // never more threads than bulkhead permits, every attempt holds one
+  private final ExecutorService executor = Executors.newCachedThreadPool(new ChargerThreadFactory("payment-charger-"));
+  private final ExecutorService batchExecutor;
+
+  public ResilientCardPaymentCharger(
+      CardPaymentCharger delegate,
+      long timeoutMillis,
+      int maxConcurrentCalls,
+      long bulkheadMaxWaitMillis,
+      CircuitBreaker circuitBreaker,
+      long hedgeDelayMillis) {
+    this.delegate = delegate;
+    this.timeoutMillis = timeoutMillis;
+    this.bulkhead = new Semaphore(maxConcurrentCalls);
+    this.bulkheadMaxWaitMillis = bulkheadMaxWaitMillis;
+    this.circuitBreaker = circuitBreaker;
+    this.hedgeDelayMillis = hedgeDelayMillis;
+    this.batchExecutor = Executors.newFixedThreadPool(
+        maxConcurrentCalls, new ChargerThreadFactory("payment-charger-batch-"));
+  }
+
+  @Override
+  public CardPaymentCharge chargeCard(
+      String cardSource,
+      Money amount,
+      String description
+  ) {
+    acquirePermit();
+
+    // a full bulkhead is our limit, not a processor failure, so the breaker is only asked once we have a permit
+    if (!circuitBreaker.tryAcquire()) {
+      bulkhead.release();
+      throw new PaymentNotChargedException("Card payment charger circuit is open");
+    }
+
+    boolean succeeded = false;
+    try {
+      CardPaymentCharge charge = call(cardSource, amount, description);
+      succeeded = true;
+      return charge;
+    } finally {
+      if (succeeded) {
+        circuitBreaker.onSuccess();
+      } else {
+        circuitBreaker.onFailure();
+      }
+    }
+  }
+
+  // every item goes through the same deadline, bulkhead and breaker as a single charge
+  @Override
+  public List<CardPaymentCharge> chargeCards(List<CardPaymentChargeRequest> requests) {
+    return ParallelCardPaymentCharges.chargeAll(this, requests, batchExecutor);
+  }
+
+  // the same bulkhead, breaker and deadline for the reactive stack. A non-blocking delegate is called natively and a
+  // full bulkhead fails at once rather than block an event loop; it is not hedged. Any other delegate goes through
+  // chargeCard on the bounded elastic scheduler
+  @Override
+  public Mono<CardPaymentCharge> charge(CardPaymentChargeRequest request) {
+    if (!(delegate instanceof ReactiveCardPaymentCharger)) {
+      return Mono.fromCallable(() -> chargeCard(
+          request.getCardSource(),
+          request.getAmount(),
+          request.getDescription()))
+          .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    return Mono.defer(() -> {
+      if (!bulkhead.tryAcquire()) {
+        return Mono.error(new PaymentNotChargedException("Too many concurrent card payment charges"));
+      }
+      if (!circuitBreaker.tryAcquire()) {
+        bulkhead.release();
+        return Mono.error(new PaymentNotChargedException("Card payment charger circuit is open"));
+      }
+
+      // as on the blocking path the permit goes back when the processor answers, not when we stop waiting: the
+      // call runs on to completion past a timeout or a cancelled caller, who sees it counted as a failure
+      Mono<CardPaymentCharge> call = Mono.defer(() -> ((ReactiveCardPaymentCharger) delegate).charge(request))
+          .doOnTerminate(bulkhead::release)
+          .cache();
+      call.subscribe(charge -> { }, error -> { });
+
+      AtomicBoolean finished = new AtomicBoolean();
+      return call
+          .timeout(Duration.ofMillis(timeoutMillis))
+          .onErrorMap(TimeoutException.class, e -> new IllegalStateException(String.format(
+              "Card payment charge timed out after %d ms, the card may have been debited", timeoutMillis), e))
+          .doOnSuccess(charge -> finish(finished, charge != null))
+          .doOnError(e -> finish(finished, false))
+          .doOnCancel(() -> finish(finished, false));
+    });
+  }
+
+  private void finish(AtomicBoolean finished, boolean succeeded) {
+    if (!finished.compareAndSet(false, true)) {
+      return;
+    }
+    if (succeeded) {
+      circuitBreaker.onSuccess();
+    } else {
+      circuitBreaker.onFailure();
+    }
+  }
+
+  @Override
+  public boolean isIdempotent() {
+    return delegate.isIdempotent();
+  }
+
+  public CircuitBreaker.State getCircuitState() {
+    return circuitBreaker.getState();
+  }
+
+  public int getAvailablePermits() {
+    return bulkhead.availablePermits();
+  }
+
+  // the container only ever sees this wrapper, so the delegate's own shutdown has to be passed on from here
+  @Override
+  public void close() {
+    batchExecutor.shutdownNow();
+    executor.shutdownNow();
+    if (delegate instanceof DisposableBean) {
+      try {
+        ((DisposableBean) delegate).destroy();
+      } catch (Exception e) {
+        throw new IllegalStateException("Cannot shut down card payment charger", e);
+      }
+    }
+  }
+
+  private CardPaymentCharge call(String cardSource, Money amount, String description) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    CompletableFuture<CardPaymentCharge> result = new CompletableFuture<>();
+    AtomicInteger pendingAttempts = new AtomicInteger(1);
+
+    attempt(result, pendingAttempts, cardSource, amount, description);
+
+    try {
+      if (delegate.isIdempotent() && hedgeDelayMillis > 0 && hedgeDelayMillis < timeoutMillis) {
+        try {
+          return result.get(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          // only hedge with a spare permit, a hedge must never queue behind the calls it is meant to overtake
+          if (!result.isDone() && bulkhead.tryAcquire()) {
+            pendingAttempts.incrementAndGet();
+            attempt(result, pendingAttempts, cardSource, amount, description);
+          }
+        }
+      }
+
+      return result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      // the call is still with the processor and may yet debit the card, so this is not a decline and
+      // callers must not treat it as safe to retry
+      throw new IllegalStateException(String.format(
+          "Card payment charge timed out after %d ms, the card may have been debited", timeoutMillis), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Cannot make card payment charge", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while making card payment charge, the card may have been debited", e);
+    }
+  }
+
+  // runs with a permit already held; the permit goes back when the processor answers, not when we stop waiting,
+  // and before the result completes so a caller that has its charge also sees the permit free
+  private void attempt(
+      CompletableFuture<CardPaymentCharge> result,
+      AtomicInteger pendingAttempts,
+      String cardSource,
+      Money amount,
+      String description) {
+    try {
+      executor.execute(() -> {
+        CardPaymentCharge charge;
+        try {
+          charge = delegate.chargeCard(cardSource, amount, description);
+        } catch (RuntimeException e) {
+          bulkhead.release();
+          if (pendingAttempts.decrementAndGet() == 0) {
+            result.completeExceptionally(e);
+          }
+          return;
+        }
+        bulkhead.release();
+        result.complete(charge);
+      });
+    } catch (RejectedExecutionException e) {
+      bulkhead.release();
+      if (pendingAttempts.decrementAndGet() == 0) {
+        result.completeExceptionally(new PaymentNotChargedException("Card payment charger is shut down", e));
+      }
+    }
+  }
+
+  private void acquirePermit() {
+    try {
+      if (!bulkhead.tryAcquire(bulkheadMaxWaitMillis, TimeUnit.MILLISECONDS)) {
+        throw new PaymentNotChargedException("Too many concurrent card payment charges");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PaymentNotChargedException("Interrupted while waiting for a card payment charge slot", e);
+    }
+  }
+
+  private static class ChargerThreadFactory implements ThreadFactory {
+    private final String prefix;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    ChargerThreadFactory(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
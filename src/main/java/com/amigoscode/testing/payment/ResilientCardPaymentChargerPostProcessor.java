@@ -0,0 +1,60 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// wraps whichever charger is active (stripe, mock or fault injecting) in a ResilientCardPaymentCharger
+@Component
+@ConditionalOnProperty(
+    value = "payment.charger.resilience.enabled",
+    havingValue = "true"
+)
+public class ResilientCardPaymentChargerPostProcessor implements BeanPostProcessor {
+  private final long timeoutMillis;
+  private final int maxConcurrentCalls;
+  private final long bulkheadMaxWaitMillis;
+  private final double failureRateThreshold;
+  private final int slidingWindowSize;
+  private final int minimumCalls;
+  private final long openMillis;
+  private final long hedgeDelayMillis;
+
+  @Autowired
+  public ResilientCardPaymentChargerPostProcessor(
+      @Value("${payment.charger.timeout-ms:2000}") long timeoutMillis,
+      @Value("${payment.charger.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+      @Value("${payment.charger.bulkhead.max-wait-ms:100}") long bulkheadMaxWaitMillis,
+      @Value("${payment.charger.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+      @Value("${payment.charger.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+      @Value("${payment.charger.circuit-breaker.minimum-calls:10}") int minimumCalls,
+      @Value("${payment.charger.circuit-breaker.open-ms:10000}") long openMillis,
+      @Value("${payment.charger.hedge.delay-ms:0}") long hedgeDelayMillis) {
+    this.timeoutMillis = timeoutMillis;
+    this.maxConcurrentCalls = maxConcurrentCalls;
+    this.bulkheadMaxWaitMillis = bulkheadMaxWaitMillis;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slidingWindowSize = slidingWindowSize;
+    this.minimumCalls = minimumCalls;
+    this.openMillis = openMillis;
+    this.hedgeDelayMillis = hedgeDelayMillis;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (!(bean instanceof CardPaymentCharger) || bean instanceof ResilientCardPaymentCharger) {
+      return bean;
+    }
+
+    return new ResilientCardPaymentCharger(
+        (CardPaymentCharger) bean,
+        timeoutMillis,
+        maxConcurrentCalls,
+        bulkheadMaxWaitMillis,
+        new CircuitBreaker(failureRateThreshold, slidingWindowSize, minimumCalls, openMillis),
+        hedgeDelayMillis);
+  }
+}
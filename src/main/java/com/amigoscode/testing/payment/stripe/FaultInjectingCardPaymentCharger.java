@@ -0,0 +1,76 @@
+package com.amigoscode.testing.payment.stripe;
+
+import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.CardPaymentChargeRequest;
+import com.amigoscode.testing.payment.CardPaymentCharger;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.ReactiveCardPaymentCharger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// local stand-in for stripe that adds latency and fails a share of the charges
+@Service
+@ConditionalOnProperty(
+    value = "stripe.enabled",
+    havingValue = "fault"
+)
+public class FaultInjectingCardPaymentCharger implements CardPaymentCharger, ReactiveCardPaymentCharger {
+  private final long latencyMillis;
+  private final long jitterMillis;
+  private final double errorRate;
+
+  @Autowired
+  public FaultInjectingCardPaymentCharger(
+      @Value("${stripe.fault.latency-ms:50}") long latencyMillis,
+      @Value("${stripe.fault.jitter-ms:50}") long jitterMillis,
+      @Value("${stripe.fault.error-rate:0.05}") double errorRate) {
+    this.latencyMillis = latencyMillis;
+    this.jitterMillis = jitterMillis;
+    this.errorRate = errorRate;
+  }
+
+  @Override
+  public CardPaymentCharge chargeCard(
+      String cardSource,
+      Money amount,
+      String description
+  ) {
+    try {
+      Thread.sleep(nextDelayMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Cannot make stripe charge", e);
+    }
+
+    return nextCharge();
+  }
+
+  // same latency and failures on a timer instead of a sleeping thread
+  @Override
+  public Mono<CardPaymentCharge> charge(CardPaymentChargeRequest request) {
+    return Mono.delay(Duration.ofMillis(nextDelayMillis())).map(ignored -> nextCharge());
+  }
+
+  private long nextDelayMillis() {
+    return latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+  }
+
+  private CardPaymentCharge nextCharge() {
+    if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+      throw new IllegalStateException("Cannot make stripe charge: injected failure");
+    }
+
+    return new CardPaymentCharge(true);
+  }
+
+  @Override
+  public boolean isIdempotent() {
+    return true;
+  }
+}
@@ -1,26 +1,44 @@
 package com.amigoscode.testing.payment.stripe;
 
 import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.CardPaymentChargeRequest;
 import com.amigoscode.testing.payment.CardPaymentCharger;
-import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.ReactiveCardPaymentCharger;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
-import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 
 @Service
 @ConditionalOnProperty(
     value = "stripe.enabled",
     havingValue = "false"
 )
-public class MockStripeService implements CardPaymentCharger {
+public class MockStripeService implements CardPaymentCharger, ReactiveCardPaymentCharger {
   @Override
   public CardPaymentCharge chargeCard(
       String cardSource,
-      BigDecimal amount,
-      Currency currency,
+      Money amount,
       String description
   ) {
     return new CardPaymentCharge(true);
   }
+
+  @Override
+  public List<CardPaymentCharge> chargeCards(List<CardPaymentChargeRequest> requests) {
+    return Collections.nCopies(requests.size(), new CardPaymentCharge(true));
+  }
+
+  @Override
+  public Mono<CardPaymentCharge> charge(CardPaymentChargeRequest request) {
+    return Mono.just(new CardPaymentCharge(true));
+  }
+
+  @Override
+  public boolean isIdempotent() {
+    return true;
+  }
 }
@@ -1,43 +1,60 @@
 package com.amigoscode.testing.payment.stripe;
 
 import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.CardPaymentChargeRequest;
 import com.amigoscode.testing.payment.CardPaymentCharger;
-import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.ParallelCardPaymentCharges;
 import com.stripe.model.Charge;
 import com.stripe.net.RequestOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @ConditionalOnProperty(
     value = "stripe.enabled",
     havingValue = "true"
 )
-public class StripeService implements CardPaymentCharger {
+public class StripeService implements CardPaymentCharger, DisposableBean {
   private final StripeApi stripeApi;
   private final static RequestOptions requestOptions = RequestOptions
       .builder()
       .setApiKey("sk_test_4eC39HqLyjWDarjtT1zdp7dc")
       .build();
 
+  private final ExecutorService batchExecutor;
+
   public StripeService(StripeApi stripeApi) {
+    this(stripeApi, 8);
+  }
+
+  @Autowired
+  public StripeService(StripeApi stripeApi, @Value("${stripe.batch.parallelism:8}") int batchParallelism) {
     this.stripeApi = stripeApi;
+    this.batchExecutor = Executors.newFixedThreadPool(batchParallelism, new BatchThreadFactory());
   }
 
   @Override
   public CardPaymentCharge chargeCard(
       String cardSource,
-      BigDecimal amount,
-      Currency currency,
+      Money amount,
       String description
   ) {
     Map<String, Object> params = new HashMap<>();
-    params.put("amount", amount);
-    params.put("currency", currency);
+    // stripe charges in integer minor units
+    params.put("amount", amount.getMinorUnits());
+    params.put("currency", amount.getCurrency());
     params.put("source", cardSource);
     params.put("description", description);
 
@@ -48,4 +65,27 @@ public class StripeService implements CardPaymentCharger {
       throw new IllegalStateException("Cannot make stripe charge", e);
     }
   }
+
+  // stripe has no bulk charge call, so a batch is at most batchParallelism single charges at a time
+  @Override
+  public List<CardPaymentCharge> chargeCards(List<CardPaymentChargeRequest> requests) {
+    return ParallelCardPaymentCharges.chargeAll(this, requests, batchExecutor);
+  }
+
+  // a DisposableBean rather than @PreDestroy, so a wrapper the container holds instead of this bean can pass it on
+  @Override
+  public void destroy() {
+    batchExecutor.shutdown();
+  }
+
+  private static class BatchThreadFactory implements ThreadFactory {
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "stripe-batch-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
@@ -0,0 +1,136 @@
+package com.amigoscode.testing;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FastJsonCodecsTest {
+  private final ObjectMapper databind = new ObjectMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  private final ObjectMapper underTest = new ObjectMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .registerModule(new FastJsonCodecs());
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "{\"payment\":{\"paymentId\":1,\"customerId\":\"123e4567-e89b-12d3-a456-426614174000\","
+          + "\"amount\":100.00,\"currency\":\"GBP\",\"source\":\"card123xx\",\"description\":\"Donation\"}}",
+      "{\"payment\":{\"currency\":\"USD\",\"amount\":7,\"unknown\":{\"a\":[1,2]},\"paymentId\":2}}",
+      "{\"payment\":{\"amount\":\"12.5\",\"currency\":\"EUR\",\"paymentId\":3}}",
+      "{\"payment\":{\"amount\":1.5e2,\"currency\":\"EUR\",\"paymentId\":4}}",
+      "{\"payment\":{\"amount\":-0.01,\"currency\":\"USD\",\"paymentId\":5,\"customerId\":null}}",
+      "{\"payment\":{\"paymentId\":\"6\",\"source\":42,\"description\":true}}"
+  })
+  void itShouldReadPaymentRequestsLikeDatabind(String json) throws Exception {
+    // When
+    Payment expected = databind.readValue(json, PaymentRequest.class).getPayment();
+    Payment payment = underTest.readValue(json, PaymentRequest.class).getPayment();
+
+    // Then
+    assertThat(payment).isEqualToComparingFieldByField(expected);
+    assertThat(payment.getMoney()).isEqualTo(expected.getMoney());
+  }
+
+  @Test
+  void itShouldReadNullPayment() throws Exception {
+    assertThat(underTest.readValue("{\"payment\":null}", PaymentRequest.class).getPayment()).isNull();
+    assertThat(underTest.readValue("{}", PaymentRequest.class).getPayment()).isNull();
+  }
+
+  @Test
+  void itShouldReadPaymentRequestBatches() throws Exception {
+    // Given
+    String json = "[{\"payment\":{\"amount\":1,\"currency\":\"USD\"}},"
+        + "{\"payment\":{\"amount\":2.50,\"currency\":\"GBP\"}}]";
+
+    // When
+    List<PaymentRequest> requests = underTest.readValue(json, new TypeReference<List<PaymentRequest>>() {});
+
+    // Then
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(0).getPayment().getMoney().getMinorUnits()).isEqualTo(100);
+    assertThat(requests.get(1).getPayment().getMoney().getMinorUnits()).isEqualTo(250);
+    assertThat(requests.get(1).getPayment().getCurrency()).isEqualTo(Currency.GBP);
+  }
+
+  @Test
+  void itShouldRejectAmountsFinerThanMinorUnit() {
+    assertThatThrownBy(() -> underTest.readValue(
+        "{\"payment\":{\"amount\":1.234,\"currency\":\"USD\"}}", PaymentRequest.class))
+        .isInstanceOf(JsonMappingException.class)
+        .hasMessageContaining("not a whole number of USD minor units");
+  }
+
+  @Test
+  void itShouldRejectUnknownCurrency() {
+    assertThatThrownBy(() -> underTest.readValue(
+        "{\"payment\":{\"amount\":1.2,\"currency\":\"XYZ\"}}", PaymentRequest.class))
+        .isInstanceOf(JsonMappingException.class)
+        .hasMessageContaining("XYZ");
+  }
+
+  @Test
+  void itShouldRejectMalformedCustomerId() {
+    assertThatThrownBy(() -> underTest.readValue(
+        "{\"payment\":{\"customerId\":\"nope\"}}", PaymentRequest.class))
+        .isInstanceOf(JsonMappingException.class)
+        .hasMessageContaining("nope");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "{\"payment\":{\"paymentId\":\"abc\",\"amount\":1,\"currency\":\"USD\"}}",
+      "{\"payment\":{\"paymentId\":{\"id\":1},\"amount\":1,\"currency\":\"USD\"}}",
+      "{\"payment\":{\"source\":{\"card\":\"x\"},\"amount\":1,\"currency\":\"USD\"}}",
+      "{\"payment\":{\"description\":[\"a\",\"b\"],\"amount\":1,\"currency\":\"USD\"}}"
+  })
+  void itShouldRejectPaymentFieldsDatabindRejects(String json) {
+    assertThatThrownBy(() -> databind.readValue(json, PaymentRequest.class))
+        .isInstanceOf(JsonMappingException.class);
+    assertThatThrownBy(() -> underTest.readValue(json, PaymentRequest.class))
+        .isInstanceOf(JsonMappingException.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "{\"customer\":{\"name\":{\"first\":\"Alex\"},\"phoneNumber\":\"+447000000000\"}}",
+      "{\"customer\":{\"name\":\"Alex\",\"phoneNumber\":[\"+447000000000\"]}}"
+  })
+  void itShouldRejectCustomerFieldsDatabindRejects(String json) {
+    assertThatThrownBy(() -> databind.readValue(json, CustomerRegistrationRequest.class))
+        .isInstanceOf(JsonMappingException.class);
+    assertThatThrownBy(() -> underTest.readValue(json, CustomerRegistrationRequest.class))
+        .isInstanceOf(JsonMappingException.class);
+  }
+
+  @Test
+  void itShouldReadCustomerRegistrationRequestsLikeDatabind() throws Exception {
+    // Given
+    UUID id = UUID.randomUUID();
+    String json = String.format(
+        "{\"customer\":{\"id\":\"%s\",\"unknown\":[true],\"name\":\"Alex\",\"phoneNumber\":\"+447000000000\"}}", id);
+
+    // When
+    Customer expected = databind.readValue(json, CustomerRegistrationRequest.class).getCustomer();
+    Customer customer = underTest.readValue(json, CustomerRegistrationRequest.class).getCustomer();
+
+    // Then
+    assertThat(customer).isEqualToComparingFieldByField(expected);
+    assertThat(customer.getId()).isEqualTo(id);
+  }
+}
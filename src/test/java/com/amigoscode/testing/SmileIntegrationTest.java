@@ -0,0 +1,107 @@
+package com.amigoscode.testing;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentHistoryRepository;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SmileIntegrationTest {
+  private static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+  private final ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+
+  @Autowired
+  private PaymentHistoryRepository paymentHistoryRepository;
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void itShouldRegisterAndPayWithSmileBodies() throws Exception {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    mockMvc.perform(put("/api/v1/customer-registration")
+        .contentType(APPLICATION_SMILE)
+        .content(smile.writeValueAsBytes(
+            new CustomerRegistrationRequest(new Customer(customerId, "Sam", "+447000000456")))))
+        .andExpect(status().isOk());
+
+    Payment payment = new Payment(42L, customerId, new BigDecimal("12.50"), Currency.GBP, "card123xx", "books");
+
+    // When
+    MvcResult paymentResult = mockMvc.perform(post("/api/v1/payment")
+        .contentType(APPLICATION_SMILE)
+        .content(smile.writeValueAsBytes(new PaymentRequest(payment))))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(paymentResult)).andExpect(status().isOk());
+
+    // Then
+    List<Payment> payments = new ArrayList<>();
+    paymentHistoryRepository.forEachPayment(customerId, 0, 10, payments::add);
+    assertThat(payments)
+        .extracting(Payment::getMoney)
+        .containsExactly(payment.getMoney());
+  }
+
+  @Test
+  void itShouldAnswerInSmileWhenAsked() throws Exception {
+    // Given
+    Payment payment = new Payment(null, UUID.randomUUID(), new BigDecimal("1.00"), Currency.USD, "card", "tea");
+
+    // When
+    byte[] body = mockMvc.perform(post("/api/v1/payment/batch")
+        .contentType(APPLICATION_SMILE)
+        .accept(APPLICATION_SMILE)
+        .content(smile.writeValueAsBytes(List.of(new PaymentRequest(payment)))))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(APPLICATION_SMILE))
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray();
+
+    // Then
+    JsonNode results = smile.readTree(body);
+    assertThat(results.get(0).get("status").asText()).isEqualTo("CUSTOMER_NOT_FOUND");
+  }
+
+  @Test
+  void itShouldRejectSmileAmountsFinerThanMinorUnit() throws Exception {
+    // Given
+    byte[] body = smile.writeValueAsBytes(Map.of("payment", Map.of(
+        "customerId", UUID.randomUUID(),
+        "amount", new BigDecimal("1.005"),
+        "currency", "GBP")));
+
+    // Then
+    mockMvc.perform(post("/api/v1/payment").contentType(APPLICATION_SMILE).content(body))
+        .andExpect(status().isBadRequest());
+  }
+}
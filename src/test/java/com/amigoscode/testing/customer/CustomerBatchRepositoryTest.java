@@ -0,0 +1,42 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+@Import(CustomerBatchRepository.class)
+public class CustomerBatchRepositoryTest {
+  private final CustomerBatchRepository underTest;
+  private final CustomerRepository customerRepository;
+
+  @Autowired
+  public CustomerBatchRepositoryTest(CustomerBatchRepository underTest, CustomerRepository customerRepository) {
+    this.underTest = underTest;
+    this.customerRepository = customerRepository;
+  }
+
+  @Test
+  void itShouldInsertAllCustomers() {
+    // Given
+    Customer ann = new Customer(UUID.randomUUID(), "Ann", "2001");
+    Customer bob = new Customer(UUID.randomUUID(), "Bob", "2002");
+
+    // When
+    underTest.insertAll(List.of(ann, bob));
+
+    // Then rows are readable through JPA with the same ids
+    assertThat(customerRepository.findById(ann.getId()))
+        .isPresent()
+        .hasValueSatisfying(c -> assertThat(c).isEqualToComparingFieldByField(ann));
+    assertThat(customerRepository.selectCustomerByPhoneNumber("2002"))
+        .isPresent()
+        .hasValueSatisfying(c -> assertThat(c).isEqualToComparingFieldByField(bob));
+  }
+}
@@ -0,0 +1,202 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import com.amigoscode.testing.customer.CustomerRegistrationResult.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import javax.validation.Validation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+
+public class CustomerBulkRegistrationServiceTest {
+  @Mock
+  private CustomerPhoneNumberIndex customerPhoneNumberIndex;
+  @Mock
+  private CustomerBatchRepository customerBatchRepository;
+  @Mock
+  private PhoneNumberValidator phoneNumberValidator;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Captor
+  private ArgumentCaptor<List<Customer>> customersArgumentCaptor;
+
+  private CustomerBulkRegistrationService underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    underTest = new CustomerBulkRegistrationService(
+        customerPhoneNumberIndex, customerBatchRepository, phoneNumberValidator,
+        Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher,
+        new TimeOrderedCustomerIdGenerator(), 2);
+  }
+
+  @Test
+  void itShouldInsertNewCustomersInBatches() {
+    // Given three valid customers and a batch size of two
+    List<CustomerRegistrationRequest> requests = List.of(
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), "Ann", "1001")),
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), "Bob", "1002")),
+        new CustomerRegistrationRequest(new Customer(null, "Cid", "1003"))
+    );
+    given(phoneNumberValidator.test(anyString())).willReturn(true);
+    given(customerPhoneNumberIndex.selectCustomersByPhoneNumbers(anyCollection())).willReturn(Map.of());
+
+    // When
+    List<CustomerRegistrationResult> results = new ArrayList<>();
+    underTest.registerNewCustomers(requests.iterator(), results::add);
+
+    // Then one collision query and one batch insert per batch
+    then(customerPhoneNumberIndex).should(times(2)).selectCustomersByPhoneNumbers(anyCollection());
+    then(customerBatchRepository).should(times(2)).insertAll(customersArgumentCaptor.capture());
+    assertThat(customersArgumentCaptor.getAllValues().get(0)).hasSize(2);
+    assertThat(customersArgumentCaptor.getAllValues().get(1)).hasSize(1);
+
+    assertThat(results).extracting(CustomerRegistrationResult::getRow).containsExactly(1L, 2L, 3L);
+    assertThat(results).extracting(CustomerRegistrationResult::getStatus)
+        .containsOnly(Status.REGISTERED);
+    assertThat(results.get(2).getCustomerId()).isNotNull();
+    then(eventPublisher).should(times(3)).publishEvent(any(CustomerRegisteredEvent.class));
+  }
+
+  @Test
+  void itShouldReportInvalidAndTakenPhoneNumbers() {
+    // Given
+    Customer existing = new Customer(UUID.randomUUID(), "Ann", "1001");
+    List<CustomerRegistrationRequest> requests = List.of(
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), "Ann", "1001")),
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), "Bob", "1001")),
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), "Cid", "bad"))
+    );
+    given(phoneNumberValidator.test("1001")).willReturn(true);
+    given(phoneNumberValidator.test("bad")).willReturn(false);
+    given(customerPhoneNumberIndex.selectCustomersByPhoneNumbers(anyCollection())).willReturn(Map.of("1001", existing));
+
+    underTest = new CustomerBulkRegistrationService(
+        customerPhoneNumberIndex, customerBatchRepository, phoneNumberValidator,
+        Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher,
+        new TimeOrderedCustomerIdGenerator(), 10);
+
+    // When
+    List<CustomerRegistrationResult> results = new ArrayList<>();
+    underTest.registerNewCustomers(requests.iterator(), results::add);
+
+    // Then
+    assertThat(results).extracting(CustomerRegistrationResult::getStatus).containsExactly(
+        Status.ALREADY_REGISTERED,
+        Status.PHONE_NUMBER_TAKEN,
+        Status.INVALID_PHONE_NUMBER
+    );
+    assertThat(results.get(0).getCustomerId()).isEqualTo(existing.getId());
+    then(customerBatchRepository).should().insertAll(Collections.emptyList());
+  }
+
+  @Test
+  void itShouldNotInsertTheSamePhoneNumberTwiceInOneBatch() {
+    // Given
+    List<CustomerRegistrationRequest> requests = List.of(
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), "Ann", "1001")),
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), "Ann", "1001"))
+    );
+    given(phoneNumberValidator.test(anyString())).willReturn(true);
+    given(customerPhoneNumberIndex.selectCustomersByPhoneNumbers(anyCollection())).willReturn(Map.of());
+
+    // When
+    List<CustomerRegistrationResult> results = new ArrayList<>();
+    underTest.registerNewCustomers(requests.iterator(), results::add);
+
+    // Then
+    then(customerBatchRepository).should().insertAll(customersArgumentCaptor.capture());
+    assertThat(customersArgumentCaptor.getValue()).hasSize(1);
+    assertThat(results).extracting(CustomerRegistrationResult::getStatus)
+        .containsExactly(Status.REGISTERED, Status.ALREADY_REGISTERED);
+  }
+
+  @Test
+  void itShouldFallBackToSingleRowsWhenBatchHitsConstraint() {
+    // Given a concurrent registration took the second phone number
+    Customer first = new Customer(UUID.randomUUID(), "Ann", "1001");
+    Customer second = new Customer(UUID.randomUUID(), "Bob", "1002");
+    given(phoneNumberValidator.test(anyString())).willReturn(true);
+    given(customerPhoneNumberIndex.selectCustomersByPhoneNumbers(anyCollection())).willReturn(Map.of());
+    willThrow(DataIntegrityViolationException.class).given(customerBatchRepository).insertAll(List.of(first, second));
+    willThrow(DataIntegrityViolationException.class).given(customerBatchRepository).insertAll(List.of(second));
+    given(customerPhoneNumberIndex.reload("1002"))
+        .willReturn(Optional.of(new Customer(UUID.randomUUID(), "Cat", "1002")));
+
+    // When
+    List<CustomerRegistrationResult> results = new ArrayList<>();
+    underTest.registerNewCustomers(
+        List.of(new CustomerRegistrationRequest(first), new CustomerRegistrationRequest(second)).iterator(),
+        results::add);
+
+    // Then
+    then(customerBatchRepository).should(times(3)).insertAll(anyList());
+    then(eventPublisher).should().publishEvent(any(CustomerRegisteredEvent.class));
+    assertThat(results).extracting(CustomerRegistrationResult::getStatus)
+        .containsExactly(Status.REGISTERED, Status.PHONE_NUMBER_TAKEN);
+  }
+
+  @Test
+  void itShouldReportCustomersWithBlankNamesAsInvalid() {
+    // Given
+    List<CustomerRegistrationRequest> requests = List.of(
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), " ", "1001")),
+        new CustomerRegistrationRequest(new Customer(UUID.randomUUID(), null, "1002"))
+    );
+    given(phoneNumberValidator.test(anyString())).willReturn(true);
+    given(customerPhoneNumberIndex.selectCustomersByPhoneNumbers(anyCollection())).willReturn(Map.of());
+
+    // When
+    List<CustomerRegistrationResult> results = new ArrayList<>();
+    underTest.registerNewCustomers(requests.iterator(), results::add);
+
+    // Then
+    assertThat(results).extracting(CustomerRegistrationResult::getStatus)
+        .containsExactly(Status.INVALID_CUSTOMER, Status.INVALID_CUSTOMER);
+    then(customerBatchRepository).should().insertAll(Collections.emptyList());
+  }
+
+  @Test
+  void itShouldFailWhenRowBreaksAConstraintOtherThanThePhoneNumber() {
+    // Given a row whose id is already taken while its phone number is free
+    Customer customer = new Customer(UUID.randomUUID(), "Ann", "1001");
+    given(phoneNumberValidator.test(anyString())).willReturn(true);
+    given(customerPhoneNumberIndex.selectCustomersByPhoneNumbers(anyCollection())).willReturn(Map.of());
+    given(customerPhoneNumberIndex.reload("1001")).willReturn(Optional.empty());
+    willThrow(new DataIntegrityViolationException("PRIMARY KEY"))
+        .given(customerBatchRepository).insertAll(List.of(customer));
+
+    // When
+    assertThatThrownBy(() -> underTest.registerNewCustomers(
+        List.of(new CustomerRegistrationRequest(customer)).iterator(), result -> { }))
+        .isInstanceOf(DataIntegrityViolationException.class)
+        .hasMessageContaining("PRIMARY KEY");
+
+    // Then
+    then(eventPublisher).shouldHaveNoInteractions();
+  }
+}
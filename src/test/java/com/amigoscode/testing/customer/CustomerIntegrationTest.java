@@ -0,0 +1,86 @@
+package com.amigoscode.testing.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+public class CustomerIntegrationTest {
+  @Autowired
+  private MockMvc mockMvc;
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Test
+  void itShouldReadCustomerBackAndHonourIfNoneMatch() throws Exception {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    Customer customer = new Customer(customerId, "Ana", "+447000000123");
+    mockMvc.perform(put("/api/v1/customer-registration")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(new ObjectMapper().writeValueAsString(new CustomerRegistrationRequest(customer))))
+        .andExpect(status().isOk());
+
+    // When
+    String etag = mockMvc.perform(get("/api/v1/customer/{id}", customerId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("Ana"))
+        .andExpect(jsonPath("$.phoneNumber").value("+447000000123"))
+        .andExpect(header().exists(HttpHeaders.ETAG))
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+
+    // Then
+    mockMvc.perform(get("/api/v1/customer/{id}", customerId).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+    mockMvc.perform(get("/api/v1/customer").param("phoneNumber", "+447000000123")
+        .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void itShouldFindCustomerByUnencodedPhoneNumber() throws Exception {
+    // Given
+    Customer customer = new Customer(UUID.randomUUID(), "Ben", "+447000000124");
+    mockMvc.perform(put("/api/v1/customer-registration")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(new ObjectMapper().writeValueAsString(new CustomerRegistrationRequest(customer))))
+        .andExpect(status().isOk());
+
+    // When the + goes over the wire raw, as a client that does not encode the query string sends it
+    ResponseEntity<String> response = restTemplate.getForEntity(
+        URI.create(restTemplate.getRootUri() + "/api/v1/customer?phoneNumber=+447000000124"), String.class);
+
+    // Then
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(response.getBody()).contains("\"phoneNumber\":\"+447000000124\"");
+  }
+
+  @Test
+  void itShouldReturnNotFoundForUnknownCustomer() throws Exception {
+    mockMvc.perform(get("/api/v1/customer/{id}", UUID.randomUUID()))
+        .andExpect(status().isNotFound());
+  }
+}
@@ -0,0 +1,128 @@
+package com.amigoscode.testing.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+
+public class CustomerPhoneNumberIndexTest {
+  @Mock
+  private CustomerRepository customerRepository;
+  @Mock
+  private CustomerBatchRepository customerBatchRepository;
+
+  private MeterRegistry meterRegistry;
+  private CustomerPhoneNumberIndex underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new CustomerPhoneNumberIndex(
+        customerRepository, customerBatchRepository, meterRegistry, 1000, 0.01, true);
+  }
+
+  @Test
+  void itShouldSkipTheDatabaseForUnseenNumbers() {
+    // When
+    Optional<Customer> customerOptional = underTest.selectCustomerByPhoneNumber("+447000000000");
+
+    // Then
+    assertThat(customerOptional).isNotPresent();
+    then(customerRepository).should(never()).selectCustomerByPhoneNumber(anyString());
+    assertThat(lookups("miss")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldServePreloadedCustomersFromMemory() {
+    // Given the table holds one customer
+    Customer customer = new Customer(UUID.randomUUID(), "Ann", "+447000000001");
+    willAnswer(invocation -> {
+      invocation.<java.util.function.Consumer<Customer>>getArgument(0).accept(customer);
+      return null;
+    }).given(customerBatchRepository).forEachCustomer(any());
+
+    // When
+    underTest.load();
+    Optional<Customer> customerOptional = underTest.selectCustomerByPhoneNumber("+447000000001");
+
+    // Then
+    assertThat(customerOptional).contains(customer);
+    then(customerRepository).shouldHaveNoInteractions();
+    assertThat(lookups("hit")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldIndexRegisteredCustomers() {
+    // Given
+    Customer customer = new Customer(UUID.randomUUID(), "Bob", "+447000000002");
+
+    // When
+    underTest.onCustomerRegistered(new CustomerRegisteredEvent(customer));
+
+    // Then
+    assertThat(underTest.selectCustomerByPhoneNumber("+447000000002")).contains(customer);
+    assertThat(underTest.selectCustomersByPhoneNumbers(List.of("+447000000002", "+447000000003")))
+        .containsExactly(Map.entry("+447000000002", customer));
+    then(customerRepository).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void itShouldCountFalsePositives() {
+    // Given a filter so small that every number looks present, on a registry of its own
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new CustomerPhoneNumberIndex(
+        customerRepository, customerBatchRepository, meterRegistry, 1, 0.99, false);
+    for (int i = 0; i < 100; i++) {
+      underTest.onCustomerRegistered(new CustomerRegisteredEvent(
+          new Customer(UUID.randomUUID(), "Cid", "+4470000001" + (10 + i))));
+    }
+    given(customerRepository.selectCustomerByPhoneNumber("+447999999999")).willReturn(Optional.empty());
+
+    // When
+    Optional<Customer> customerOptional = underTest.selectCustomerByPhoneNumber("+447999999999");
+
+    // Then
+    assertThat(customerOptional).isNotPresent();
+    then(customerRepository).should().selectCustomerByPhoneNumber("+447999999999");
+    assertThat(lookups("false_positive")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldReloadNumbersRegisteredElsewhere() {
+    // Given a customer this instance never indexed
+    Customer customer = new Customer(UUID.randomUUID(), "Dee", "+447000000004");
+    given(customerRepository.selectCustomerByPhoneNumber("+447000000004")).willReturn(Optional.of(customer));
+
+    // When
+    Optional<Customer> customerOptional = underTest.reload("+447000000004");
+
+    // Then it is served from memory afterwards
+    assertThat(customerOptional).contains(customer);
+    assertThat(underTest.selectCustomerByPhoneNumber("+447000000004")).contains(customer);
+    then(customerRepository).should().selectCustomerByPhoneNumber("+447000000004");
+    assertThat(lookups("hit")).isEqualTo(1);
+  }
+
+  private double lookups(String result) {
+    return meterRegistry.get("customer.phone.index.lookups")
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+}
@@ -0,0 +1,95 @@
+package com.amigoscode.testing.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+public class CustomerQueryServiceTest {
+  @Mock
+  private CustomerRepository customerRepository;
+
+  private CustomerQueryService underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    underTest = new CustomerQueryService(customerRepository, new SimpleMeterRegistry(), 100, 60);
+  }
+
+  @Test
+  void itShouldServeRepeatReadsFromCache() {
+    // Given
+    UUID id = UUID.randomUUID();
+    Customer customer = new Customer(id, "Maryam", "0000");
+    given(customerRepository.findById(id)).willReturn(Optional.of(customer));
+
+    // When
+    Optional<CustomerView> first = underTest.findById(id);
+    Optional<CustomerView> second = underTest.findById(id);
+    Optional<CustomerView> byPhone = underTest.findByPhoneNumber("0000");
+
+    // Then
+    assertThat(first).isPresent();
+    assertThat(second).containsSame(first.get());
+    assertThat(byPhone).containsSame(first.get());
+    then(customerRepository).should(times(1)).findById(id);
+    then(customerRepository).shouldHaveNoMoreInteractions();
+  }
+
+  @Test
+  void itShouldNotCacheMissingCustomer() {
+    // Given
+    UUID id = UUID.randomUUID();
+    given(customerRepository.findById(id)).willReturn(Optional.empty());
+
+    // When
+    underTest.findById(id);
+    underTest.findById(id);
+
+    // Then
+    then(customerRepository).should(times(2)).findById(id);
+  }
+
+  @Test
+  void itShouldInvalidateOnRegistration() {
+    // Given
+    UUID id = UUID.randomUUID();
+    given(customerRepository.findById(id))
+        .willReturn(Optional.of(new Customer(id, "Maryam", "0000")))
+        .willReturn(Optional.of(new Customer(id, "Maryam", "1111")));
+    CustomerView before = underTest.findById(id).get();
+
+    // When
+    underTest.onCustomerRegistered(new CustomerRegisteredEvent(new Customer(id, "Maryam", "1111")));
+    CustomerView after = underTest.findById(id).get();
+
+    // Then
+    assertThat(after.getPhoneNumber()).isEqualTo("1111");
+    assertThat(after.getEtag()).isNotEqualTo(before.getEtag());
+    given(customerRepository.selectCustomerByPhoneNumber("0000")).willReturn(Optional.empty());
+    assertThat(underTest.findByPhoneNumber("0000")).isEmpty();
+  }
+
+  @Test
+  void itShouldGiveEqualContentTheSameEtag() {
+    // Given
+    UUID id = UUID.randomUUID();
+
+    // When
+    CustomerView a = new CustomerView(id, "Maryam", "0000");
+    CustomerView b = new CustomerView(id, "Maryam", "0000");
+
+    // Then
+    assertThat(a.getEtag()).isEqualTo(b.getEtag()).startsWith("\"").endsWith("\"");
+  }
+}
@@ -1,13 +1,17 @@
 package com.amigoscode.testing.customer;
 
 import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import javax.validation.Validation;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,17 +26,27 @@ public class CustomerRegistrationServiceTest {
   @Mock
   private CustomerRepository customerRepository;
   @Mock
+  private CustomerPhoneNumberIndex customerPhoneNumberIndex;
+  @Mock
   private PhoneNumberValidator phoneNumberValidator;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private CustomerUpsertRepository customerUpsertRepository;
 
   @Captor
   private ArgumentCaptor<Customer> customerArgumentCaptor;
+  @Captor
+  private ArgumentCaptor<CustomerRegisteredEvent> eventArgumentCaptor;
 
+  private SimpleMeterRegistry meterRegistry;
   private CustomerRegistrationService testService;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.initMocks(this);
-    testService = new CustomerRegistrationService(customerRepository, phoneNumberValidator);
+    meterRegistry = new SimpleMeterRegistry();
+    testService = service(false);
   }
 
   @Test
@@ -45,7 +59,7 @@ public class CustomerRegistrationServiceTest {
     CustomerRegistrationRequest customerRegistrationRequest = new CustomerRegistrationRequest(customer);
 
     // DB doesn't have customer with this phone number
-    given(customerRepository.selectCustomerByPhoneNumber(phone)).willReturn(Optional.empty());
+    given(customerPhoneNumberIndex.selectCustomerByPhoneNumber(phone)).willReturn(Optional.empty());
 
     // Valid phone number
     given(phoneNumberValidator.test(phone)).willReturn(true);
@@ -57,6 +71,10 @@ public class CustomerRegistrationServiceTest {
     then(customerRepository).should().save(customerArgumentCaptor.capture());
     Customer capturedCustomerArg = customerArgumentCaptor.getValue();
     assertThat(capturedCustomerArg).isEqualTo(customer);
+
+    // the phone number index hears about the new customer
+    then(eventPublisher).should().publishEvent(eventArgumentCaptor.capture());
+    assertThat(eventArgumentCaptor.getValue().getCustomer()).isEqualTo(customer);
   }
 
   @Test
@@ -78,6 +96,8 @@ public class CustomerRegistrationServiceTest {
 
     // check if DB is saving the same customer
     then(customerRepository).shouldHaveNoInteractions();
+    then(customerPhoneNumberIndex).shouldHaveNoInteractions();
+    assertThat(rejections("invalid_phone")).isEqualTo(1);
   }
 
   @Test
@@ -90,7 +110,7 @@ public class CustomerRegistrationServiceTest {
     CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
 
     // customer with phone number not in DB
-    given(customerRepository.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.empty());
+    given(customerPhoneNumberIndex.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.empty());
 
     // Valid phone number
     given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
@@ -116,7 +136,7 @@ public class CustomerRegistrationServiceTest {
     CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
 
     // Given that DB returns that customer
-    given(customerRepository.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.of(customer));
+    given(customerPhoneNumberIndex.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.of(customer));
     given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
 
     // When we register this customer
@@ -124,6 +144,7 @@ public class CustomerRegistrationServiceTest {
 
     // Then the customer is not passed to the repository for saving
     then(customerRepository).should(never()).save(any());
+    then(eventPublisher).shouldHaveNoInteractions();
   }
 
   @Test
@@ -137,7 +158,7 @@ public class CustomerRegistrationServiceTest {
     CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
 
     // DB will return another customer with the same phone number
-    given(customerRepository.selectCustomerByPhoneNumber(phoneNumber))
+    given(customerPhoneNumberIndex.selectCustomerByPhoneNumber(phoneNumber))
         .willReturn(Optional.of(anotherCustomer));
     given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
 
@@ -148,5 +169,152 @@ public class CustomerRegistrationServiceTest {
 
     // service does not pass customer to repository for saving
     then(customerRepository).should(never()).save(any());
+    assertThat(rejections("phone_taken")).isEqualTo(1);
+    assertThat(meterRegistry.get("customer.registration.stage").tag("stage", "phone_lookup").timer().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void itShouldAcceptRepeatRegistrationMadeThroughAnotherInstance() {
+    // Given the index has not seen the number but the unique index has
+    String phoneNumber = "0012";
+    Customer customer = new Customer(UUID.randomUUID(), "Tatum", phoneNumber);
+    Customer registeredElsewhere = new Customer(UUID.randomUUID(), "Tatum", phoneNumber);
+    given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+    given(customerPhoneNumberIndex.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.empty());
+    given(customerRepository.save(customer)).willThrow(new DataIntegrityViolationException("phone_number"));
+    given(customerPhoneNumberIndex.reload(phoneNumber)).willReturn(Optional.of(registeredElsewhere));
+
+    // When
+    testService.registerNewCustomer(new CustomerRegistrationRequest(customer));
+
+    // Then
+    then(eventPublisher).shouldHaveNoInteractions();
+    assertThat(rejections("phone_taken")).isZero();
+  }
+
+  @Test
+  void itShouldThrowWhenAnotherInstanceTookThePhoneNumber() {
+    // Given
+    String phoneNumber = "0013";
+    Customer customer = new Customer(UUID.randomUUID(), "Booker", phoneNumber);
+    given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+    given(customerPhoneNumberIndex.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.empty());
+    given(customerRepository.save(customer)).willThrow(new DataIntegrityViolationException("phone_number"));
+    given(customerPhoneNumberIndex.reload(phoneNumber))
+        .willReturn(Optional.of(new Customer(UUID.randomUUID(), "Beal", phoneNumber)));
+
+    // Then
+    assertThatThrownBy(() -> testService.registerNewCustomer(new CustomerRegistrationRequest(customer)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("phone number %s is taken", phoneNumber));
+    then(eventPublisher).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void itShouldRegisterNewCustomerWithOneUpsert() {
+    // Given
+    String phoneNumber = "0009";
+    Customer customer = new Customer(null, "Luka", phoneNumber);
+    given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+    given(customerUpsertRepository.upsert(customer)).willReturn(CustomerRegistrationResult.Status.REGISTERED);
+
+    // When
+    service(true).registerNewCustomer(new CustomerRegistrationRequest(customer));
+
+    // Then
+    assertThat(customer.getId()).isNotNull();
+    then(customerPhoneNumberIndex).shouldHaveNoInteractions();
+    then(customerRepository).shouldHaveNoInteractions();
+    then(eventPublisher).should().publishEvent(eventArgumentCaptor.capture());
+    assertThat(eventArgumentCaptor.getValue().getCustomer()).isEqualTo(customer);
+  }
+
+  @Test
+  void itShouldAcceptRepeatRegistrationWithSameNameWhenUpserting() {
+    // Given
+    String phoneNumber = "0010";
+    Customer customer = new Customer(UUID.randomUUID(), "Kawhi", phoneNumber);
+    given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+    given(customerUpsertRepository.upsert(customer))
+        .willReturn(CustomerRegistrationResult.Status.ALREADY_REGISTERED);
+
+    // When
+    service(true).registerNewCustomer(new CustomerRegistrationRequest(customer));
+
+    // Then
+    then(eventPublisher).shouldHaveNoInteractions();
+    assertThat(rejections("phone_taken")).isZero();
+  }
+
+  @Test
+  void itShouldThrowWhenUpsertFindsPhoneNumberTaken() {
+    // Given
+    String phoneNumber = "0011";
+    Customer customer = new Customer(UUID.randomUUID(), "Jokic", phoneNumber);
+    given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+    given(customerUpsertRepository.upsert(customer))
+        .willReturn(CustomerRegistrationResult.Status.PHONE_NUMBER_TAKEN);
+
+    // When
+    assertThatThrownBy(() -> service(true).registerNewCustomer(new CustomerRegistrationRequest(customer)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("phone number %s is taken", phoneNumber));
+
+    // Then
+    then(eventPublisher).shouldHaveNoInteractions();
+    assertThat(rejections("phone_taken")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldRejectBlankNameBeforeUpserting() {
+    // Given
+    String phoneNumber = "0012";
+    Customer customer = new Customer(null, " ", phoneNumber);
+    given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+
+    // When
+    assertThatThrownBy(() -> service(true).registerNewCustomer(new CustomerRegistrationRequest(customer)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Customer is not valid: name must not be blank");
+
+    // Then
+    then(customerUpsertRepository).shouldHaveNoInteractions();
+    then(eventPublisher).shouldHaveNoInteractions();
+    assertThat(rejections("invalid_customer")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldIndexPhoneNumberAlreadyOnFileWhenUpserting() {
+    // Given
+    String phoneNumber = "0013";
+    Customer customer = new Customer(UUID.randomUUID(), "Tatum", phoneNumber);
+    given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+    given(customerUpsertRepository.upsert(customer))
+        .willReturn(CustomerRegistrationResult.Status.ALREADY_REGISTERED);
+
+    // When
+    service(true).registerNewCustomer(new CustomerRegistrationRequest(customer));
+
+    // Then
+    then(customerPhoneNumberIndex).should().reload(phoneNumber);
+  }
+
+  private CustomerRegistrationService service(boolean upsertEnabled) {
+    return new CustomerRegistrationService(
+        customerRepository,
+        customerPhoneNumberIndex,
+        phoneNumberValidator,
+        Validation.buildDefaultValidatorFactory().getValidator(),
+        eventPublisher,
+        new CustomerRegistrationMetrics(meterRegistry),
+        new TimeOrderedCustomerIdGenerator(),
+        customerUpsertRepository,
+        upsertEnabled,
+        4);
+  }
+
+  private double rejections(String reason) {
+    return meterRegistry.get("customer.registration.rejections").tag("reason", reason).counter().count();
   }
 }
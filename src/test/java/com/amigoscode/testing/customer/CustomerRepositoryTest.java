@@ -9,6 +9,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -51,6 +52,21 @@ public class CustomerRepositoryTest {
     assertThat(optionalCustomer).isNotPresent();
   }
 
+  @Test
+  void itShouldSelectCustomersByPhoneNumbers() {
+    // test customers with complete data
+    Customer ann = new Customer(UUID.randomUUID(), "Ann", "3001");
+    Customer bob = new Customer(UUID.randomUUID(), "Bob", "3002");
+    testRepository.save(ann);
+    testRepository.save(bob);
+
+    // only numbers in the DB come back
+    List<Customer> customers = testRepository.selectCustomersByPhoneNumbers(List.of("3001", "3002", "3003"));
+    assertThat(customers)
+        .extracting(Customer::getPhoneNumber)
+        .containsExactlyInAnyOrder("3001", "3002");
+  }
+
   @Test
   void itShouldSaveCustomer() {
     // Test customer with complete data
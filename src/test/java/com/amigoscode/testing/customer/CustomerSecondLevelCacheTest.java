@@ -0,0 +1,98 @@
+package com.amigoscode.testing.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// every repository call commits on its own here, so reads after a save go through the second-level cache
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CustomerSecondLevelCacheTest {
+  private final CustomerRepository customerRepository;
+  private final EntityManagerFactory entityManagerFactory;
+  private Statistics statistics;
+
+  @Autowired
+  public CustomerSecondLevelCacheTest(CustomerRepository customerRepository, EntityManagerFactory entityManagerFactory) {
+    this.customerRepository = customerRepository;
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  void itShouldServeFindByIdFromEntityCache() {
+    // Given
+    UUID id = UUID.randomUUID();
+    customerRepository.save(new Customer(id, "Ada", "+447000001001"));
+    statistics.clear();
+
+    // When
+    Customer customer = customerRepository.findById(id).orElseThrow();
+
+    // Then
+    assertThat(customer.getName()).isEqualTo("Ada");
+    assertThat(statistics.getDomainDataRegionStatistics(CustomerCacheMetrics.ENTITY_REGION).getHitCount())
+        .isEqualTo(1);
+    assertThat(statistics.getEntityStatistics(Customer.class.getName()).getLoadCount()).isZero();
+    assertThat(new CustomerCacheMetrics(entityManagerFactory, new SimpleMeterRegistry())
+        .hitRatio(CustomerCacheMetrics.ENTITY_REGION)).isEqualTo(1.0);
+  }
+
+  @Test
+  void itShouldServePhoneNumberLookupFromNaturalIdCache() {
+    // Given
+    UUID id = UUID.randomUUID();
+    customerRepository.save(new Customer(id, "Bea", "+447000001002"));
+    statistics.clear();
+
+    // When
+    Customer customer = customerRepository.selectCustomerByPhoneNumber("+447000001002").orElseThrow();
+
+    // Then
+    assertThat(customer.getId()).isEqualTo(id);
+    assertThat(statistics.getDomainDataRegionStatistics(CustomerCacheMetrics.NATURAL_ID_REGION).getHitCount())
+        .isEqualTo(1);
+    assertThat(statistics.getNaturalIdQueryExecutionCount()).isZero();
+    assertThat(statistics.getEntityStatistics(Customer.class.getName()).getLoadCount()).isZero();
+  }
+
+  @Test
+  void itShouldSeeUpdatesMadeThroughSave() {
+    // Given
+    UUID id = UUID.randomUUID();
+    customerRepository.save(new Customer(id, "Cal", "+447000001003"));
+    customerRepository.findById(id);
+
+    // When
+    customerRepository.save(new Customer(id, "Cally", "+447000001004"));
+
+    // Then
+    assertThat(customerRepository.findById(id)).hasValueSatisfying(c -> {
+      assertThat(c.getName()).isEqualTo("Cally");
+      assertThat(c.getPhoneNumber()).isEqualTo("+447000001004");
+    });
+    assertThat(customerRepository.selectCustomerByPhoneNumber("+447000001003")).isNotPresent();
+    assertThat(customerRepository.selectCustomerByPhoneNumber("+447000001004"))
+        .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(id));
+  }
+
+  @Test
+  void itShouldNotFindUnknownPhoneNumber() {
+    assertThat(customerRepository.selectCustomerByPhoneNumber("+447000001999")).isNotPresent();
+  }
+}
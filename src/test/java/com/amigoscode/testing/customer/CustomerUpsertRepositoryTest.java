@@ -0,0 +1,79 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+@Import(CustomerUpsertRepository.class)
+public class CustomerUpsertRepositoryTest {
+  private final CustomerUpsertRepository underTest;
+  private final CustomerRepository customerRepository;
+
+  @Autowired
+  public CustomerUpsertRepositoryTest(CustomerUpsertRepository underTest, CustomerRepository customerRepository) {
+    this.underTest = underTest;
+    this.customerRepository = customerRepository;
+  }
+
+  @Test
+  void itShouldInsertNewPhoneNumber() {
+    // Given
+    Customer customer = new Customer(UUID.randomUUID(), "Ann", "4001");
+
+    // When
+    CustomerRegistrationResult.Status status = underTest.upsert(customer);
+
+    // Then
+    assertThat(status).isEqualTo(CustomerRegistrationResult.Status.REGISTERED);
+    assertThat(customerRepository.findById(customer.getId()))
+        .hasValueSatisfying(c -> assertThat(c).isEqualToComparingFieldByField(customer));
+  }
+
+  @Test
+  void itShouldReportSameNameAsAlreadyRegistered() {
+    // Given
+    UUID id = UUID.randomUUID();
+    underTest.upsert(new Customer(id, "Bob", "4002"));
+
+    // When a repeat arrives with a fresh id
+    CustomerRegistrationResult.Status status = underTest.upsert(new Customer(UUID.randomUUID(), "Bob", "4002"));
+
+    // Then the first row stays
+    assertThat(status).isEqualTo(CustomerRegistrationResult.Status.ALREADY_REGISTERED);
+    assertThat(customerRepository.selectCustomerByPhoneNumber("4002"))
+        .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(id));
+  }
+
+  @Test
+  void itShouldReportDifferentNameAsPhoneNumberTaken() {
+    // Given
+    underTest.upsert(new Customer(UUID.randomUUID(), "Cat", "4003"));
+
+    // When
+    CustomerRegistrationResult.Status status = underTest.upsert(new Customer(UUID.randomUUID(), "Dan", "4003"));
+
+    // Then
+    assertThat(status).isEqualTo(CustomerRegistrationResult.Status.PHONE_NUMBER_TAKEN);
+    assertThat(customerRepository.selectCustomerByPhoneNumber("4003"))
+        .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Cat"));
+  }
+
+  @Test
+  void itShouldThrowWhenIdBelongsToAnotherPhoneNumber() {
+    // Given
+    UUID id = UUID.randomUUID();
+    underTest.upsert(new Customer(id, "Eve", "4004"));
+
+    // When
+    assertThatThrownBy(() -> underTest.upsert(new Customer(id, "Eve", "4005")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("Customer id %s is taken", id));
+  }
+}
@@ -0,0 +1,109 @@
+package com.amigoscode.testing.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+public class KnownCustomerIdsTest {
+  @Mock
+  private CustomerRepository customerRepository;
+
+  private KnownCustomerIds underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    underTest = new KnownCustomerIds(customerRepository, new SimpleMeterRegistry(), 100, 60);
+  }
+
+  @Test
+  void itShouldQueryDatabaseOnceForExistingCustomer() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+
+    // When
+    boolean first = underTest.exists(customerId);
+    boolean second = underTest.exists(customerId);
+
+    // Then
+    assertThat(first).isTrue();
+    assertThat(second).isTrue();
+    then(customerRepository).should(times(1)).existsById(customerId);
+    then(customerRepository).should(never()).findById(any());
+  }
+
+  @Test
+  void itShouldNotCacheUnknownCustomers() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(false, true);
+
+    // When
+    boolean before = underTest.exists(customerId);
+    boolean after = underTest.exists(customerId);
+
+    // Then
+    assertThat(before).isFalse();
+    assertThat(after).isTrue();
+  }
+
+  @Test
+  void itShouldKnowRegisteredCustomersWithoutQuerying() {
+    // Given
+    Customer customer = new Customer(UUID.randomUUID(), "Ann", "+447000000001");
+
+    // When
+    underTest.onCustomerRegistered(new CustomerRegisteredEvent(customer));
+
+    // Then
+    assertThat(underTest.exists(customer.getId())).isTrue();
+    then(customerRepository).should(never()).existsById(any());
+  }
+
+  @Test
+  void itShouldShareOneQueryBetweenConcurrentMisses() throws Exception {
+    // Given a slow existence query
+    UUID customerId = UUID.randomUUID();
+    CountDownLatch queryStarted = new CountDownLatch(1);
+    CountDownLatch releaseQuery = new CountDownLatch(1);
+    given(customerRepository.existsById(customerId)).willAnswer(invocation -> {
+      queryStarted.countDown();
+      releaseQuery.await(5, TimeUnit.SECONDS);
+      return true;
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      // When a second payment arrives while the first lookup runs
+      CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> underTest.exists(customerId), executor);
+      assertThat(queryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> underTest.exists(customerId), executor);
+      Thread.sleep(50);
+      releaseQuery.countDown();
+
+      // Then
+      assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+      then(customerRepository).should(times(1)).existsById(customerId);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
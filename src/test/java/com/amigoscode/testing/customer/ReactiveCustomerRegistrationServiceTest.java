@@ -0,0 +1,119 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.Utils.PhoneNumberValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+public class ReactiveCustomerRegistrationServiceTest {
+  @Mock
+  private ReactiveCustomerRepository customerRepository;
+  @Mock
+  private PhoneNumberValidator phoneNumberValidator;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ReactiveCustomerRegistrationService underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new ReactiveCustomerRegistrationService(
+        customerRepository,
+        phoneNumberValidator,
+        eventPublisher,
+        new CustomerRegistrationMetrics(meterRegistry),
+        new TimeOrderedCustomerIdGenerator());
+  }
+
+  @Test
+  void itShouldInsertNewCustomerAndPublishEvent() {
+    // Given
+    String phone = "7777";
+    Customer customer = new Customer(null, "Marian", phone);
+
+    given(phoneNumberValidator.test(phone)).willReturn(true);
+    given(customerRepository.selectCustomerByPhoneNumber(phone)).willReturn(Mono.empty());
+    given(customerRepository.insert(any())).willReturn(Mono.empty());
+
+    // When
+    underTest.registerNewCustomer(new CustomerRegistrationRequest(customer)).block();
+
+    // Then
+    ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+    then(customerRepository).should().insert(customerArgumentCaptor.capture());
+    assertThat(customerArgumentCaptor.getValue().getId()).isNotNull();
+    then(eventPublisher).should().publishEvent(any(CustomerRegisteredEvent.class));
+  }
+
+  @Test
+  void itShouldNotInsertCustomerWhenCustomerExists() {
+    // Given
+    String phone = "7777";
+    Customer customer = new Customer(UUID.randomUUID(), "Marian", phone);
+
+    given(phoneNumberValidator.test(phone)).willReturn(true);
+    given(customerRepository.selectCustomerByPhoneNumber(phone)).willReturn(Mono.just(customer));
+
+    // When
+    underTest.registerNewCustomer(new CustomerRegistrationRequest(customer)).block();
+
+    // Then
+    then(customerRepository).should(never()).insert(any());
+    then(eventPublisher).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void itShouldThrowWhenPhoneNumberIsTaken() {
+    // Given
+    String phone = "7777";
+    Customer customer = new Customer(UUID.randomUUID(), "Marian", phone);
+    Customer existing = new Customer(UUID.randomUUID(), "Tom", phone);
+
+    given(phoneNumberValidator.test(phone)).willReturn(true);
+    given(customerRepository.selectCustomerByPhoneNumber(phone)).willReturn(Mono.just(existing));
+
+    // When
+    // Then
+    assertThatThrownBy(() -> underTest.registerNewCustomer(new CustomerRegistrationRequest(customer)).block())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("phone number %s is taken", phone));
+
+    then(customerRepository).should(never()).insert(any());
+    assertThat(meterRegistry.get("customer.registration.rejections").tag("reason", "phone_taken").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void itShouldThrowWhenPhoneNumberIsInvalid() {
+    // Given
+    String phone = "7777";
+    Customer customer = new Customer(UUID.randomUUID(), "Marian", phone);
+
+    given(phoneNumberValidator.test(phone)).willReturn(false);
+
+    // When
+    // Then
+    assertThatThrownBy(() -> underTest.registerNewCustomer(new CustomerRegistrationRequest(customer)).block())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Phone number " + phone + " is not valid");
+
+    then(customerRepository).shouldHaveNoInteractions();
+  }
+}
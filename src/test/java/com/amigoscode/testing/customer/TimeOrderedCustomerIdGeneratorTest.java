@@ -0,0 +1,63 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeOrderedCustomerIdGeneratorTest {
+
+  @Test
+  void itShouldProduceVersion7Ids() {
+    // Given
+    long millis = 1_700_000_000_123L;
+    TimeOrderedCustomerIdGenerator underTest = new TimeOrderedCustomerIdGenerator(() -> millis);
+
+    // When
+    UUID id = underTest.nextId();
+
+    // Then
+    assertThat(id.version()).isEqualTo(7);
+    assertThat(id.variant()).isEqualTo(2);
+    assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(millis);
+  }
+
+  @Test
+  void itShouldOrderIdsByMillisecond() {
+    // Given
+    AtomicLong millis = new AtomicLong(1_700_000_000_000L);
+    TimeOrderedCustomerIdGenerator underTest = new TimeOrderedCustomerIdGenerator(millis::getAndIncrement);
+
+    // When
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      ids.add(underTest.nextId());
+    }
+
+    // Then the string form, and so the index order of the id bytes, follows generation order
+    for (int i = 1; i < ids.size(); i++) {
+      assertThat(ids.get(i).toString()).isGreaterThan(ids.get(i - 1).toString());
+    }
+  }
+
+  @Test
+  void itShouldNotRepeatWithinOneMillisecond() {
+    // Given
+    TimeOrderedCustomerIdGenerator underTest = new TimeOrderedCustomerIdGenerator(() -> 1_700_000_000_000L);
+
+    // When
+    Set<UUID> ids = new HashSet<>();
+    for (int i = 0; i < 100_000; i++) {
+      ids.add(underTest.nextId());
+    }
+
+    // Then
+    assertThat(ids).hasSize(100_000);
+  }
+}
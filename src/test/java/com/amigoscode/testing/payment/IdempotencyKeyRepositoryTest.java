@@ -0,0 +1,69 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.payment.IdempotencyKey.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+public class IdempotencyKeyRepositoryTest {
+  private final IdempotencyKeyRepository underTest;
+
+  @Autowired
+  public IdempotencyKeyRepositoryTest(IdempotencyKeyRepository underTest) {
+    this.underTest = underTest;
+  }
+
+  @Test
+  void itShouldInsertAndCompleteKey() {
+    // Given
+    IdempotencyKey key = underTest.saveAndFlush(
+        new IdempotencyKey("key-1", UUID.randomUUID(), Status.IN_PROGRESS, Instant.now()));
+
+    // When
+    key.setStatus(Status.COMPLETED);
+    underTest.saveAndFlush(key);
+
+    // Then
+    assertThat(underTest.findById("key-1"))
+        .isPresent()
+        .hasValueSatisfying(k -> assertThat(k.getStatus()).isEqualTo(Status.COMPLETED));
+  }
+
+  @Test
+  void itShouldNotOverwriteAnExistingKey() {
+    // Given
+    underTest.saveAndFlush(new IdempotencyKey("key-2", UUID.randomUUID(), Status.IN_PROGRESS, Instant.now()));
+
+    // When a second claim of the same key is inserted
+    assertThatThrownBy(() -> underTest.saveAndFlush(
+        new IdempotencyKey("key-2", UUID.randomUUID(), Status.IN_PROGRESS, Instant.now())))
+        .isInstanceOf(DataIntegrityViolationException.class);
+  }
+
+  @Test
+  void itShouldFailOnlyKeysStillInProgress() {
+    // Given
+    underTest.saveAndFlush(new IdempotencyKey("key-3", UUID.randomUUID(), Status.IN_PROGRESS, Instant.now()));
+    underTest.saveAndFlush(new IdempotencyKey("key-4", UUID.randomUUID(), Status.COMPLETED, Instant.now()));
+
+    // When
+    int inProgress = underTest.failInProgress("key-3");
+    int completed = underTest.failInProgress("key-4");
+
+    // Then
+    assertThat(inProgress).isEqualTo(1);
+    assertThat(completed).isZero();
+    assertThat(underTest.findById("key-3"))
+        .hasValueSatisfying(k -> assertThat(k.getStatus()).isEqualTo(Status.FAILED));
+    assertThat(underTest.findById("key-4"))
+        .hasValueSatisfying(k -> assertThat(k.getStatus()).isEqualTo(Status.COMPLETED));
+  }
+}
@@ -0,0 +1,68 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MoneyTest {
+
+  @ParameterizedTest
+  @CsvSource({
+      "100.00,10000",
+      "10.5,1050",
+      "7,700",
+      "0.01,1",
+      "-3.20,-320",
+      "12.340,1234"
+  })
+  void itShouldConvertToMinorUnits(String amount, long minorUnits) {
+    // When
+    Money parsed = Money.parse(amount, Currency.GBP);
+    Money converted = Money.of(new BigDecimal(amount), Currency.GBP);
+
+    // Then
+    assertThat(parsed.getMinorUnits()).isEqualTo(minorUnits);
+    assertThat(converted).isEqualTo(parsed);
+    assertThat(parsed.toBigDecimal()).isEqualByComparingTo(amount);
+  }
+
+  @Test
+  void itShouldRejectAmountsFinerThanMinorUnit() {
+    assertThatThrownBy(() -> Money.of(new BigDecimal("12.345"), Currency.USD))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("not a whole number of USD minor units");
+    assertThatThrownBy(() -> Money.parse("12.345", Currency.USD))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("not a whole number of USD minor units");
+  }
+
+  @Test
+  void itShouldRejectMalformedAndOverflowingText() {
+    assertThatThrownBy(() -> Money.parse("12a", Currency.USD))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("is not an amount");
+    assertThatThrownBy(() -> Money.parse("-", Currency.USD))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("is not an amount");
+    assertThatThrownBy(() -> Money.parse("99999999999999999999", Currency.USD))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("too large");
+  }
+
+  @Test
+  void itShouldOnlyAddSameCurrency() {
+    // Given
+    Money usd = Money.ofMinor(150, Currency.USD);
+
+    // Then
+    assertThat(usd.plus(Money.ofMinor(50, Currency.USD))).isEqualTo(Money.ofMinor(200, Currency.USD));
+    assertThatThrownBy(() -> usd.plus(Money.ofMinor(50, Currency.GBP)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Cannot add GBP to USD");
+  }
+}
@@ -0,0 +1,115 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class PaymentChargeExecutorTest {
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private PaymentChargeExecutor underTest;
+
+  @AfterEach
+  void tearDown() {
+    // skipped tests never build one
+    if (underTest != null) {
+      underTest.shutdown();
+    }
+  }
+
+  @Test
+  void itShouldRunOnCallerThreadWhenAsyncIsDisabled() {
+    // Given
+    underTest = new PaymentChargeExecutor(false, 1, 1, meterRegistry);
+
+    // When
+    CompletableFuture<String> future = underTest.submit(() -> Thread.currentThread().getName());
+
+    // Then
+    assertThat(underTest.isAsync()).isFalse();
+    assertThat(future).isCompletedWithValue(Thread.currentThread().getName());
+  }
+
+  @Test
+  void itShouldRunOnDedicatedThreadsWhenAsyncIsEnabled() {
+    // Given
+    underTest = new PaymentChargeExecutor(true, 2, 10, meterRegistry);
+
+    // When
+    String threadName = underTest.submit(() -> Thread.currentThread().getName()).join();
+
+    // Then
+    assertThat(underTest.isAsync()).isTrue();
+    assertThat(threadName).startsWith("payment-charge-");
+  }
+
+  @Test
+  void itShouldRejectWhenQueueIsFull() throws Exception {
+    // Given one busy thread and one queued task
+    underTest = new PaymentChargeExecutor(true, 1, 1, meterRegistry);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    underTest.submit(() -> {
+      started.countDown();
+      awaitQuietly(release);
+      return null;
+    });
+    started.await();
+    underTest.submit(() -> null);
+
+    // Then queue depth is visible and the next charge is rejected
+    assertThat(meterRegistry.get("payment.charge.executor.queue.depth").gauge().value()).isEqualTo(1);
+    assertThat(meterRegistry.get("payment.charge.executor.utilisation").gauge().value()).isEqualTo(1);
+    assertThatThrownBy(() -> underTest.submit(() -> null))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment charge queue is full");
+    assertThat(meterRegistry.get("payment.charge.executor.rejected").functionCounter().count()).isEqualTo(1);
+
+    release.countDown();
+  }
+
+  @Test
+  void itShouldRunEachChargeOnItsOwnVirtualThread() throws Exception {
+    assumeTrue(VirtualThreads.isSupported());
+
+    // Given
+    underTest = new PaymentChargeExecutor(true, true, 1, 1, meterRegistry);
+
+    // When
+    String threadName = underTest.submit(() -> Thread.currentThread().getName()).get();
+
+    // Then
+    assertThat(underTest.isAsync()).isTrue();
+    assertThat(threadName).startsWith("payment-charge-virtual-");
+  }
+
+  @Test
+  void itShouldRefuseVirtualThreadsBeforeJava21() {
+    assumeFalse(VirtualThreads.isSupported());
+
+    // Given
+    underTest = new PaymentChargeExecutor(false, 1, 1, meterRegistry);
+
+    // When
+    assertThatThrownBy(() -> new PaymentChargeExecutor(true, true, 1, 1, meterRegistry))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Virtual threads need a Java 21 or newer runtime");
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
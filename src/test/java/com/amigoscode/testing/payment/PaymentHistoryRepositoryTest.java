@@ -0,0 +1,65 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+@Import(PaymentHistoryRepository.class)
+public class PaymentHistoryRepositoryTest {
+  private final PaymentHistoryRepository underTest;
+  private final PaymentRepository paymentRepository;
+  private final TestEntityManager entityManager;
+
+  @Autowired
+  public PaymentHistoryRepositoryTest(
+      PaymentHistoryRepository underTest,
+      PaymentRepository paymentRepository,
+      TestEntityManager entityManager) {
+    this.underTest = underTest;
+    this.paymentRepository = paymentRepository;
+    this.entityManager = entityManager;
+  }
+
+  @Test
+  void itShouldPageThroughCustomerPaymentsByPaymentId() {
+    // Given five payments for one customer and one for another
+    UUID customerId = UUID.randomUUID();
+    for (long id = 1; id <= 5; id++) {
+      paymentRepository.save(new Payment(id, customerId, new BigDecimal("10.00"), Currency.GBP, "card", "item " + id));
+    }
+    paymentRepository.save(new Payment(6L, UUID.randomUUID(), new BigDecimal("10.00"), Currency.USD, "card", "other"));
+    entityManager.flush();
+
+    // When
+    List<Payment> firstPage = new ArrayList<>();
+    underTest.forEachPayment(customerId, 0, 2, firstPage::add);
+    List<Payment> lastPage = new ArrayList<>();
+    underTest.forEachPayment(customerId, firstPage.get(1).getPaymentId() + 2, 2, lastPage::add);
+
+    // Then
+    assertThat(firstPage).extracting(Payment::getPaymentId).containsExactly(1L, 2L);
+    assertThat(firstPage.get(0)).isEqualToComparingFieldByField(
+        new Payment(1L, customerId, new BigDecimal("10.00"), Currency.GBP, "card", "item 1"));
+    assertThat(lastPage).extracting(Payment::getPaymentId).containsExactly(5L);
+  }
+
+  @Test
+  void itShouldReturnNothingForCustomerWithoutPayments() {
+    // When
+    List<Payment> page = new ArrayList<>();
+    underTest.forEachPayment(UUID.randomUUID(), 0, 10, page::add);
+
+    // Then
+    assertThat(page).isEmpty();
+  }
+}
@@ -0,0 +1,247 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.ExpiringCache;
+import com.amigoscode.testing.payment.IdempotencyKey.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+public class PaymentIdempotencyServiceTest {
+  private static final Instant NOW = Instant.parse("2020-05-01T10:00:00Z");
+
+  @Mock
+  private IdempotencyKeyRepository idempotencyKeyRepository;
+
+  private PaymentIdempotencyService underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    underTest = new PaymentIdempotencyService(
+        idempotencyKeyRepository,
+        new ExpiringCache<>(100, 1, TimeUnit.HOURS),
+        Duration.ofHours(1),
+        Duration.ofMinutes(5),
+        Clock.fixed(NOW, ZoneOffset.UTC));
+    given(idempotencyKeyRepository.findById(anyString())).willReturn(Optional.empty());
+    given(idempotencyKeyRepository.saveAndFlush(any())).willAnswer(invocation -> invocation.getArgument(0));
+    given(idempotencyKeyRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  void itShouldRunPaymentOnceForDuplicateKeys() {
+    // Given a payment still in flight
+    UUID customerId = UUID.randomUUID();
+    CompletableFuture<Void> charge = new CompletableFuture<>();
+    AtomicInteger runs = new AtomicInteger();
+
+    // When the client retries with the same key
+    CompletableFuture<Void> first = underTest.execute("key-1", customerId, () -> {
+      runs.incrementAndGet();
+      return charge;
+    });
+    CompletableFuture<Void> retry = underTest.execute("key-1", customerId, () -> {
+      runs.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+
+    // Then the retry waits on the original
+    assertThat(runs).hasValue(1);
+    assertThat(retry).isSameAs(first).isNotDone();
+    then(idempotencyKeyRepository).should(times(1)).findById("key-1");
+
+    charge.complete(null);
+    assertThat(retry).isCompleted();
+
+    ArgumentCaptor<IdempotencyKey> keyArgumentCaptor = ArgumentCaptor.forClass(IdempotencyKey.class);
+    then(idempotencyKeyRepository).should().save(keyArgumentCaptor.capture());
+    assertThat(keyArgumentCaptor.getValue().getStatus()).isEqualTo(Status.COMPLETED);
+  }
+
+  @Test
+  void itShouldReturnCompletedKeyFromDatabaseWithoutPaying() {
+    // Given the key was completed before a restart
+    UUID customerId = UUID.randomUUID();
+    given(idempotencyKeyRepository.findById("key-2")).willReturn(Optional.of(
+        new IdempotencyKey("key-2", customerId, Status.COMPLETED, NOW.minusSeconds(60))));
+    AtomicInteger runs = new AtomicInteger();
+
+    // When
+    CompletableFuture<Void> result = underTest.execute("key-2", customerId, () -> {
+      runs.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+
+    // Then
+    assertThat(result).isCompleted();
+    assertThat(runs).hasValue(0);
+    then(idempotencyKeyRepository).should(times(0)).saveAndFlush(any());
+  }
+
+  @Test
+  void itShouldRejectKeyClaimedByAnotherInstance() {
+    // Given
+    given(idempotencyKeyRepository.saveAndFlush(any())).willThrow(DataIntegrityViolationException.class);
+
+    // When
+    assertThatThrownBy(() -> underTest.execute("key-3", UUID.randomUUID(), CompletableFuture::new))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment with idempotency key key-3 is already in progress");
+  }
+
+  @Test
+  void itShouldRejectKeyReusedForAnotherCustomer() {
+    // Given
+    underTest.execute("key-4", UUID.randomUUID(), CompletableFuture::new);
+
+    // When
+    assertThatThrownBy(() -> underTest.execute("key-4", UUID.randomUUID(), CompletableFuture::new))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Idempotency key key-4 was used for another customer");
+  }
+
+  @Test
+  void itShouldFreeKeyWhenPaymentFails() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    CompletableFuture<Void> failed = CompletableFuture.failedFuture(new PaymentNotChargedException("Card not debited"));
+
+    // When
+    CompletableFuture<Void> result = underTest.execute("key-5", customerId, () -> failed);
+
+    // Then the failure is returned and a retry runs the payment again
+    assertThat(result).isCompletedExceptionally();
+    then(idempotencyKeyRepository).should().delete(any());
+
+    AtomicInteger runs = new AtomicInteger();
+    underTest.execute("key-5", customerId, () -> {
+      runs.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  void itShouldKeepKeyWhenCardMayHaveBeenDebited() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    CompletableFuture<Void> failed = CompletableFuture.failedFuture(new IllegalStateException("Charge timed out"));
+
+    // When
+    CompletableFuture<Void> result = underTest.execute("key-6", customerId, () -> failed);
+
+    // Then the key is kept as failed and a retry does not pay again
+    assertThat(result).isCompletedExceptionally();
+    then(idempotencyKeyRepository).should(times(0)).delete(any());
+    ArgumentCaptor<IdempotencyKey> keyCaptor = ArgumentCaptor.forClass(IdempotencyKey.class);
+    then(idempotencyKeyRepository).should().save(keyCaptor.capture());
+    assertThat(keyCaptor.getValue().getStatus()).isEqualTo(Status.FAILED);
+
+    AtomicInteger runs = new AtomicInteger();
+    CompletableFuture<Void> retry = underTest.execute("key-6", customerId, () -> {
+      runs.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+    assertThat(retry).isCompletedExceptionally();
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void itShouldRejectKeyThatFailedBeforeARestart() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    given(idempotencyKeyRepository.findById("key-7")).willReturn(Optional.of(
+        new IdempotencyKey("key-7", customerId, Status.FAILED, NOW.minusSeconds(60))));
+
+    // When
+    assertThatThrownBy(() -> underTest.execute("key-7", customerId, CompletableFuture::new))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment with idempotency key key-7 failed after the card may have been debited");
+  }
+
+  @Test
+  void itShouldCompleteResultWhenKeyCannotBeSaved() {
+    // Given
+    given(idempotencyKeyRepository.save(any())).willThrow(new IllegalStateException("Database down"));
+
+    // When
+    CompletableFuture<Void> result = underTest.execute(
+        "key-8", UUID.randomUUID(), () -> CompletableFuture.completedFuture(null));
+
+    // Then
+    assertThat(result).isCompleted();
+  }
+
+  @Test
+  void itShouldFailKeyAbandonedInProgressWithoutPaying() {
+    // Given a key left in progress by an instance that died, whose charge may have gone through
+    UUID customerId = UUID.randomUUID();
+    IdempotencyKey abandoned = new IdempotencyKey("key-9", customerId, Status.IN_PROGRESS, NOW.minusSeconds(600));
+    given(idempotencyKeyRepository.findById("key-9")).willReturn(Optional.of(abandoned));
+    given(idempotencyKeyRepository.failInProgress("key-9")).willReturn(1);
+    AtomicInteger runs = new AtomicInteger();
+
+    // When
+    assertThatThrownBy(() -> underTest.execute("key-9", customerId, () -> {
+      runs.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    }))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment with idempotency key key-9 failed after the card may have been debited");
+
+    // Then
+    assertThat(runs).hasValue(0);
+    then(idempotencyKeyRepository).should(never()).delete(any());
+  }
+
+  @Test
+  void itShouldKeepOutcomeOfAbandonedKeyThatFinishedMeanwhile() {
+    // Given a key past its lease whose payment completed before it could be failed
+    UUID customerId = UUID.randomUUID();
+    given(idempotencyKeyRepository.findById("key-11")).willReturn(
+        Optional.of(new IdempotencyKey("key-11", customerId, Status.IN_PROGRESS, NOW.minusSeconds(600))),
+        Optional.of(new IdempotencyKey("key-11", customerId, Status.COMPLETED, NOW.minusSeconds(600))));
+    given(idempotencyKeyRepository.failInProgress("key-11")).willReturn(0);
+
+    // When
+    CompletableFuture<Void> result = underTest.execute("key-11", customerId, CompletableFuture::new);
+
+    // Then
+    assertThat(result).isCompleted();
+  }
+
+  @Test
+  void itShouldRejectKeyRecentlyClaimedByAnotherInstance() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    given(idempotencyKeyRepository.findById("key-10")).willReturn(Optional.of(
+        new IdempotencyKey("key-10", customerId, Status.IN_PROGRESS, NOW.minusSeconds(60))));
+
+    // When
+    assertThatThrownBy(() -> underTest.execute("key-10", customerId, CompletableFuture::new))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment with idempotency key key-10 is already in progress");
+  }
+}
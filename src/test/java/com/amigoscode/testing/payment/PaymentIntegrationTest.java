@@ -11,23 +11,28 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 public class PaymentIntegrationTest {
   @Autowired
-  private PaymentRepository paymentRepository;
+  private PaymentHistoryRepository paymentHistoryRepository;
   @Autowired
   private MockMvc mockMvc;
 
@@ -42,7 +47,7 @@ public class PaymentIntegrationTest {
         .content(Objects.requireNonNull(stringifyJsonObject(customerRegistrationRequest))));
     customerRegistrationResultActions.andExpect(status().isOk());
 
-    // Payment
+    // Payment, with a client id the server must not use
     long paymentId = 1L;
     Payment payment = new Payment(
       paymentId,
@@ -53,14 +58,37 @@ public class PaymentIntegrationTest {
       "books"
     );
     PaymentRequest paymentRequest = new PaymentRequest(payment);
-    ResultActions paymentResultActions = mockMvc.perform(post("/api/v1/payment")
+    MvcResult paymentResult = mockMvc.perform(post("/api/v1/payment")
         .contentType(MediaType.APPLICATION_JSON)
-        .content(Objects.requireNonNull(stringifyJsonObject(paymentRequest))));
-    paymentResultActions.andExpect(status().isOk());
+        .content(Objects.requireNonNull(stringifyJsonObject(paymentRequest))))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(paymentResult)).andExpect(status().isOk());
 
-    assertThat(paymentRepository.findById(paymentId))
-        .isPresent()
-        .hasValueSatisfying(p -> assertThat(p).isEqualToComparingFieldByField(payment));
+    List<Payment> payments = paymentsOf(customerId);
+    assertThat(payments).hasSize(1);
+    assertThat(payments.get(0)).isEqualToIgnoringGivenFields(payment, "paymentId");
+    assertThat(payments.get(0).getPaymentId()).isNotNull();
+
+    // a second payment sent with the first one's id is stored as a new row
+    Payment secondPayment = new Payment(
+        payments.get(0).getPaymentId(), customerId, new BigDecimal("5.00"), Currency.GBP, "0x0x0x", "pens");
+    MvcResult secondPaymentResult = mockMvc.perform(post("/api/v1/payment")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(Objects.requireNonNull(stringifyJsonObject(new PaymentRequest(secondPayment)))))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(secondPaymentResult)).andExpect(status().isOk());
+
+    assertThat(paymentsOf(customerId))
+        .extracting(Payment::getDescription)
+        .containsExactly("books", "pens");
+  }
+
+  private List<Payment> paymentsOf(UUID customerId) {
+    List<Payment> payments = new ArrayList<>();
+    paymentHistoryRepository.forEachPayment(customerId, 0, 100, payments::add);
+    return payments;
   }
 
   private String stringifyJsonObject(Object object) throws JsonProcessingException {
@@ -0,0 +1,128 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// PaymentWriter commits for real here, an event only reaches the outbox when its payment commits
+@DataJpaTest(properties = {
+    "spring.jpa.properties.javax.persistence.validation.mode=none",
+    "payment.outbox.enabled=true"
+})
+@Import({PaymentTotals.class, PaymentWriter.class, PaymentOutbox.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PaymentOutboxTest {
+  private final PaymentOutbox underTest;
+  private final PaymentWriter paymentWriter;
+  private final PaymentTotals paymentTotals;
+  private final TransactionTemplate transactionTemplate;
+
+  @TempDir
+  Path directory;
+
+  @Autowired
+  public PaymentOutboxTest(
+      PaymentOutbox underTest,
+      PaymentWriter paymentWriter,
+      PaymentTotals paymentTotals,
+      PlatformTransactionManager transactionManager) {
+    this.underTest = underTest;
+    this.paymentWriter = paymentWriter;
+    this.paymentTotals = paymentTotals;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Test
+  void itShouldRecordAnEventPerCommittedPayment() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+
+    // When
+    Payment saved = paymentWriter.save(payment(customerId, "10.50", Currency.GBP));
+    paymentWriter.saveAll(List.of(payment(customerId, "1.00", Currency.USD)));
+
+    // Then
+    assertThat(eventsOf(customerId))
+        .extracting(PaymentEvent::getPaymentId, PaymentEvent::getAmount, PaymentEvent::getCurrency)
+        .contains(tuple(saved.getPaymentId(), new BigDecimal("10.50"), Currency.GBP))
+        .hasSize(2);
+  }
+
+  @Test
+  void itShouldNotRecordEventsOfRolledBackPayments() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+
+    // When the writer joins an outer transaction that rolls back
+    paymentTotals.recording(() -> transactionTemplate.execute(status -> {
+      paymentWriter.save(payment(customerId, "10.50", Currency.GBP));
+      status.setRollbackOnly();
+      return null;
+    }));
+
+    // Then
+    assertThat(eventsOf(customerId)).isEmpty();
+  }
+
+  @Test
+  void itShouldRefuseToRecordOutsideTransaction() {
+    assertThatThrownBy(() -> underTest.record(List.of(payment(UUID.randomUUID(), "1.00", Currency.USD))))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("inside the payment transaction");
+  }
+
+  @Test
+  void itShouldRelayEventsToTheLogAndDeleteThem() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    paymentWriter.saveAll(List.of(
+        payment(customerId, "1.00", Currency.USD),
+        payment(customerId, "2.00", Currency.USD)));
+    PaymentEventLog paymentEventLog = new PaymentEventLog(new ObjectMapper(), directory.toString(), 4096, 4);
+    PaymentOutboxRelay relay = new PaymentOutboxRelay(underTest, paymentEventLog, 1000, 50, new SimpleMeterRegistry());
+
+    // When
+    int relayed = relay.relayOnce();
+
+    // Then
+    List<PaymentEvent> logged = new ArrayList<>();
+    long next = paymentEventLog.read(0, 1000, logged::add);
+    assertThat(relayed).isEqualTo(logged.size());
+    assertThat(logged)
+        .filteredOn(event -> event.getCustomerId().equals(customerId))
+        .extracting(PaymentEvent::getAmount)
+        .containsExactly(new BigDecimal("1.00"), new BigDecimal("2.00"));
+    assertThat(next).isEqualTo(paymentEventLog.endOffset());
+    assertThat(eventsOf(customerId)).isEmpty();
+    assertThat(relay.relayOnce()).isZero();
+  }
+
+  private List<PaymentEvent> eventsOf(UUID customerId) {
+    return underTest.poll(10000).stream()
+        .filter(event -> event.getCustomerId().equals(customerId))
+        .collect(Collectors.toList());
+  }
+
+  private static Payment payment(UUID customerId, String amount, Currency currency) {
+    return new Payment(null, customerId, new BigDecimal(amount), currency, "card", "item");
+  }
+}
@@ -41,4 +41,25 @@ public class PaymentRepositoryTest {
         .isPresent()
         .hasValueSatisfying(p -> assertThat(p).isEqualTo(payment));
   }
+
+  @Test
+  void itShouldAllocateConsecutivePaymentIdsFromPooledBlocks() {
+    Payment first = testPaymentRepository.save(new Payment(
+        null,
+        UUID.randomUUID(),
+        new BigDecimal("10.00"),
+        Currency.USD, "card123",
+        "Donation"
+    ));
+    Payment second = testPaymentRepository.save(new Payment(
+        null,
+        UUID.randomUUID(),
+        new BigDecimal("20.00"),
+        Currency.GBP, "card456",
+        "Books"
+    ));
+
+    assertThat(first.getPaymentId()).isNotNull();
+    assertThat(second.getPaymentId()).isEqualTo(first.getPaymentId() + 1);
+  }
 }
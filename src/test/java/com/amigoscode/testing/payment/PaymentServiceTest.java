@@ -1,7 +1,8 @@
 package com.amigoscode.testing.payment;
 
-import com.amigoscode.testing.customer.Customer;
 import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.KnownCustomerIds;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -9,36 +10,49 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
-import static org.mockito.Mockito.mock;
 
 public class PaymentServiceTest {
   @Mock
   private CustomerRepository customerRepository;
   @Mock
-  private PaymentRepository paymentRepository;
+  private PaymentWriter paymentWriter;
   @Mock
   private CardPaymentCharger cardPaymentCharger;
+  @Mock
+  private PaymentWriteBehindBuffer paymentWriteBehindBuffer;
 
+  private SimpleMeterRegistry meterRegistry;
   private PaymentService testPaymentService;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.initMocks(this);
-    testPaymentService = new PaymentService(customerRepository, paymentRepository, cardPaymentCharger);
+    meterRegistry = new SimpleMeterRegistry();
+    testPaymentService = new PaymentService(
+        new KnownCustomerIds(customerRepository, new SimpleMeterRegistry(), 100, 60),
+        paymentWriter,
+        cardPaymentCharger,
+        new PaymentChargeExecutor(true, 1, 1, new SimpleMeterRegistry()),
+        paymentWriteBehindBuffer,
+        new PaymentMetrics(meterRegistry));
   }
 
   @Test
   void itShouldChargeCardSuccessfully() {
     UUID customerId = UUID.randomUUID();
 
-    given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
+    given(customerRepository.existsById(customerId)).willReturn(true);
 
     Payment payment = new Payment(
         null,
@@ -52,8 +66,7 @@ public class PaymentServiceTest {
 
     given(cardPaymentCharger.chargeCard(
         paymentRequest.getPayment().getSource(),
-        paymentRequest.getPayment().getAmount(),
-        paymentRequest.getPayment().getCurrency(),
+        paymentRequest.getPayment().getMoney(),
         paymentRequest.getPayment().getDescription()
     )).willReturn(new CardPaymentCharge(true));
 
@@ -61,7 +74,7 @@ public class PaymentServiceTest {
 
     ArgumentCaptor<Payment> paymentArgumentCaptor = ArgumentCaptor.forClass(Payment.class);
 
-    then(paymentRepository).should().save(paymentArgumentCaptor.capture());
+    then(paymentWriter).should().save(paymentArgumentCaptor.capture());
 
     Payment paymentRepositoryArgument = paymentArgumentCaptor.getValue();
     assertThat(paymentRepositoryArgument)
@@ -74,7 +87,7 @@ public class PaymentServiceTest {
   void itShouldThrowWhenCardIsNotCharged() {
     // Given customer exists
     UUID customerId = UUID.randomUUID();
-    given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
+    given(customerRepository.existsById(customerId)).willReturn(true);
 
     // Payment request
     PaymentRequest paymentRequest = new PaymentRequest(
@@ -91,8 +104,7 @@ public class PaymentServiceTest {
     // Given card is not charged successfully
     given(cardPaymentCharger.chargeCard(
         paymentRequest.getPayment().getSource(),
-        paymentRequest.getPayment().getAmount(),
-        paymentRequest.getPayment().getCurrency(),
+        paymentRequest.getPayment().getMoney(),
         paymentRequest.getPayment().getDescription()
     )).willReturn(new CardPaymentCharge(false));
 
@@ -100,14 +112,16 @@ public class PaymentServiceTest {
         .isInstanceOf(IllegalStateException.class)
         .hasMessageContaining("Card not debited for customer " + customerId);
 
-    then(paymentRepository).shouldHaveNoInteractions();
+    then(paymentWriter).shouldHaveNoInteractions();
+    assertThat(rejections("card_not_debited")).isEqualTo(1);
+    assertThat(meterRegistry.get("payment.stage").tag("stage", "charge").timer().count()).isEqualTo(1);
   }
 
   @Test
   void itShouldNotChargeCardAndThrowWhenCurrencyNotSupported() {
     // Given customer exists
     UUID customerId = UUID.randomUUID();
-    given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
+    given(customerRepository.existsById(customerId)).willReturn(true);
 
     // Payment request with unsupported Euros
     PaymentRequest paymentRequest = new PaymentRequest(
@@ -128,14 +142,15 @@ public class PaymentServiceTest {
 
     // Then
     then(cardPaymentCharger).shouldHaveNoInteractions();
-    then(paymentRepository).shouldHaveNoInteractions();
+    then(paymentWriter).shouldHaveNoInteractions();
+    assertThat(rejections("unsupported_currency")).isEqualTo(1);
   }
 
   @Test
   void itShouldNotChargeAndThrowWhenCustomerNotFound() {
     // Given
     UUID customerId = UUID.randomUUID();
-    given(customerRepository.findById(customerId)).willReturn(Optional.empty());
+    given(customerRepository.existsById(customerId)).willReturn(false);
 
     // When
     assertThatThrownBy(() -> testPaymentService.chargeCard(customerId, new PaymentRequest(new Payment())))
@@ -144,6 +159,291 @@ public class PaymentServiceTest {
 
     // Then
     then(cardPaymentCharger).shouldHaveNoInteractions();
-    then(paymentRepository).shouldHaveNoInteractions();
+    then(paymentWriter).shouldHaveNoInteractions();
+    assertThat(rejections("unknown_customer")).isEqualTo(1);
+    assertThat(meterRegistry.get("payment.stage").tag("stage", "customer_lookup").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldRejectPaymentWithoutCustomerIdAsCustomerNotFound() {
+    // When
+    assertThatThrownBy(() -> testPaymentService.chargeCardAsync(null, new PaymentRequest(new Payment())))
+        .isInstanceOf(PaymentNotChargedException.class)
+        .hasMessageContaining("Customer with id null not found");
+
+    // Then
+    then(customerRepository).shouldHaveNoInteractions();
+    then(cardPaymentCharger).shouldHaveNoInteractions();
+    assertThat(rejections("unknown_customer")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldChargeCardAsynchronously() throws Exception {
+    // Given customer exists
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+
+    PaymentRequest paymentRequest = new PaymentRequest(
+        new Payment(
+            null,
+            null,
+            new BigDecimal("100.00"),
+            Currency.GBP,
+            "card123",
+            "Donation"
+        )
+    );
+
+    // Given card is charged on the charge executor
+    given(cardPaymentCharger.chargeCard(
+        paymentRequest.getPayment().getSource(),
+        paymentRequest.getPayment().getMoney(),
+        paymentRequest.getPayment().getDescription()
+    )).willAnswer(invocation -> {
+      assertThat(Thread.currentThread().getName()).startsWith("payment-charge-");
+      return new CardPaymentCharge(true);
+    });
+
+    // When
+    testPaymentService.chargeCardAsync(customerId, paymentRequest).get();
+
+    // Then payment is inserted once the charge completes
+    ArgumentCaptor<Payment> paymentArgumentCaptor = ArgumentCaptor.forClass(Payment.class);
+    then(paymentWriter).should().save(paymentArgumentCaptor.capture());
+    assertThat(paymentArgumentCaptor.getValue().getCustomerId()).isEqualTo(customerId);
+  }
+
+  @Test
+  void itShouldFailFutureWhenCardIsNotChargedAsynchronously() {
+    // Given customer exists
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+
+    PaymentRequest paymentRequest = new PaymentRequest(
+        new Payment(
+            null,
+            null,
+            new BigDecimal("100.00"),
+            Currency.GBP,
+            "card123",
+            "Donation"
+        )
+    );
+
+    // Given card is not charged successfully
+    given(cardPaymentCharger.chargeCard(
+        paymentRequest.getPayment().getSource(),
+        paymentRequest.getPayment().getMoney(),
+        paymentRequest.getPayment().getDescription()
+    )).willReturn(new CardPaymentCharge(false));
+
+    // When
+    CompletableFuture<Void> future = testPaymentService.chargeCardAsync(customerId, paymentRequest);
+
+    // Then
+    assertThatThrownBy(future::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Card not debited for customer " + customerId);
+    then(paymentWriter).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void itShouldRejectUnknownCustomerBeforeQueueingCharge() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(false);
+
+    // When
+    assertThatThrownBy(() -> testPaymentService.chargeCardAsync(customerId, new PaymentRequest(new Payment())))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Customer with id " + customerId + " not found");
+
+    // Then
+    then(cardPaymentCharger).shouldHaveNoInteractions();
+    then(paymentWriter).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void itShouldSaveThroughWriteBehindBufferWhenEnabled() {
+    // Given customer exists and write-behind is on
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+    given(paymentWriteBehindBuffer.isEnabled()).willReturn(true);
+    given(paymentWriteBehindBuffer.save(any())).willAnswer(
+        invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+
+    PaymentRequest paymentRequest = new PaymentRequest(
+        new Payment(
+            null,
+            null,
+            new BigDecimal("100.00"),
+            Currency.USD,
+            "card123",
+            "Donation"
+        )
+    );
+    given(cardPaymentCharger.chargeCard(
+        paymentRequest.getPayment().getSource(),
+        paymentRequest.getPayment().getMoney(),
+        paymentRequest.getPayment().getDescription()
+    )).willReturn(new CardPaymentCharge(true));
+
+    // When
+    testPaymentService.chargeCard(customerId, paymentRequest);
+
+    // Then the buffer, not the repository, receives the payment
+    then(paymentWriteBehindBuffer).should().save(paymentRequest.getPayment());
+    then(paymentWriter).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void itShouldThrowWhenWriteBehindCommitFails() {
+    // Given customer exists and the buffered commit fails
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+    given(paymentWriteBehindBuffer.isEnabled()).willReturn(true);
+    given(paymentWriteBehindBuffer.save(any())).willReturn(
+        CompletableFuture.failedFuture(new IllegalStateException("commit failed")));
+
+    PaymentRequest paymentRequest = new PaymentRequest(
+        new Payment(
+            null,
+            null,
+            new BigDecimal("100.00"),
+            Currency.USD,
+            "card123",
+            "Donation"
+        )
+    );
+    given(cardPaymentCharger.chargeCard(
+        paymentRequest.getPayment().getSource(),
+        paymentRequest.getPayment().getMoney(),
+        paymentRequest.getPayment().getDescription()
+    )).willReturn(new CardPaymentCharge(true));
+
+    // When / Then the caller sees the commit failure itself
+    assertThatThrownBy(() -> testPaymentService.chargeCard(customerId, paymentRequest))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("commit failed");
+
+    // and the failed save is still timed
+    assertThat(meterRegistry.get("payment.stage").tag("stage", "save").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldChargeBatchAndReturnResultForEachRow() {
+    // Given one known customer paying three times and one unknown customer
+    UUID customerId = UUID.randomUUID();
+    UUID unknownCustomerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+    given(customerRepository.existsById(unknownCustomerId)).willReturn(false);
+
+    List<PaymentRequest> paymentRequests = List.of(
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.GBP, "card1", "a")),
+        new PaymentRequest(new Payment(null, unknownCustomerId, new BigDecimal("10.00"), Currency.GBP, "card2", "b")),
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.EUR, "card1", "c")),
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.USD, "card1", "d")),
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.USD, "card3", "e"))
+    );
+
+    // Given the processor declines the last charge
+    given(cardPaymentCharger.chargeCards(any())).willReturn(
+        List.of(new CardPaymentCharge(true), new CardPaymentCharge(true), new CardPaymentCharge(false)));
+
+    // Given the writer hands back saved copies with generated ids
+    given(paymentWriter.saveAll(any())).willReturn(List.of(
+        new Payment(101L, customerId, new BigDecimal("10.00"), Currency.GBP, "card1", "a"),
+        new Payment(102L, customerId, new BigDecimal("10.00"), Currency.USD, "card1", "d")));
+
+    // When
+    List<PaymentResult> results = testPaymentService.chargeCards(paymentRequests);
+
+    // Then
+    assertThat(results).extracting(PaymentResult::getStatus).containsExactly(
+        PaymentResult.Status.PAID,
+        PaymentResult.Status.CUSTOMER_NOT_FOUND,
+        PaymentResult.Status.CURRENCY_NOT_SUPPORTED,
+        PaymentResult.Status.PAID,
+        PaymentResult.Status.CARD_NOT_DEBITED);
+    assertThat(results).extracting(PaymentResult::getRow).containsExactly(0, 1, 2, 3, 4);
+    assertThat(results).extracting(PaymentResult::getPaymentId).containsExactly(101L, null, null, 102L, null);
+
+    // Then each customer is checked once and the processor sees only valid rows
+    then(customerRepository).should().existsById(customerId);
+    ArgumentCaptor<List<CardPaymentChargeRequest>> chargeRequestsCaptor = ArgumentCaptor.forClass(List.class);
+    then(cardPaymentCharger).should().chargeCards(chargeRequestsCaptor.capture());
+    assertThat(chargeRequestsCaptor.getValue())
+        .extracting(CardPaymentChargeRequest::getDescription)
+        .containsExactly("a", "d", "e");
+
+    // Then paid rows are written in one batch
+    ArgumentCaptor<List<Payment>> paymentsCaptor = ArgumentCaptor.forClass(List.class);
+    then(paymentWriter).should().saveAll(paymentsCaptor.capture());
+    assertThat(paymentsCaptor.getValue())
+        .extracting(Payment::getDescription)
+        .containsExactly("a", "d");
+  }
+
+  @Test
+  void itShouldTellFailedAndUnknownChargesApartFromDeclines() {
+    // Given one charge that never reached the processor and one whose outcome is unknown
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+    given(cardPaymentCharger.chargeCards(any())).willReturn(List.of(
+        new CardPaymentCharge(CardPaymentCharge.Outcome.FAILED),
+        new CardPaymentCharge(CardPaymentCharge.Outcome.UNKNOWN)));
+
+    // When
+    List<PaymentResult> results = testPaymentService.chargeCards(List.of(
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.GBP, "card1", "a")),
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.GBP, "card1", "b"))));
+
+    // Then
+    assertThat(results).extracting(PaymentResult::getStatus).containsExactly(
+        PaymentResult.Status.CHARGE_FAILED,
+        PaymentResult.Status.CHARGE_UNKNOWN);
+    then(paymentWriter).shouldHaveNoInteractions();
+    assertThat(rejections("charge_failed")).isEqualTo(1);
+    assertThat(rejections("charge_unknown")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldReportChargedRowsWhenTheBatchCannotBeSaved() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    given(customerRepository.existsById(customerId)).willReturn(true);
+    given(cardPaymentCharger.chargeCards(any())).willReturn(
+        List.of(new CardPaymentCharge(true), new CardPaymentCharge(false)));
+    given(paymentWriter.saveAll(any())).willThrow(new IllegalStateException("database down"));
+
+    // When
+    List<PaymentResult> results = testPaymentService.chargeCards(List.of(
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.GBP, "card1", "a")),
+        new PaymentRequest(new Payment(null, customerId, new BigDecimal("10.00"), Currency.GBP, "card2", "b"))));
+
+    // Then
+    assertThat(results).extracting(PaymentResult::getStatus).containsExactly(
+        PaymentResult.Status.SAVE_FAILED,
+        PaymentResult.Status.CARD_NOT_DEBITED);
+    assertThat(rejections("save_failed")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldRefuseBatchWithEmptyRowBeforeCharging() {
+    // Given
+    List<PaymentRequest> paymentRequests = Arrays.asList(
+        new PaymentRequest(new Payment(null, UUID.randomUUID(), new BigDecimal("10.00"), Currency.GBP, "card1", "a")),
+        null);
+
+    // Then
+    assertThatThrownBy(() -> testPaymentService.chargeCards(paymentRequests))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment batch row 1 has no payment");
+    then(cardPaymentCharger).shouldHaveNoInteractions();
+  }
+
+  private double rejections(String reason) {
+    return meterRegistry.get("payment.rejections").tag("reason", reason).counter().count();
   }
 }
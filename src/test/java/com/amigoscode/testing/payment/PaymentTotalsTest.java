@@ -0,0 +1,105 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static com.amigoscode.testing.Utils.UuidBytes.toBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// PaymentWriter commits for real here, totals only move once a payment transaction commits
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+@Import({PaymentTotals.class, PaymentWriter.class, PaymentOutbox.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PaymentTotalsTest {
+  private final PaymentTotals underTest;
+  private final PaymentWriter paymentWriter;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public PaymentTotalsTest(
+      PaymentTotals underTest,
+      PaymentWriter paymentWriter,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager) {
+    this.underTest = underTest;
+    this.paymentWriter = paymentWriter;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Test
+  void itShouldAddCommittedPaymentsToTotals() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+
+    // When
+    paymentWriter.save(payment(customerId, "10.50", Currency.GBP));
+    paymentWriter.saveAll(List.of(payment(customerId, "4.50", Currency.GBP), payment(customerId, "1.00", Currency.USD)));
+
+    // Then
+    assertThat(underTest.getTotals(customerId))
+        .extracting(PaymentTotal::getCurrency, PaymentTotal::getTotal, PaymentTotal::getPaymentCount)
+        .containsExactly(
+            tuple(Currency.USD, new BigDecimal("1.00"), 1L),
+            tuple(Currency.GBP, new BigDecimal("15.00"), 2L));
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT SUM(total_minor_units) FROM payment_total WHERE customer_id = ?", Long.class, toBytes(customerId)))
+        .isEqualTo(1600L);
+  }
+
+  @Test
+  void itShouldRefuseToRecordOutsideTransaction() {
+    assertThatThrownBy(() -> underTest.record(List.of(payment(UUID.randomUUID(), "1.00", Currency.USD))))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("inside the payment transaction");
+  }
+
+  @Test
+  void itShouldRefuseToLockInsideTransaction() {
+    // a rebuild waiting for the lock could otherwise need the connection this transaction holds
+    assertThatThrownBy(() -> transactionTemplate.execute(status -> underTest.recording(() -> null)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("before the payment transaction starts");
+    assertThatThrownBy(() -> transactionTemplate.execute(status -> {
+      underTest.record(List.of(payment(UUID.randomUUID(), "1.00", Currency.USD)));
+      return null;
+    }))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("in a transaction run by recording");
+  }
+
+  @Test
+  void itShouldRebuildTotalsFromPayments() {
+    // Given totals that drifted from the payment table
+    UUID customerId = UUID.randomUUID();
+    paymentWriter.save(payment(customerId, "2.00", Currency.USD));
+    jdbcTemplate.update("UPDATE payment_total SET total_minor_units = 0, payment_count = 0 WHERE customer_id = ?",
+        (Object) toBytes(customerId));
+
+    // When
+    underTest.rebuild();
+
+    // Then
+    assertThat(underTest.getTotals(customerId))
+        .extracting(PaymentTotal::getTotal, PaymentTotal::getPaymentCount)
+        .containsExactly(tuple(new BigDecimal("2.00"), 1L));
+  }
+
+  private static Payment payment(UUID customerId, String amount, Currency currency) {
+    return new Payment(null, customerId, new BigDecimal(amount), currency, "card", "item");
+  }
+}
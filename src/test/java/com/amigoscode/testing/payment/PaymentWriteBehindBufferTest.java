@@ -0,0 +1,118 @@
+package com.amigoscode.testing.payment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.atLeastOnce;
+
+public class PaymentWriteBehindBufferTest {
+  @Mock
+  private PaymentWriter paymentWriter;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private PaymentWriteBehindBuffer underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    underTest = new PaymentWriteBehindBuffer(
+        paymentWriter, true, 10, 50, 100, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    underTest.stop();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void itShouldCommitConcurrentSavesTogether() throws Exception {
+    // Given saves queued before the flusher starts
+    given(paymentWriter.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+    List<CompletableFuture<Payment>> futures = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      futures.add(underTest.save(payment()));
+    }
+
+    // When
+    underTest.start();
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    // Then one saveAll, which is one transaction
+    ArgumentCaptor<List<Payment>> paymentsArgumentCaptor = ArgumentCaptor.forClass(List.class);
+    then(paymentWriter).should().saveAll(paymentsArgumentCaptor.capture());
+    assertThat(paymentsArgumentCaptor.getValue()).hasSize(5);
+    assertThat(meterRegistry.get("payment.write-behind.batch.size").summary().max()).isEqualTo(5);
+  }
+
+  @Test
+  void itShouldFailOnlyThePaymentThatCannotBeSaved() throws Exception {
+    // Given the batch fails and one payment fails on its own too
+    Payment good = payment();
+    Payment bad = payment();
+    given(paymentWriter.saveAll(anyList())).willThrow(new IllegalStateException("batch failed"));
+    given(paymentWriter.save(same(good))).willReturn(good);
+    given(paymentWriter.save(same(bad))).willThrow(new IllegalStateException("row failed"));
+
+    // When
+    CompletableFuture<Payment> goodFuture = underTest.save(good);
+    CompletableFuture<Payment> badFuture = underTest.save(bad);
+    underTest.start();
+
+    // Then
+    assertThat(goodFuture.get(5, TimeUnit.SECONDS)).isSameAs(good);
+    assertThatThrownBy(() -> badFuture.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasMessageContaining("row failed");
+    then(paymentWriter).should(atLeastOnce()).save(same(good));
+  }
+
+  @Test
+  void itShouldRejectWhenQueueIsFull() {
+    // Given a buffer whose flusher never started
+    underTest = new PaymentWriteBehindBuffer(
+        paymentWriter, true, 10, 50, 1, meterRegistry);
+    underTest.save(payment());
+
+    // Then
+    assertThatThrownBy(() -> underTest.save(payment()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment write-behind queue is full");
+  }
+
+  @Test
+  void itShouldRejectSavesAfterStop() throws Exception {
+    // Given
+    underTest.start();
+    underTest.stop();
+
+    // Then
+    assertThatThrownBy(() -> underTest.save(payment()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Payment write-behind buffer is stopped");
+  }
+
+  private static Payment payment() {
+    return new Payment(null, UUID.randomUUID(), new BigDecimal("10.00"), Currency.USD, "card123", "Donation");
+  }
+}
@@ -0,0 +1,89 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the WebFlux stack over R2DBC, with the charger wrapped for resilience as in production
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"payment.charger.resilience.enabled=true"})
+@ActiveProfiles("reactive")
+public class ReactivePaymentIntegrationTest {
+  @Autowired
+  private WebTestClient webTestClient;
+  @Autowired
+  private PaymentHistoryRepository paymentHistoryRepository;
+  @Autowired
+  private ReactivePaymentRepository reactivePaymentRepository;
+  @Autowired
+  private CardPaymentCharger cardPaymentCharger;
+  @Autowired
+  private PaymentTotals paymentTotals;
+
+  @Test
+  void itShouldChargeReactivelyThroughTheResilienceWrapper() {
+    assertThat(cardPaymentCharger)
+        .isInstanceOf(ResilientCardPaymentCharger.class)
+        .isInstanceOf(ReactiveCardPaymentCharger.class);
+  }
+
+  @Test
+  void itShouldCreatePaymentSuccessfully() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    webTestClient.put().uri("/api/v1/customer-registration")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new CustomerRegistrationRequest(new Customer(customerId, "James", "+447000000042")))
+        .exchange()
+        .expectStatus().isOk();
+
+    // When
+    Payment payment = new Payment(1L, customerId, new BigDecimal("100.00"), Currency.GBP, "0x0x0x", "books");
+    webTestClient.post().uri("/api/v1/payment")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new PaymentRequest(payment))
+        .exchange()
+        .expectStatus().isOk();
+
+    // Then
+    List<Payment> payments = new ArrayList<>();
+    paymentHistoryRepository.forEachPayment(customerId, 0, 100, payments::add);
+    assertThat(payments)
+        .extracting(Payment::getDescription)
+        .containsExactly("books");
+    assertThat(paymentTotals.getTotals(customerId))
+        .extracting(PaymentTotal::getTotal)
+        .containsExactly(new BigDecimal("100.00"));
+  }
+
+  @Test
+  void itShouldNotSkipIdsWhenSavesRaceAtABlockBoundary() {
+    // When more saves than one id block holds run concurrently
+    UUID customerId = UUID.randomUUID();
+    List<Payment> saved = Flux.range(0, 200)
+        .flatMap(i -> reactivePaymentRepository.save(
+            new Payment(null, customerId, new BigDecimal("1.00"), Currency.GBP, "card", "item " + i)), 16)
+        .collectList()
+        .block();
+
+    // Then every id is distinct and the ids are packed
+    assertThat(saved).extracting(Payment::getPaymentId).doesNotHaveDuplicates();
+    long lowest = saved.stream().mapToLong(Payment::getPaymentId).min().getAsLong();
+    long highest = saved.stream().mapToLong(Payment::getPaymentId).max().getAsLong();
+    assertThat(highest - lowest).isLessThan(200 + PaymentIdGenerator.DEFAULT_BLOCK_SIZE);
+  }
+}
@@ -0,0 +1,127 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.customer.ReactiveCustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+
+public class ReactivePaymentServiceTest {
+  @Mock
+  private ReactiveCustomerRepository customerRepository;
+  @Mock
+  private ReactivePaymentRepository paymentRepository;
+  @Mock
+  private ReactiveCardPaymentCharger cardPaymentCharger;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ReactivePaymentService underTest;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new ReactivePaymentService(
+        customerRepository,
+        paymentRepository,
+        cardPaymentCharger,
+        new PaymentMetrics(meterRegistry));
+  }
+
+  @Test
+  void itShouldChargeCardSuccessfully() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    Payment payment = new Payment(null, null, new BigDecimal("100.00"), Currency.USD, "card12345", "Donation");
+
+    given(customerRepository.existsById(customerId)).willReturn(Mono.just(true));
+    given(cardPaymentCharger.charge(any())).willReturn(Mono.just(new CardPaymentCharge(true)));
+    given(paymentRepository.save(any())).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+    // When
+    underTest.chargeCard(customerId, new PaymentRequest(payment)).block();
+
+    // Then
+    ArgumentCaptor<CardPaymentChargeRequest> chargeRequestCaptor = ArgumentCaptor.forClass(CardPaymentChargeRequest.class);
+    then(cardPaymentCharger).should().charge(chargeRequestCaptor.capture());
+    assertThat(chargeRequestCaptor.getValue().getCardSource()).isEqualTo("card12345");
+    assertThat(chargeRequestCaptor.getValue().getAmount()).isEqualTo(Money.of(new BigDecimal("100.00"), Currency.USD));
+
+    ArgumentCaptor<Payment> paymentArgumentCaptor = ArgumentCaptor.forClass(Payment.class);
+    then(paymentRepository).should().save(paymentArgumentCaptor.capture());
+    assertThat(paymentArgumentCaptor.getValue().getCustomerId()).isEqualTo(customerId);
+  }
+
+  @Test
+  void itShouldNotChargeCardWhenCustomerDoesNotExist() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    Payment payment = new Payment(null, null, new BigDecimal("100.00"), Currency.USD, "card12345", "Donation");
+
+    given(customerRepository.existsById(customerId)).willReturn(Mono.just(false));
+
+    // When
+    // Then
+    assertThatThrownBy(() -> underTest.chargeCard(customerId, new PaymentRequest(payment)).block())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("Customer with id %s not found", customerId));
+
+    then(cardPaymentCharger).shouldHaveNoInteractions();
+    then(paymentRepository).shouldHaveNoInteractions();
+    assertThat(rejections("unknown_customer")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldNotChargeCardWhenCurrencyNotSupported() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    Payment payment = new Payment(null, null, new BigDecimal("100.00"), Currency.EUR, "card12345", "Donation");
+
+    given(customerRepository.existsById(customerId)).willReturn(Mono.just(true));
+
+    // When
+    // Then
+    assertThatThrownBy(() -> underTest.chargeCard(customerId, new PaymentRequest(payment)).block())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("%s not supported", Currency.EUR));
+
+    then(cardPaymentCharger).shouldHaveNoInteractions();
+    then(paymentRepository).shouldHaveNoInteractions();
+    assertThat(rejections("unsupported_currency")).isEqualTo(1);
+  }
+
+  @Test
+  void itShouldNotSavePaymentWhenCardNotDebited() {
+    // Given
+    UUID customerId = UUID.randomUUID();
+    Payment payment = new Payment(null, null, new BigDecimal("100.00"), Currency.USD, "card12345", "Donation");
+
+    given(customerRepository.existsById(customerId)).willReturn(Mono.just(true));
+    given(cardPaymentCharger.charge(any())).willReturn(Mono.just(new CardPaymentCharge(false)));
+
+    // When
+    // Then
+    assertThatThrownBy(() -> underTest.chargeCard(customerId, new PaymentRequest(payment)).block())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("Card not debited for customer %s", customerId));
+
+    then(paymentRepository).shouldHaveNoInteractions();
+    assertThat(rejections("card_not_debited")).isEqualTo(1);
+  }
+
+  private double rejections(String reason) {
+    return meterRegistry.get("payment.rejections").tag("reason", reason).counter().count();
+  }
+}
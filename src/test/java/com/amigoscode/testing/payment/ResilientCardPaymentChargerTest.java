@@ -0,0 +1,249 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.Utils.CircuitBreaker;
+import com.amigoscode.testing.Utils.CircuitBreaker.State;
+import com.amigoscode.testing.payment.stripe.FaultInjectingCardPaymentCharger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+public class ResilientCardPaymentChargerTest {
+  private static final Money AMOUNT = Money.of(new BigDecimal("100.00"), Currency.USD);
+
+  private ResilientCardPaymentCharger underTest;
+
+  @AfterEach
+  void tearDown() {
+    underTest.close();
+  }
+
+  @Test
+  void itShouldChargeThroughDelegate() {
+    // Given
+    underTest = resilient(new FaultInjectingCardPaymentCharger(0, 0, 0), 1000, 0);
+
+    // When
+    CardPaymentCharge charge = charge();
+
+    // Then
+    assertThat(charge.isCardDebited()).isTrue();
+    assertThat(underTest.getAvailablePermits()).isEqualTo(2);
+  }
+
+  @Test
+  void itShouldTimeOutSlowCharges() {
+    // Given
+    underTest = resilient(new FaultInjectingCardPaymentCharger(1000, 0, 0), 50, 0);
+
+    // When
+    assertThatThrownBy(this::charge)
+        .isInstanceOf(IllegalStateException.class)
+        .isNotInstanceOf(PaymentNotChargedException.class)
+        .hasMessageContaining("Card payment charge timed out after 50 ms, the card may have been debited");
+
+    // Then a batch reports the outcome as unknown rather than declined
+    assertThat(underTest.chargeCards(List.of(new CardPaymentChargeRequest("card123xx", AMOUNT, "Donation"))))
+        .extracting(CardPaymentCharge::getOutcome)
+        .containsExactly(CardPaymentCharge.Outcome.UNKNOWN);
+  }
+
+  @Test
+  void itShouldOpenCircuitAfterFailures() {
+    // Given a processor failing every call
+    underTest = resilient(new FaultInjectingCardPaymentCharger(0, 0, 1), 1000, 0);
+
+    // When
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(this::charge).hasMessageContaining("injected failure");
+    }
+
+    // Then the processor is no longer called
+    assertThat(underTest.getCircuitState()).isEqualTo(State.OPEN);
+    assertThatThrownBy(this::charge)
+        .isInstanceOf(PaymentNotChargedException.class)
+        .hasMessageContaining("Card payment charger circuit is open");
+
+    // Then a batch reports its charges as failed, not as declined
+    assertThat(underTest.chargeCards(List.of(new CardPaymentChargeRequest("card123xx", AMOUNT, "Donation"))))
+        .extracting(CardPaymentCharge::getOutcome)
+        .containsExactly(CardPaymentCharge.Outcome.FAILED);
+  }
+
+  @Test
+  void itShouldRejectChargesBeyondBulkhead() throws Exception {
+    // Given two charges holding both permits
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(2);
+    underTest = resilient(blockingCharger(started, release), 1000, 0);
+    CompletableFuture<CardPaymentCharge> first = CompletableFuture.supplyAsync(this::charge);
+    CompletableFuture<CardPaymentCharge> second = CompletableFuture.supplyAsync(this::charge);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // When
+    assertThatThrownBy(this::charge)
+        .isInstanceOf(PaymentNotChargedException.class)
+        .hasMessageContaining("Too many concurrent card payment charges");
+
+    // Then
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS).isCardDebited()).isTrue();
+    assertThat(second.get(5, TimeUnit.SECONDS).isCardDebited()).isTrue();
+    assertThat(underTest.getCircuitState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void itShouldHedgeSlowIdempotentCharges() {
+    // Given a first attempt that hangs and a second that answers at once
+    AtomicInteger attempts = new AtomicInteger();
+    CardPaymentCharger slowFirstAttempt = new CardPaymentCharger() {
+      @Override
+      public CardPaymentCharge chargeCard(String cardSource, Money amount, String description) {
+        if (attempts.incrementAndGet() == 1) {
+          sleep(2000);
+        }
+        return new CardPaymentCharge(true);
+      }
+
+      @Override
+      public boolean isIdempotent() {
+        return true;
+      }
+    };
+    underTest = resilient(slowFirstAttempt, 1000, 20);
+
+    // When
+    CardPaymentCharge charge = charge();
+
+    // Then
+    assertThat(charge.isCardDebited()).isTrue();
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  void itShouldNotHedgeNonIdempotentCharges() {
+    // Given
+    AtomicInteger attempts = new AtomicInteger();
+    underTest = resilient((cardSource, amount, description) -> {
+      attempts.incrementAndGet();
+      sleep(100);
+      return new CardPaymentCharge(true);
+    }, 1000, 20);
+
+    // When
+    charge();
+
+    // Then
+    assertThat(attempts).hasValue(1);
+  }
+
+  @Test
+  void itShouldTimeOutSlowReactiveCharges() {
+    // Given a non-blocking processor
+    underTest = resilient(new FaultInjectingCardPaymentCharger(300, 0, 0), 50, 0);
+
+    // When
+    assertThatThrownBy(() -> underTest.charge(request()).block())
+        .isInstanceOf(IllegalStateException.class)
+        .isNotInstanceOf(PaymentNotChargedException.class)
+        .hasMessageContaining("Card payment charge timed out after 50 ms, the card may have been debited");
+
+    // Then the call still holds its permit until the processor answers, as a blocking one would
+    assertThat(underTest.getAvailablePermits()).isEqualTo(1);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (underTest.getAvailablePermits() < 2 && System.nanoTime() < deadline) {
+      sleep(10);
+    }
+    assertThat(underTest.getAvailablePermits()).isEqualTo(2);
+  }
+
+  @Test
+  void itShouldShutDownDelegateWhenClosed() throws Exception {
+    // Given a delegate with its own shutdown, which the container cannot see behind the wrapper
+    CardPaymentCharger delegate = mock(CardPaymentCharger.class, withSettings().extraInterfaces(DisposableBean.class));
+    underTest = resilient(delegate, 1000, 0);
+
+    // When
+    underTest.close();
+
+    // Then
+    then((DisposableBean) delegate).should().destroy();
+  }
+
+  @Test
+  void itShouldOpenCircuitForReactiveCharges() {
+    // Given a non-blocking processor failing every call
+    underTest = resilient(new FaultInjectingCardPaymentCharger(0, 0, 1), 1000, 0);
+
+    // When
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> underTest.charge(request()).block()).hasMessageContaining("injected failure");
+    }
+
+    // Then
+    assertThat(underTest.getCircuitState()).isEqualTo(State.OPEN);
+    assertThatThrownBy(() -> underTest.charge(request()).block())
+        .isInstanceOf(PaymentNotChargedException.class)
+        .hasMessageContaining("Card payment charger circuit is open");
+  }
+
+  @Test
+  void itShouldChargeBlockingDelegateReactively() {
+    // Given
+    underTest = resilient((cardSource, amount, description) -> new CardPaymentCharge(true), 1000, 0);
+
+    // When
+    CardPaymentCharge charge = underTest.charge(request()).block();
+
+    // Then
+    assertThat(charge.isCardDebited()).isTrue();
+  }
+
+  private static CardPaymentChargeRequest request() {
+    return new CardPaymentChargeRequest("card123xx", AMOUNT, "Donation");
+  }
+
+  private CardPaymentCharge charge() {
+    return underTest.chargeCard("card123xx", AMOUNT, "Donation");
+  }
+
+  private static ResilientCardPaymentCharger resilient(
+      CardPaymentCharger delegate,
+      long timeoutMillis,
+      long hedgeDelayMillis) {
+    return new ResilientCardPaymentCharger(
+        delegate, timeoutMillis, 2, 0, new CircuitBreaker(0.5, 2, 2, 60_000), hedgeDelayMillis);
+  }
+
+  private static CardPaymentCharger blockingCharger(CountDownLatch started, CountDownLatch release) {
+    return (cardSource, amount, description) -> {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new CardPaymentCharge(true);
+    };
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package com.amigoscode.testing.payment.stripe;
 
 import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.CardPaymentChargeRequest;
 import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Charge;
 import com.stripe.net.RequestOptions;
@@ -12,12 +14,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.doThrow;
@@ -39,8 +43,8 @@ public class StripeServiceTest {
   void itShouldChargeCard() throws Exception {
     // Given
     String cardSource = "0x0x0x";
-    BigDecimal amount = new BigDecimal("10.00");
     Currency currency = Currency.USD;
+    Money amount = Money.of(new BigDecimal("10.00"), currency);
     String description = "book";
 
     // Successful charge
@@ -49,7 +53,7 @@ public class StripeServiceTest {
     given(stripeApi.create(anyMap(), any())).willReturn(charge);
 
     // When
-    CardPaymentCharge cardPaymentCharge = underTest.chargeCard(cardSource, amount, currency, description);
+    CardPaymentCharge cardPaymentCharge = underTest.chargeCard(cardSource, amount, description);
 
     // Then
     ArgumentCaptor<Map<String, Object>> mapArgumentCaptor = ArgumentCaptor.forClass(Map.class);
@@ -59,7 +63,7 @@ public class StripeServiceTest {
     // Assert on requestMap
     Map<String, Object> requestMap = mapArgumentCaptor.getValue();
     assertThat(requestMap.keySet()).hasSize(4);
-    assertThat(requestMap.get("amount")).isEqualTo(amount);
+    assertThat(requestMap.get("amount")).isEqualTo(1000L);
     assertThat(requestMap.get("currency")).isEqualTo(currency);
     assertThat(requestMap.get("source")).isEqualTo(cardSource);
     assertThat(requestMap.get("description")).isEqualTo(description);
@@ -77,16 +81,40 @@ public class StripeServiceTest {
   void itShouldNotChargeWhenApiThrowsException() throws Exception {
     // Given
     String cardSource = "0x0x0x";
-    BigDecimal amount = new BigDecimal("10.00");
     Currency currency = Currency.USD;
+    Money amount = Money.of(new BigDecimal("10.00"), currency);
     String description = "books";
 
     StripeException stripeException = mock(StripeException.class);
     doThrow(stripeException).when(stripeApi).create(anyMap(), any());
 
-    assertThatThrownBy(() -> underTest.chargeCard(cardSource, amount, currency, description))
+    assertThatThrownBy(() -> underTest.chargeCard(cardSource, amount, description))
         .isInstanceOf(IllegalStateException.class)
         .hasRootCause(stripeException)
         .hasMessageContaining("Cannot make stripe charge");
   }
+
+  @Test
+  void itShouldChargeBatchInOrderAndDeclineFailedItems() throws Exception {
+    // Given
+    Charge charge = new Charge();
+    charge.setPaid(true);
+    given(stripeApi.create(anyMap(), any())).willReturn(charge);
+    StripeException stripeException = mock(StripeException.class);
+    doThrow(stripeException).when(stripeApi).create(argThat(params -> "bad".equals(params.get("source"))), any());
+
+    List<CardPaymentChargeRequest> requests = List.of(
+        new CardPaymentChargeRequest("good", Money.of(new BigDecimal("10.00"), Currency.USD), "a"),
+        new CardPaymentChargeRequest("bad", Money.of(new BigDecimal("10.00"), Currency.USD), "b"),
+        new CardPaymentChargeRequest("good", Money.of(new BigDecimal("10.00"), Currency.USD), "c")
+    );
+
+    // When
+    List<CardPaymentCharge> charges = underTest.chargeCards(requests);
+
+    // Then
+    assertThat(charges)
+        .extracting(CardPaymentCharge::isCardDebited)
+        .containsExactly(true, false, true);
+  }
 }
@@ -0,0 +1,58 @@
+package com.amigoscode.testing.utils;
+
+import com.amigoscode.testing.Utils.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BloomFilterTest {
+
+  @Test
+  void itShouldContainEveryValuePut() {
+    // Given
+    BloomFilter underTest = new BloomFilter(10_000, 0.01);
+
+    // When
+    for (int i = 0; i < 10_000; i++) {
+      underTest.put("+44" + (7000000000L + i));
+    }
+
+    // Then no false negatives
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(underTest.mightContain("+44" + (7000000000L + i))).isTrue();
+    }
+    assertThat(underTest.getInsertions()).isEqualTo(10_000);
+  }
+
+  @Test
+  void itShouldStayNearTheConfiguredFalsePositiveRate() {
+    // Given a filter filled to capacity
+    BloomFilter underTest = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      underTest.put("+44" + (7000000000L + i));
+    }
+
+    // When probing numbers that were never put
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (underTest.mightContain("+44" + (8000000000L + i))) {
+        falsePositives++;
+      }
+    }
+
+    // Then
+    assertThat(falsePositives).isLessThan(300);
+    assertThat(underTest.expectedFalsePositiveProbability()).isBetween(0.005, 0.02);
+  }
+
+  @Test
+  void itShouldRejectInvalidSizing() {
+    assertThatThrownBy(() -> new BloomFilter(0, 0.01))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Expected insertions must be positive");
+    assertThatThrownBy(() -> new BloomFilter(100, 1.0))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("False positive probability must be between 0 and 1");
+  }
+}
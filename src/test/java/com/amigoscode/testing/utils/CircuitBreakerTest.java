@@ -0,0 +1,113 @@
+package com.amigoscode.testing.utils;
+
+import com.amigoscode.testing.Utils.CircuitBreaker;
+import com.amigoscode.testing.Utils.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CircuitBreakerTest {
+  private final AtomicLong now = new AtomicLong();
+  private final CircuitBreaker underTest = new CircuitBreaker(0.5, 4, 4, 1000, now::get);
+
+  @Test
+  void itShouldStayClosedBelowMinimumCalls() {
+    // When
+    underTest.onFailure();
+    underTest.onFailure();
+    underTest.onFailure();
+
+    // Then
+    assertThat(underTest.getState()).isEqualTo(State.CLOSED);
+    assertThat(underTest.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void itShouldOpenWhenFailureRateReachesThreshold() {
+    // When
+    underTest.onSuccess();
+    underTest.onSuccess();
+    underTest.onFailure();
+    underTest.onFailure();
+
+    // Then
+    assertThat(underTest.getState()).isEqualTo(State.OPEN);
+    assertThat(underTest.tryAcquire()).isFalse();
+  }
+
+  @Test
+  void itShouldOnlyCountTheSlidingWindow() {
+    // Given failures that have slid out of the window
+    underTest.onFailure();
+    underTest.onSuccess();
+    underTest.onSuccess();
+    underTest.onSuccess();
+
+    // When
+    underTest.onSuccess();
+    underTest.onFailure();
+
+    // Then one failure out of the last four
+    assertThat(underTest.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void itShouldLetOneProbeThroughAfterOpenPeriod() {
+    // Given
+    openCircuit();
+
+    // When
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+    // Then
+    assertThat(underTest.tryAcquire()).isTrue();
+    assertThat(underTest.getState()).isEqualTo(State.HALF_OPEN);
+    assertThat(underTest.tryAcquire()).isFalse();
+  }
+
+  @Test
+  void itShouldCloseWhenProbeSucceeds() {
+    // Given
+    openCircuit();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    underTest.tryAcquire();
+
+    // When
+    underTest.onSuccess();
+
+    // Then
+    assertThat(underTest.getState()).isEqualTo(State.CLOSED);
+    assertThat(underTest.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void itShouldReopenWhenProbeFails() {
+    // Given
+    openCircuit();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    underTest.tryAcquire();
+
+    // When
+    underTest.onFailure();
+
+    // Then
+    assertThat(underTest.getState()).isEqualTo(State.OPEN);
+    assertThat(underTest.tryAcquire()).isFalse();
+  }
+
+  @Test
+  void itShouldRejectMinimumCallsLargerThanWindow() {
+    assertThatThrownBy(() -> new CircuitBreaker(0.5, 4, 5, 1000))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private void openCircuit() {
+    for (int i = 0; i < 4; i++) {
+      underTest.onFailure();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.amigoscode.testing.utils;
+
+import com.amigoscode.testing.Utils.ExpiringCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringCacheTest {
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  void itShouldKeepTheFirstValueForAKey() {
+    // Given
+    ExpiringCache<String, String> underTest = new ExpiringCache<>(10, 1, TimeUnit.SECONDS, now::get);
+
+    // When
+    String first = underTest.putIfAbsent("key", "first");
+    String second = underTest.putIfAbsent("key", "second");
+
+    // Then
+    assertThat(first).isNull();
+    assertThat(second).isEqualTo("first");
+    assertThat(underTest.get("key")).isEqualTo("first");
+  }
+
+  @Test
+  void itShouldExpireEntriesAfterTtl() {
+    // Given
+    ExpiringCache<String, String> underTest = new ExpiringCache<>(10, 1, TimeUnit.SECONDS, now::get);
+    underTest.put("key", "value");
+
+    // When
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+    // Then
+    assertThat(underTest.get("key")).isNull();
+    assertThat(underTest.putIfAbsent("key", "fresh")).isNull();
+    assertThat(underTest.get("key")).isEqualTo("fresh");
+  }
+
+  @Test
+  void itShouldEvictOldestEntriesBeyondMaxSize() {
+    // Given
+    ExpiringCache<Integer, Integer> underTest = new ExpiringCache<>(3, 1, TimeUnit.HOURS, now::get);
+
+    // When
+    for (int i = 0; i < 5; i++) {
+      underTest.put(i, i);
+    }
+
+    // Then
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.get(0)).isNull();
+    assertThat(underTest.get(1)).isNull();
+    assertThat(underTest.get(4)).isEqualTo(4);
+  }
+
+  @Test
+  void itShouldOnlyRemoveTheGivenValue() {
+    // Given
+    ExpiringCache<String, String> underTest = new ExpiringCache<>(10, 1, TimeUnit.HOURS, now::get);
+    underTest.put("key", "current");
+
+    // Then
+    assertThat(underTest.remove("key", "stale")).isFalse();
+    assertThat(underTest.get("key")).isEqualTo("current");
+    assertThat(underTest.remove("key", "current")).isTrue();
+    assertThat(underTest.get("key")).isNull();
+  }
+}
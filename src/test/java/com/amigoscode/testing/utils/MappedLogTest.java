@@ -0,0 +1,175 @@
+package com.amigoscode.testing.utils;
+
+import com.amigoscode.testing.Utils.MappedLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MappedLogTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void itShouldReadRecordsBackFromAnOffset() {
+    // Given
+    MappedLog underTest = new MappedLog(directory, 1024, 4);
+    underTest.append(record("a"));
+    long second = underTest.append(record("bb"));
+    underTest.append(record("ccc"));
+
+    // When
+    List<String> records = new ArrayList<>();
+    long next = underTest.read(second, 10, (offset, record) -> records.add(text(record)));
+
+    // Then
+    assertThat(records).containsExactly("bb", "ccc");
+    assertThat(next).isEqualTo(underTest.endOffset());
+  }
+
+  @Test
+  void itShouldStopAtMaxRecords() {
+    // Given
+    MappedLog underTest = new MappedLog(directory, 1024, 4);
+    underTest.append(record("a"));
+    long second = underTest.append(record("b"));
+
+    // When
+    List<String> records = new ArrayList<>();
+    long next = underTest.read(0, 1, (offset, record) -> records.add(text(record)));
+
+    // Then
+    assertThat(records).containsExactly("a");
+    assertThat(next).isEqualTo(second);
+  }
+
+  @Test
+  void itShouldRollSegmentsAndKeepOffsetsContiguous() {
+    // Given segments that hold two 12 byte records each
+    MappedLog underTest = new MappedLog(directory, 24, 10);
+
+    // When
+    for (int i = 0; i < 5; i++) {
+      underTest.append(record("record-" + i));
+    }
+
+    // Then
+    List<String> records = new ArrayList<>();
+    underTest.read(0, 10, (offset, record) -> records.add(text(record)));
+    assertThat(underTest.segmentCount()).isEqualTo(3);
+    assertThat(records).containsExactly("record-0", "record-1", "record-2", "record-3", "record-4");
+    assertThat(underTest.endOffset()).isEqualTo(60);
+  }
+
+  @Test
+  void itShouldPurgeOldestSegments() {
+    // Given
+    MappedLog underTest = new MappedLog(directory, 24, 2);
+
+    // When
+    for (int i = 0; i < 6; i++) {
+      underTest.append(record("record-" + i));
+    }
+
+    // Then only the last two segments are left
+    assertThat(underTest.segmentCount()).isEqualTo(2);
+    assertThat(underTest.startOffset()).isEqualTo(24);
+    assertThat(directory.toFile().list()).hasSize(2);
+    assertThatThrownBy(() -> underTest.read(0, 1, (offset, record) -> {}))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Offset 0 was purged");
+  }
+
+  @Test
+  void itShouldRecoverEndOffsetOnReopen() {
+    // Given
+    MappedLog written = new MappedLog(directory, 24, 10);
+    for (int i = 0; i < 3; i++) {
+      written.append(record("record-" + i));
+    }
+    written.close();
+
+    // When
+    MappedLog underTest = new MappedLog(directory, 24, 10);
+    underTest.append(record("record-3"));
+
+    // Then
+    List<String> records = new ArrayList<>();
+    underTest.read(0, 10, (offset, record) -> records.add(text(record)));
+    assertThat(records).containsExactly("record-0", "record-1", "record-2", "record-3");
+  }
+
+  @Test
+  void itShouldRejectRecordsLargerThanASegment() {
+    // Given
+    MappedLog underTest = new MappedLog(directory, 24, 10);
+
+    // Then
+    assertThatThrownBy(() -> underTest.append(record("twenty-one bytes long")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Record of 21 bytes does not fit a 24 byte segment");
+  }
+
+  @Test
+  void itShouldRejectOffsetsPastTheEnd() {
+    // Given
+    MappedLog underTest = new MappedLog(directory, 24, 10);
+
+    // Then
+    assertThatThrownBy(() -> underTest.read(4, 1, (offset, record) -> {}))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Offset 4 is past the end of the log at 0");
+  }
+
+  @Test
+  void itShouldRejectOffsetsInsideARecord() {
+    // Given
+    MappedLog underTest = new MappedLog(directory, 1024, 4);
+    underTest.append(record("first"));
+    long second = underTest.append(record("second"));
+
+    // Then
+    assertThatThrownBy(() -> underTest.read(second + 2, 1, (offset, record) -> {}))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(String.format("Offset %d is not the start of a record", second + 2));
+  }
+
+  @Test
+  void itShouldFindRecordStartsFarIntoARecoveredSegment() {
+    // Given more records than one index interval covers, written before a restart
+    MappedLog written = new MappedLog(directory, 1 << 16, 4);
+    List<Long> offsets = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      offsets.add(written.append(record("record-" + i)));
+    }
+    written.close();
+
+    // When
+    MappedLog underTest = new MappedLog(directory, 1 << 16, 4);
+    List<String> records = new ArrayList<>();
+    underTest.read(offsets.get(900), 1, (offset, record) -> records.add(text(record)));
+
+    // Then
+    assertThat(records).containsExactly("record-900");
+    assertThatThrownBy(() -> underTest.read(offsets.get(900) + 1, 1, (offset, record) -> {}))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("is not the start of a record");
+  }
+
+  private static ByteBuffer record(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String text(ByteBuffer record) {
+    byte[] bytes = new byte[record.remaining()];
+    record.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -1,12 +1,16 @@
 package com.amigoscode.testing.utils;
 
+import com.amigoscode.testing.Utils.CallingCodeRule;
 import com.amigoscode.testing.Utils.PhoneNumberValidator;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
-import org.springframework.stereotype.Service;
+
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class PhoneNumberValidatorTest {
 
@@ -31,4 +35,52 @@ public class PhoneNumberValidatorTest {
     //Then
     assertThat(isValid).isEqualTo(Boolean.valueOf(expected));
   }
+
+  @ParameterizedTest
+  @CsvSource({
+      "+12025550123, true",
+      "+33612345678, true",
+      "+4915112345678, true",
+      "+8613812345678, true",
+      "+919812345678, true",
+      "+353851234567, true",
+      "+971501234567, true",
+      "+3361234567, false",
+      "+35385123456789, false",
+      "+2125550123, false",
+      "+44712345678a, false",
+      "447123456789, false",
+      "+44, false",
+      "+, false"
+  })
+  void itShouldValidatePhoneNumbersForOtherCountries(String phoneNumber, String expected) {
+    //When
+    boolean isValid = underTest.test(phoneNumber);
+
+    //Then
+    assertThat(isValid).isEqualTo(Boolean.valueOf(expected));
+  }
+
+  @Test
+  void itShouldValidateCharSequenceWithoutConvertingToString() {
+    assertThat(underTest.test(new StringBuilder("+447123456789"))).isTrue();
+    assertThat(underTest.test((String) null)).isFalse();
+  }
+
+  @Test
+  void itShouldRejectOverlappingCallingCodes() {
+    assertThatThrownBy(() -> new PhoneNumberValidator(List.of(
+        new CallingCodeRule("35", 9, 9),
+        new CallingCodeRule("353", 7, 9)
+    )))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("overlaps");
+  }
+
+  @Test
+  void itShouldRejectRulesLongerThanE164() {
+    assertThatThrownBy(() -> new PhoneNumberValidator(List.of(new CallingCodeRule("44", 10, 14))))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Invalid calling code rule");
+  }
 }
@@ -0,0 +1,53 @@
+package com.amigoscode.testing.utils;
+
+import com.amigoscode.testing.Utils.StripedLocks;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StripedLocksTest {
+
+  @Test
+  void itShouldRoundStripesUpToPowerOfTwo() {
+    assertThat(new StripedLocks(1).size()).isEqualTo(1);
+    assertThat(new StripedLocks(3).size()).isEqualTo(4);
+    assertThat(new StripedLocks(64).size()).isEqualTo(64);
+    assertThat(new StripedLocks(65).size()).isEqualTo(128);
+  }
+
+  @Test
+  void itShouldGiveEqualKeysTheSameLock() {
+    // Given
+    StripedLocks underTest = new StripedLocks(16);
+
+    // Then
+    assertThat(underTest.get("+447000000001")).isSameAs(underTest.get(new String("+447000000001")));
+  }
+
+  @Test
+  void itShouldSpreadKeysOverStripes() {
+    // Given
+    StripedLocks underTest = new StripedLocks(16);
+
+    // When
+    Set<Lock> used = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      used.add(underTest.get("+44" + (7000000000L + i)));
+    }
+
+    // Then
+    assertThat(used).hasSize(16);
+  }
+
+  @Test
+  void itShouldRejectNonPositiveStripes() {
+    assertThatThrownBy(() -> new StripedLocks(0))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Lock stripes must be positive");
+  }
+}
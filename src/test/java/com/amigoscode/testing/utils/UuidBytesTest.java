@@ -0,0 +1,32 @@
+package com.amigoscode.testing.utils;
+
+import com.amigoscode.testing.Utils.UuidBytes;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UuidBytesTest {
+
+  @Test
+  void itShouldWriteTheMostSignificantByteFirst() {
+    // Given
+    UUID id = UUID.fromString("01020304-0506-0708-090a-0b0c0d0e0f10");
+
+    // When
+    byte[] bytes = UuidBytes.toBytes(id);
+
+    // Then
+    assertThat(bytes).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16);
+  }
+
+  @Test
+  void itShouldReadBackTheSameId() {
+    // Given
+    UUID id = UUID.randomUUID();
+
+    // Then
+    assertThat(UuidBytes.fromBytes(UuidBytes.toBytes(id))).isEqualTo(id);
+  }
+}